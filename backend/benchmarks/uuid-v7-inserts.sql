@@ -0,0 +1,57 @@
+-- Insert throughput and primary key size: random UUIDv4 vs time-ordered UUIDv7 keys.
+--
+-- Runs against the docker-compose database and cleans up after itself:
+--   docker compose exec -T postgres psql -U lazycord -d lazycord < backend/benchmarks/uuid-v7-inserts.sql
+--
+-- Each table receives 10M rows in 40 committed batches of 250k, which resembles steady
+-- message traffic more than one huge INSERT. Compare the two DO timings and the index
+-- sizes and leaf densities printed at the end. The v4 index grows larger because page
+-- splits leave half-empty leaves. It also gets slower once it no longer fits in
+-- shared_buffers.
+
+\timing on
+
+CREATE EXTENSION IF NOT EXISTS pgstattuple;
+
+-- Same layout as UuidV7Generator: 48-bit millisecond timestamp, version 7, random rest
+CREATE OR REPLACE FUNCTION pg_temp.uuid_v7() RETURNS uuid AS $$
+    SELECT encode(
+        set_bit(set_bit(
+            overlay(uuid_send(gen_random_uuid())
+                    PLACING substring(int8send((extract(epoch FROM clock_timestamp()) * 1000)::bigint) FROM 3)
+                    FROM 1 FOR 6),
+            52, 1), 53, 1),
+        'hex')::uuid;
+$$ LANGUAGE sql VOLATILE;
+
+DROP TABLE IF EXISTS bench_uuid_v4, bench_uuid_v7;
+CREATE UNLOGGED TABLE bench_uuid_v4 (id uuid PRIMARY KEY, content text NOT NULL);
+CREATE UNLOGGED TABLE bench_uuid_v7 (id uuid PRIMARY KEY, content text NOT NULL);
+
+-- UUIDv4
+DO $$
+BEGIN
+    FOR batch IN 1..40 LOOP
+        INSERT INTO bench_uuid_v4 SELECT gen_random_uuid(), 'message ' || n FROM generate_series(1, 250000) n;
+        COMMIT;
+    END LOOP;
+END $$;
+
+-- UUIDv7
+DO $$
+BEGIN
+    FOR batch IN 1..40 LOOP
+        INSERT INTO bench_uuid_v7 SELECT pg_temp.uuid_v7(), 'message ' || n FROM generate_series(1, 250000) n;
+        COMMIT;
+    END LOOP;
+END $$;
+
+SELECT 'v4' AS keys,
+       pg_size_pretty(pg_relation_size('bench_uuid_v4_pkey')) AS pkey_size,
+       (pgstatindex('bench_uuid_v4_pkey')).avg_leaf_density AS leaf_density
+UNION ALL
+SELECT 'v7',
+       pg_size_pretty(pg_relation_size('bench_uuid_v7_pkey')),
+       (pgstatindex('bench_uuid_v7_pkey')).avg_leaf_density;
+
+DROP TABLE bench_uuid_v4, bench_uuid_v7;
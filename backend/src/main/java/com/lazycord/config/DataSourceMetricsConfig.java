@@ -0,0 +1,49 @@
+package com.lazycord.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Connection pool occupancy, next to the hikaricp.* meters Spring Boot registers.
+ *
+ * {@code db.pool.occupancy} is the share of the pool's connections currently checked
+ * out; {@code hikaricp.connections.usage} times how long each one is held. Together
+ * they show whether requests hold connections across slow remote calls.
+ */
+@Configuration
+public class DataSourceMetricsConfig {
+
+    @Bean
+    public MeterBinder connectionPoolOccupancy(DataSource dataSource) {
+        return registry -> {
+            HikariDataSource hikari = unwrap(dataSource);
+            if (hikari == null) {
+                return;
+            }
+            Gauge.builder("db.pool.occupancy", hikari, DataSourceMetricsConfig::occupancy)
+                    .description("Share of pooled connections in use")
+                    .register(registry);
+        };
+    }
+
+    private static double occupancy(HikariDataSource hikari) {
+        // The pool starts lazily with the first connection
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+        return pool != null ? (double) pool.getActiveConnections() / hikari.getMaximumPoolSize() : 0;
+    }
+
+    private static HikariDataSource unwrap(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.lazycord.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lazycord.security.JwtAuthenticationCache;
+import com.lazycord.service.RecentMessageCache;
+import com.lazycord.websocket.RedisBrokerRelay;
+import com.lazycord.websocket.StompSessionRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.MessageChannel;
+
+/**
+ * Cluster mode for the STOMP broker: relays broadcasts between nodes through Redis.
+ * Single-node setups leave {@code app.websocket.cluster.enabled} off and only use the simple broker.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.websocket.cluster", name = "enabled", havingValue = "true")
+public class RedisBrokerRelayConfig {
+
+    @Value("${app.websocket.cluster.redis-channel:lazycord:ws:broadcast}")
+    private String redisChannel;
+
+    @Bean
+    public RedisBrokerRelay redisBrokerRelay(StringRedisTemplate redisTemplate,
+                                             ObjectMapper objectMapper,
+                                             @Qualifier("brokerChannel") ObjectProvider<MessageChannel> brokerChannel,
+                                             RecentMessageCache recentMessageCache,
+                                             JwtAuthenticationCache jwtAuthenticationCache,
+                                             StompSessionRegistry stompSessionRegistry,
+                                             MeterRegistry meterRegistry) {
+        RedisBrokerRelay relay = new RedisBrokerRelay(redisTemplate, objectMapper, brokerChannel, recentMessageCache,
+                redisChannel, meterRegistry);
+        relay.onInvalidation(RedisBrokerRelay.AUTHENTICATED_USERS, jwtAuthenticationCache::evictUser);
+        relay.onInvalidation(RedisBrokerRelay.CHANNEL_AUTHORIZATIONS, stompSessionRegistry::revokeAllChannels);
+        return relay;
+    }
+
+    @Bean
+    public RedisMessageListenerContainer brokerRelayListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                      RedisBrokerRelay redisBrokerRelay) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(redisBrokerRelay, new ChannelTopic(redisChannel));
+        return container;
+    }
+}
@@ -1,6 +1,7 @@
 package com.lazycord.config;
 
 import com.lazycord.security.JwtAuthFilter;
+import com.lazycord.security.JwtAuthenticationCache;
 import com.lazycord.service.UserService;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -39,8 +40,9 @@ public class SecurityConfig {
     private String keycloakClientId;
 
     @Bean
-    public JwtAuthFilter jwtAuthFilter(JwtDecoder jwtDecoder, UserService userService) {
-        return new JwtAuthFilter(jwtDecoder, userService);
+    public JwtAuthFilter jwtAuthFilter(JwtDecoder jwtDecoder, UserService userService,
+                                       JwtAuthenticationCache jwtAuthenticationCache) {
+        return new JwtAuthFilter(jwtDecoder, userService, jwtAuthenticationCache);
     }
 
     @Bean
@@ -1,20 +1,114 @@
 package com.lazycord.config;
 
+import com.lazycord.websocket.ChannelExecutorFactory;
+import com.lazycord.websocket.RedisBrokerRelay;
+import com.lazycord.websocket.ResumeOnSubscribeInterceptor;
+import com.lazycord.websocket.SlowConsumerGuard;
+import com.lazycord.websocket.StompPrincipalInterceptor;
+import com.lazycord.websocket.StompRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    @Value("${app.websocket.inbound.core-pool-size:8}")
+    private int inboundCorePoolSize;
+
+    @Value("${app.websocket.inbound.max-pool-size:32}")
+    private int inboundMaxPoolSize;
+
+    @Value("${app.websocket.inbound.queue-capacity:10000}")
+    private int inboundQueueCapacity;
+
+    @Value("${app.websocket.inbound.virtual-threads:false}")
+    private boolean inboundVirtualThreads;
+
+    @Value("${app.websocket.outbound.core-pool-size:8}")
+    private int outboundCorePoolSize;
+
+    @Value("${app.websocket.outbound.max-pool-size:32}")
+    private int outboundMaxPoolSize;
+
+    @Value("${app.websocket.outbound.queue-capacity:10000}")
+    private int outboundQueueCapacity;
+
+    @Value("${app.websocket.outbound.virtual-threads:false}")
+    private boolean outboundVirtualThreads;
+
+    @Value("${app.websocket.transport.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
+    @Value("${app.websocket.transport.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    @Value("${app.websocket.transport.message-size-limit:65536}")
+    private int messageSizeLimit;
+
+    private final ObjectProvider<RedisBrokerRelay> redisBrokerRelay;
+    private final StompPrincipalInterceptor stompPrincipalInterceptor;
+    private final StompRateLimiter stompRateLimiter;
+    private final ResumeOnSubscribeInterceptor resumeOnSubscribeInterceptor;
+    private final SlowConsumerGuard slowConsumerGuard;
+    private final MeterRegistry meterRegistry;
+
+    public WebSocketConfig(ObjectProvider<RedisBrokerRelay> redisBrokerRelay,
+                           StompPrincipalInterceptor stompPrincipalInterceptor,
+                           StompRateLimiter stompRateLimiter,
+                           ResumeOnSubscribeInterceptor resumeOnSubscribeInterceptor,
+                           SlowConsumerGuard slowConsumerGuard,
+                           MeterRegistry meterRegistry) {
+        this.redisBrokerRelay = redisBrokerRelay;
+        this.stompPrincipalInterceptor = stompPrincipalInterceptor;
+        this.stompRateLimiter = stompRateLimiter;
+        this.resumeOnSubscribeInterceptor = resumeOnSubscribeInterceptor;
+        this.slowConsumerGuard = slowConsumerGuard;
+        this.meterRegistry = meterRegistry;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         config.enableSimpleBroker("/topic", "/queue");
         config.setApplicationDestinationPrefixes("/app");
         config.setUserDestinationPrefix("/user");
+
+        // Cluster mode: local delivery stays on the simple broker, broadcasts are also relayed via Redis
+        redisBrokerRelay.ifAvailable(relay -> config.configureBrokerChannel().interceptors(relay));
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // Interceptors run on the transport thread, so limited frames never reach the executor queue;
+        // the resume interceptor only acts after the broker has handled a SUBSCRIBE
+        registration.interceptors(stompPrincipalInterceptor, stompRateLimiter, resumeOnSubscribeInterceptor);
+        registration.executor(ChannelExecutorFactory.create("inbound", inboundCorePoolSize, inboundMaxPoolSize,
+                inboundQueueCapacity, inboundVirtualThreads, meterRegistry));
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(slowConsumerGuard);
+        registration.executor(ChannelExecutorFactory.create("outbound", outboundCorePoolSize, outboundMaxPoolSize,
+                outboundQueueCapacity, outboundVirtualThreads, meterRegistry));
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // A session whose buffered frames exceed the size or time limit is closed as too slow;
+        // SlowConsumerGuard reacts earlier, based on the number of frames not yet written
+        registration.setSendTimeLimit(sendTimeLimitMs)
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setMessageSizeLimit(messageSizeLimit)
+                .addDecoratorFactory(slowConsumerGuard);
     }
 
     @Override
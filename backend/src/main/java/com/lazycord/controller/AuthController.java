@@ -17,6 +17,8 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
@@ -35,6 +37,7 @@ public class AuthController {
 
     private final UserService userService;
     private final KeycloakTokenService keycloakTokenService;
+    private final JwtDecoder jwtDecoder;
     private final WebClient.Builder webClientBuilder;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
@@ -95,8 +98,11 @@ public class AuthController {
             }
             
             String accessToken = tokenResponse.get("access_token").asText();
-            String keycloakId = extractUserIdFromToken(accessToken);
-            User user = userService.syncUserWithKeycloak(keycloakId);
+            // The token comes straight from Keycloak; its claims are enough to sync known users
+            Jwt jwt = jwtDecoder.decode(accessToken);
+            User user = userService.syncUserFromClaims(jwt.getSubject(),
+                jwt.getClaimAsString("preferred_username"), jwt.getClaimAsString("email"),
+                jwt.getClaimAsString("given_name"), jwt.getClaimAsString("family_name"), jwt.getIssuedAt());
             
             // Update last active
             userService.updateLastActive(user);
@@ -223,27 +229,6 @@ public class AuthController {
         }
     }
 
-    /**
-     * Extract user ID from JWT token (sub claim)
-     */
-    private String extractUserIdFromToken(String accessToken) {
-        try {
-            String[] parts = accessToken.split("\\.");
-            if (parts.length >= 2) {
-                String payload = new String(Base64.getDecoder().decode(parts[1]));
-                int subIndex = payload.indexOf("\"sub\":");
-                if (subIndex >= 0) {
-                    int start = payload.indexOf("\"", subIndex + 6) + 1;
-                    int end = payload.indexOf("\"", start);
-                    return payload.substring(start, end);
-                }
-            }
-        } catch (Exception e) {
-            log.error("Failed to extract user ID from token", e);
-        }
-        return null;
-    }
-
     /**
      * Extract roles from JWT token
      */
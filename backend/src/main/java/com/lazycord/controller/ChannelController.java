@@ -31,7 +31,7 @@ public class ChannelController {
     public ResponseEntity<List<ChannelDto>> getMyChannels(
             @RequestParam UUID communityId,
             Authentication authentication) {
-        User user = userService.findByUsername(authentication.getName())
+        User user = userService.findCachedByUsername(authentication.getName())
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
         Community community = communityService.findById(communityId)
@@ -64,7 +64,7 @@ public class ChannelController {
             @RequestBody CreateChannelRequest request,
             Authentication authentication) {
 
-        User creator = userService.findByUsername(authentication.getName())
+        User creator = userService.findCachedByUsername(authentication.getName())
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
         Community community = communityService.findById(communityId)
@@ -86,7 +86,7 @@ public class ChannelController {
             @PathVariable UUID channelId,
             Authentication authentication) {
 
-        User user = userService.findByUsername(authentication.getName())
+        User user = userService.findCachedByUsername(authentication.getName())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         Channel channel = channelService.findById(channelId)
@@ -102,7 +102,7 @@ public class ChannelController {
             @PathVariable UUID channelId,
             Authentication authentication) {
 
-        User user = userService.findByUsername(authentication.getName())
+        User user = userService.findCachedByUsername(authentication.getName())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         Channel channel = channelService.findById(channelId)
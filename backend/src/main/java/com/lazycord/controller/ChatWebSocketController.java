@@ -1,20 +1,39 @@
 package com.lazycord.controller;
 
 import com.lazycord.dto.ChatMessageDto;
+import com.lazycord.dto.MessageCursor;
+import com.lazycord.dto.ResumeRequest;
+import com.lazycord.dto.ResumeResponseDto;
+import com.lazycord.dto.StompErrorDto;
 import com.lazycord.model.Channel;
+import com.lazycord.model.Community;
 import com.lazycord.model.Message;
 import com.lazycord.model.User;
 import com.lazycord.service.ChannelService;
+import com.lazycord.service.MentionService;
 import com.lazycord.service.MessageService;
+import com.lazycord.service.MessageWriteBehindService;
+import com.lazycord.service.RecentMessageCache;
 import com.lazycord.service.UserService;
+import com.lazycord.websocket.ChannelBroadcaster;
+import com.lazycord.websocket.PresenceTracker;
+import com.lazycord.websocket.StompRateLimiter;
+import com.lazycord.websocket.StompSessionRegistry;
+import com.lazycord.websocket.StompSessionState;
+import com.lazycord.websocket.StompSessionUser;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.handler.annotation.*;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.annotation.SendToUser;
 import org.springframework.messaging.simp.annotation.SubscribeMapping;
 import org.springframework.stereotype.Controller;
 
 import java.security.Principal;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Controller
@@ -22,34 +41,121 @@ import java.util.UUID;
 @Slf4j
 public class ChatWebSocketController {
 
+    /** Larger gaps are answered with tooFarBehind so the client reloads history instead. */
+    public static final int RESUME_LIMIT = 200;
+
     private final SimpMessagingTemplate messagingTemplate;
     private final MessageService messageService;
     private final ChannelService channelService;
     private final UserService userService;
+    private final RecentMessageCache recentMessageCache;
+    private final MessageWriteBehindService messageWriteBehindService;
+    private final StompSessionRegistry stompSessionRegistry;
+    private final ChannelBroadcaster channelBroadcaster;
+    private final PresenceTracker presenceTracker;
+    private final MentionService mentionService;
 
     @MessageMapping("/chat.send")
-    public void sendMessage(@Payload ChatMessageDto messageDto, Principal principal) {
-        log.info("Received message from {} for channel {}", principal.getName(), messageDto.getChannelId());
-
-        User sender = userService.findByUsername(principal.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        Channel channel = channelService.findById(messageDto.getChannelId())
-                .orElseThrow(() -> new RuntimeException("Channel not found"));
-
-        Message savedMessage = messageService.saveMessage(messageDto.getContent(), sender, channel);
+    public void sendMessage(@Payload ChatMessageDto messageDto, Principal principal,
+                            SimpMessageHeaderAccessor headerAccessor) {
+        log.debug("Received message from {} for channel {}", principal.getName(), messageDto.getChannelId());
+
+        // User snapshot and channel authorization are cached per session, so the usual path runs no lookups
+        StompSessionState session = resolveSession(principal, headerAccessor);
+        StompSessionUser user = session.getUser();
+        UUID channelId = messageDto.getChannelId();
+        UUID communityId = session.authorizedCommunity(channelId);
+        if (communityId == null) {
+            communityId = authorizeChannel(session, user, channelId);
+        }
+
+        User sender = user.toReference();
+        Channel channel = new Channel();
+        channel.setId(channelId);
+        Community community = null;
+        if (communityId != null) {
+            community = new Community();
+            community.setId(communityId);
+        }
+
+        // In write-behind mode the message is broadcast before it is committed
+        Message savedMessage = messageWriteBehindService.isEnabled()
+                ? messageWriteBehindService.submit(messageDto.getContent(), sender, channel, community)
+                : messageService.saveMessage(messageDto.getContent(), sender, channel, community);
+
+        ChatMessageDto responseDto = convertToDto(savedMessage, user);
+        recentMessageCache.append(responseDto);
+
+        channelBroadcaster.broadcast(channelId, responseDto);
+        presenceTracker.stoppedTyping(channelId, user.getId());
+        mentionService.publish(savedMessage, user);
+        log.debug("Message sent to channel {}", channelId);
+    }
 
-        ChatMessageDto responseDto = convertToDto(savedMessage);
+    @MessageMapping("/chat.typing")
+    public void typing(@Payload String channelId, Principal principal, SimpMessageHeaderAccessor headerAccessor) {
+        StompSessionState session = resolveSession(principal, headerAccessor);
+        UUID id = UUID.fromString(channelId);
+        if (session.authorizedCommunity(id) == null) {
+            authorizeChannel(session, session.getUser(), id);
+        }
+        presenceTracker.typing(id, session.getUser());
+    }
 
-        messagingTemplate.convertAndSend("/topic/channel/" + channel.getId(), responseDto);
-        log.info("Message sent to channel {}", channel.getId());
+    /**
+     * Replays the messages a reconnecting client missed since its cursor, from the recent
+     * message cache when it spans the gap and from the database otherwise. A malformed
+     * cursor is answered on {@code /user/queue/errors} instead of {@code /user/queue/resume}.
+     */
+    @MessageMapping("/chat.resume")
+    @SendToUser(destinations = "/queue/resume", broadcast = false)
+    public ResumeResponseDto resume(@Payload ResumeRequest request, Principal principal,
+                                    SimpMessageHeaderAccessor headerAccessor) {
+        StompSessionState session = resolveSession(principal, headerAccessor);
+        UUID channelId = request.getChannelId();
+        MessageCursor cursor;
+        try {
+            cursor = MessageCursor.parse(request.getCursor());
+        } catch (IllegalArgumentException e) {
+            sendError(principal, headerAccessor, e.getMessage());
+            return null;
+        }
+
+        UUID communityId = session.authorizedCommunity(channelId);
+        if (communityId == null) {
+            Channel channel = channelService.findById(channelId)
+                    .orElseThrow(() -> new RuntimeException("Channel not found"));
+            if (!channelService.canRead(channel, session.getUser().toReference())) {
+                throw new RuntimeException("Not allowed to read this channel");
+            }
+            communityId = channel.getCommunity() != null ? channel.getCommunity().getId() : null;
+        }
+        if (communityId == null) {
+            // History is keyed by community; legacy channels without one reload it instead
+            return new ResumeResponseDto(channelId, List.of(), true);
+        }
+
+        Optional<List<ChatMessageDto>> cached = recentMessageCache.after(channelId, communityId, cursor);
+        List<ChatMessageDto> missed;
+        if (cached.isPresent()) {
+            missed = cached.get();
+        } else {
+            Community community = new Community();
+            community.setId(communityId);
+            missed = messageService.getMissedMessages(channelId, community, cursor, RESUME_LIMIT + 1);
+        }
+
+        if (missed.size() > RESUME_LIMIT) {
+            return new ResumeResponseDto(channelId, List.of(), true);
+        }
+        return new ResumeResponseDto(channelId, missed, false);
     }
 
     @MessageMapping("/chat.join")
     public void joinChannel(@Payload String channelId, Principal principal) {
         log.info("User {} joining channel {}", principal.getName(), channelId);
 
-        User user = userService.findByUsername(principal.getName())
+        User user = userService.findCachedByUsername(principal.getName())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         Channel channel = channelService.findById(UUID.fromString(channelId))
@@ -65,7 +171,7 @@ public class ChatWebSocketController {
     public void leaveChannel(@Payload String channelId, Principal principal) {
         log.info("User {} leaving channel {}", principal.getName(), channelId);
 
-        User user = userService.findByUsername(principal.getName())
+        User user = userService.findCachedByUsername(principal.getName())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         Channel channel = channelService.findById(UUID.fromString(channelId))
@@ -82,15 +188,52 @@ public class ChatWebSocketController {
         log.info("New subscription to channel {}", channelId);
     }
 
-    private ChatMessageDto convertToDto(Message message) {
+    private StompSessionState resolveSession(Principal principal, SimpMessageHeaderAccessor headerAccessor) {
+        StompSessionState session = stompSessionRegistry.get(headerAccessor.getSessionAttributes());
+        if (session != null && session.getUser() != null) {
+            return session;
+        }
+        // Not resolved at CONNECT, or evicted after a profile change
+        User user = userService.findCachedByUsername(principal.getName())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        return stompSessionRegistry.attach(headerAccessor.getSessionAttributes(), headerAccessor.getSessionId(), user);
+    }
+
+    private void sendError(Principal principal, SimpMessageHeaderAccessor headerAccessor, String error) {
+        // Addressed to the requesting session only, not to every session of the user
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId(headerAccessor.getSessionId());
+        headers.setLeaveMutable(true);
+        StompErrorDto dto = new StompErrorDto(error, headerAccessor.getDestination(),
+                headerAccessor.getFirstNativeHeader("receipt"), 0);
+        messagingTemplate.convertAndSendToUser(principal.getName(), StompRateLimiter.ERROR_DESTINATION, dto,
+                headers.getMessageHeaders());
+    }
+
+    private UUID authorizeChannel(StompSessionState session, StompSessionUser user, UUID channelId) {
+        Channel channel = channelService.findById(channelId)
+                .orElseThrow(() -> new RuntimeException("Channel not found"));
+        if (!channelService.canPost(channel, user.toReference())) {
+            throw new RuntimeException("Not allowed to post in this channel");
+        }
+
+        UUID communityId = channel.getCommunity() != null ? channel.getCommunity().getId() : null;
+        if (communityId != null) {
+            session.authorize(channelId, communityId);
+        }
+        return communityId;
+    }
+
+    private ChatMessageDto convertToDto(Message message, StompSessionUser sender) {
         ChatMessageDto dto = new ChatMessageDto();
         dto.setId(message.getId());
         dto.setContent(message.getContent());
         dto.setType(message.getType().name());
-        dto.setSenderId(message.getSender().getId());
-        dto.setSenderUsername(message.getSender().getUsername());
-        dto.setSenderAvatarUrl(message.getSender().getAvatarUrl());
+        dto.setSenderId(sender.getId());
+        dto.setSenderUsername(sender.getUsername());
+        dto.setSenderAvatarUrl(sender.getAvatarUrl());
         dto.setChannelId(message.getChannel().getId());
+        dto.setSeq(message.getSeq());
         dto.setAttachmentUrl(message.getAttachmentUrl());
         dto.setEdited(message.getEdited());
         dto.setCreatedAt(message.getCreatedAt());
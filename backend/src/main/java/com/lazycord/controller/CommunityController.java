@@ -41,7 +41,7 @@ public class CommunityController {
         }
 
         try {
-            Optional<User> userOpt = userService.findByUsername(authentication.getName());
+            Optional<User> userOpt = userService.findCachedByUsername(authentication.getName());
             if (!userOpt.isPresent()) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
             }
@@ -87,7 +87,7 @@ public class CommunityController {
         }
 
         try {
-            Optional<User> userOpt = userService.findByUsername(authentication.getName());
+            Optional<User> userOpt = userService.findCachedByUsername(authentication.getName());
             if (!userOpt.isPresent()) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "User not found"));
             }
@@ -116,7 +116,7 @@ public class CommunityController {
         }
 
         try {
-            Optional<User> userOpt = userService.findByUsername(authentication.getName());
+            Optional<User> userOpt = userService.findCachedByUsername(authentication.getName());
             Optional<Community> communityOpt = communityService.findById(java.util.UUID.fromString(communityId));
 
             if (!userOpt.isPresent() || !communityOpt.isPresent()) {
@@ -43,7 +43,7 @@ public class FileController {
             Authentication authentication) {
         
         try {
-            User user = userService.findByUsername(authentication.getName())
+            User user = userService.findCachedByUsername(authentication.getName())
                     .orElseThrow(() -> new RuntimeException("User not found"));
 
             Channel channel = null;
@@ -135,7 +135,7 @@ public class FileController {
 
     @GetMapping("/my")
     public ResponseEntity<List<FileUploadResponse>> getMyFiles(Authentication authentication) {
-        User user = userService.findByUsername(authentication.getName())
+        User user = userService.findCachedByUsername(authentication.getName())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         List<FileAttachment> files = fileAttachmentService.getUserFiles(user);
@@ -155,7 +155,7 @@ public class FileController {
 
     @GetMapping("/storage")
     public ResponseEntity<Map<String, Object>> getStorageInfo(Authentication authentication) {
-        User user = userService.findByUsername(authentication.getName())
+        User user = userService.findCachedByUsername(authentication.getName())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         long usedBytes = fileAttachmentService.getUserStorageUsed(user);
@@ -171,7 +171,7 @@ public class FileController {
 
     @DeleteMapping("/{fileId}")
     public ResponseEntity<Void> deleteFile(@PathVariable UUID fileId, Authentication authentication) {
-        User user = userService.findByUsername(authentication.getName())
+        User user = userService.findCachedByUsername(authentication.getName())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         fileAttachmentService.deleteFile(fileId, user);
@@ -1,35 +1,92 @@
 package com.lazycord.controller;
 
 import com.lazycord.dto.ChatMessageDto;
+import com.lazycord.dto.MessageCursor;
 import com.lazycord.model.Channel;
 import com.lazycord.model.Community;
-import com.lazycord.model.Message;
+import com.lazycord.model.User;
 import com.lazycord.service.ChannelService;
 import com.lazycord.service.CommunityService;
+import com.lazycord.service.MessageExportService;
 import com.lazycord.service.MessageService;
+import com.lazycord.service.RecentMessageCache;
+import com.lazycord.service.UserService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/messages")
 @RequiredArgsConstructor
-@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:1420", "tauri://localhost"})
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:1420", "tauri://localhost"},
+        exposedHeaders = MessageController.NEXT_CURSOR_HEADER)
 public class MessageController {
 
+    /**
+     * Cursor that continues a page in the same direction: pass it as {@code before} after a
+     * latest, {@code before} or search page, and as {@code after} after an {@code after} or
+     * {@code afterSeq} page. Absent on empty pages.
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_QUERY_LENGTH = 200;
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final MessageService messageService;
     private final ChannelService channelService;
     private final CommunityService communityService;
+    private final RecentMessageCache recentMessageCache;
+    private final MessageExportService messageExportService;
+    private final UserService userService;
+
+    @Value("${app.chat.export.timeout-ms:3600000}")
+    private long exportTimeoutMs;
 
+    /**
+     * Returns channel history newest first. Without a cursor the latest page is returned;
+     * {@code before}/{@code after} take a {@link MessageCursor} built from a message's
+     * createdAt and id and page through history without OFFSET. {@code afterSeq} returns
+     * the messages whose channel sequence number is above it, e.g. to fill a detected gap.
+     * The cursor of the next page is returned in {@value #NEXT_CURSOR_HEADER}.
+     */
     @GetMapping("/channel/{channelId}")
     public ResponseEntity<List<ChatMessageDto>> getChannelMessages(
             @PathVariable UUID channelId,
-            @RequestParam UUID communityId) {
-        
+            @RequestParam UUID communityId,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Long afterSeq,
+            @RequestParam(defaultValue = "50") int limit) {
+
+        if ((before != null ? 1 : 0) + (after != null ? 1 : 0) + (afterSeq != null ? 1 : 0) > 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Only one of 'before', 'after' or 'afterSeq' may be set");
+        }
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        // Hot path: the newest page of a cached channel needs no database access at all
+        boolean latestPage = before == null && after == null && afterSeq == null;
+        if (latestPage) {
+            Optional<List<ChatMessageDto>> cached = recentMessageCache.get(channelId, communityId, pageSize);
+            if (cached.isPresent()) {
+                return page(cached.get(), false);
+            }
+        }
+
         Community community = communityService.findById(communityId)
                 .orElseThrow(() -> new RuntimeException("Community not found"));
                 
@@ -41,26 +98,135 @@ public class MessageController {
             throw new RuntimeException("Channel does not belong to community");
         }
 
-        List<Message> messages = messageService.getChannelMessagesRecent(channelId, community);
-        List<ChatMessageDto> dtos = messages.stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        if (latestPage) {
+            return page(loadLatestPage(channelId, community, pageSize), false);
+        }
+
+        List<ChatMessageDto> messages;
+        if (before != null) {
+            messages = messageService.getChannelMessagesBefore(channelId, community,
+                    parseCursor(before), pageSize);
+        } else if (afterSeq != null) {
+            messages = messageService.getChannelMessagesAfterSeq(channelId, community, afterSeq, pageSize);
+        } else {
+            messages = messageService.getChannelMessagesAfter(channelId, community,
+                    parseCursor(after), pageSize);
+        }
+        return page(messages, before == null);
+    }
+
+    /**
+     * Full-text search in a community, or in one of its channels, newest first. Accepts
+     * web search syntax ("quoted phrases", -excluded, or). Pass the cursor of the last
+     * result, also returned in {@value #NEXT_CURSOR_HEADER}, as {@code before} to get the next page.
+     * Only messages still in the database are searched; months moved to the archive are not.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<ChatMessageDto>> searchMessages(
+            @RequestParam UUID communityId,
+            @RequestParam(required = false) UUID channelId,
+            @RequestParam String q,
+            @RequestParam(required = false) String before,
+            @RequestParam(defaultValue = "50") int limit,
+            Authentication authentication) {
+
+        if (authentication == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        User user = userService.findCachedByUsername(authentication.getName())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        Community community = communityService.findById(communityId)
+                .orElseThrow(() -> new RuntimeException("Community not found"));
+        if (!communityService.isUserInCommunity(user, community)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (q.isBlank() || q.length() > MAX_QUERY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Search query must be 1 to " + MAX_QUERY_LENGTH + " characters");
+        }
+
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        MessageCursor cursor = before != null ? parseCursor(before) : null;
+        return page(messageService.searchMessages(communityId, channelId, user, q, cursor, pageSize), false);
+    }
+
+    /**
+     * Streams the full channel history as gzip-compressed NDJSON, oldest first.
+     * Only owners and admins of the community may export. The export runs as an async
+     * task with its own {@code app.chat.export.timeout-ms}, so the application-wide async
+     * request timeout stays short.
+     */
+    @GetMapping("/channel/{channelId}/export")
+    public WebAsyncTask<Void> exportChannelMessages(
+            @PathVariable UUID channelId,
+            @RequestParam UUID communityId,
+            Authentication authentication,
+            HttpServletResponse response) {
+
+        if (authentication == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+        }
+        User user = userService.findCachedByUsername(authentication.getName())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        Community community = communityService.findById(communityId)
+                .orElseThrow(() -> new RuntimeException("Community not found"));
+        Channel channel = channelService.findById(channelId)
+                .orElseThrow(() -> new RuntimeException("Channel not found"));
+
+        if (channel.getCommunity() == null || !channel.getCommunity().getId().equals(communityId)) {
+            throw new RuntimeException("Channel does not belong to community");
+        }
+        if (!communityService.isUserAdminOrOwner(user, community)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Only community owners and admins may export");
+        }
+
+        response.setContentType(NDJSON.toString());
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"channel-" + channelId + ".ndjson\"");
+
+        // Runs on an async request thread; the export service opens its own read-only transaction
+        return new WebAsyncTask<>(exportTimeoutMs, () -> {
+            GZIPOutputStream gzip = new GZIPOutputStream(response.getOutputStream(), 64 * 1024);
+            messageExportService.exportChannel(channelId, community, gzip);
+            gzip.finish();
+            return null;
+        });
+    }
 
-        return ResponseEntity.ok(dtos);
+    /**
+     * Wraps a newest-first page, adding the cursor of its oldest message, or of its newest
+     * one when paging forward.
+     */
+    private static ResponseEntity<List<ChatMessageDto>> page(List<ChatMessageDto> messages, boolean forward) {
+        if (messages.isEmpty()) {
+            return ResponseEntity.ok(messages);
+        }
+        ChatMessageDto edge = forward ? messages.get(0) : messages.get(messages.size() - 1);
+        return ResponseEntity.ok()
+                .header(NEXT_CURSOR_HEADER, new MessageCursor(edge.getCreatedAt(), edge.getId()).encode())
+                .body(messages);
     }
 
-    private ChatMessageDto convertToDto(Message message) {
-        ChatMessageDto dto = new ChatMessageDto();
-        dto.setId(message.getId());
-        dto.setContent(message.getContent());
-        dto.setType(message.getType().name());
-        dto.setSenderId(message.getSender().getId());
-        dto.setSenderUsername(message.getSender().getUsername());
-        dto.setSenderAvatarUrl(message.getSender().getAvatarUrl());
-        dto.setChannelId(message.getChannel().getId());
-        dto.setAttachmentUrl(message.getAttachmentUrl());
-        dto.setEdited(message.getEdited());
-        dto.setCreatedAt(message.getCreatedAt());
-        return dto;
+    private static MessageCursor parseCursor(String value) {
+        try {
+            return MessageCursor.parse(value);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    private List<ChatMessageDto> loadLatestPage(UUID channelId, Community community, int pageSize) {
+        if (pageSize > recentMessageCache.capacity()) {
+            return messageService.getChannelMessagesRecent(channelId, community, pageSize);
+        }
+
+        // Load a full buffer's worth so the cache can answer any page size up to its capacity
+        long stamp = recentMessageCache.stamp(channelId);
+        List<ChatMessageDto> dtos = messageService
+                .getChannelMessagesRecent(channelId, community, recentMessageCache.capacity());
+        recentMessageCache.prime(channelId, community.getId(), dtos, stamp);
+
+        return dtos.subList(0, Math.min(pageSize, dtos.size()));
     }
 }
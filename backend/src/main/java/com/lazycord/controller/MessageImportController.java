@@ -0,0 +1,85 @@
+package com.lazycord.controller;
+
+import com.lazycord.model.Community;
+import com.lazycord.model.MessageImport;
+import com.lazycord.model.User;
+import com.lazycord.service.CommunityService;
+import com.lazycord.service.MessageImportService;
+import com.lazycord.service.UserService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Bulk import of message history into a community, for owners and admins.
+ *
+ * The archive is sent as the raw request body (optionally with {@code Content-Encoding: gzip})
+ * and processed while it is uploaded. The returned job reports progress; if it failed, posting
+ * the same archive to {@code /{importId}/resume} continues after the last committed chunk.
+ */
+@RestController
+@RequestMapping("/api/imports")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:1420", "tauri://localhost"})
+public class MessageImportController {
+
+    private final MessageImportService messageImportService;
+    private final CommunityService communityService;
+    private final UserService userService;
+
+    @PostMapping
+    public ResponseEntity<MessageImport> startImport(
+            @RequestParam UUID communityId,
+            @RequestParam(defaultValue = "NDJSON") MessageImport.Format format,
+            @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding,
+            InputStream body,
+            Authentication authentication) throws IOException {
+
+        User user = requireAdmin(communityId, authentication);
+        MessageImport job = messageImportService.create(communityId, user, format);
+        return ResponseEntity.ok(messageImportService.run(job.getId(), decode(body, contentEncoding)));
+    }
+
+    @PostMapping("/{importId}/resume")
+    public ResponseEntity<MessageImport> resumeImport(
+            @PathVariable UUID importId,
+            @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding,
+            InputStream body,
+            Authentication authentication) throws IOException {
+
+        MessageImport job = messageImportService.findById(importId);
+        requireAdmin(job.getCommunityId(), authentication);
+        return ResponseEntity.ok(messageImportService.run(importId, decode(body, contentEncoding)));
+    }
+
+    @GetMapping("/{importId}")
+    public ResponseEntity<MessageImport> getImport(@PathVariable UUID importId, Authentication authentication) {
+        MessageImport job = messageImportService.findById(importId);
+        requireAdmin(job.getCommunityId(), authentication);
+        return ResponseEntity.ok(job);
+    }
+
+    private User requireAdmin(UUID communityId, Authentication authentication) {
+        User user = userService.findCachedByUsername(authentication.getName())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        Community community = communityService.findById(communityId)
+                .orElseThrow(() -> new RuntimeException("Community not found"));
+        if (!communityService.isUserAdminOrOwner(user, community)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Only community owners and admins may import");
+        }
+        return user;
+    }
+
+    private static InputStream decode(InputStream body, String contentEncoding) throws IOException {
+        return "gzip".equalsIgnoreCase(contentEncoding) ? new GZIPInputStream(body, 64 * 1024) : body;
+    }
+}
@@ -29,14 +29,14 @@ public class MissionController {
 
     @GetMapping("/my")
     public ResponseEntity<List<MissionProgress>> getMyMissions(Authentication authentication) {
-        User user = userService.findByUsername(authentication.getName())
+        User user = userService.findCachedByUsername(authentication.getName())
                 .orElseThrow(() -> new RuntimeException("User not found"));
         return ResponseEntity.ok(missionService.getUserMissions(user));
     }
 
     @GetMapping("/active")
     public ResponseEntity<List<MissionProgress>> getMyActiveMissions(Authentication authentication) {
-        User user = userService.findByUsername(authentication.getName())
+        User user = userService.findCachedByUsername(authentication.getName())
                 .orElseThrow(() -> new RuntimeException("User not found"));
         return ResponseEntity.ok(missionService.getUserActiveMissions(user));
     }
@@ -59,7 +59,7 @@ public class MissionController {
 
     @GetMapping("/completed/unrewarded")
     public ResponseEntity<List<MissionProgress>> getUnrewardedMissions(Authentication authentication) {
-        User user = userService.findByUsername(authentication.getName())
+        User user = userService.findCachedByUsername(authentication.getName())
                 .orElseThrow(() -> new RuntimeException("User not found"));
         return ResponseEntity.ok(missionService.getCompletedUnrewardedMissions(user));
     }
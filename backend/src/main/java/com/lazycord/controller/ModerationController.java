@@ -34,7 +34,7 @@ public class ModerationController {
         
         Channel channel = channelService.findById(channelId)
                 .orElseThrow(() -> new RuntimeException("Channel not found"));
-        User bannedBy = userService.findByUsername(authentication.getName())
+        User bannedBy = userService.findCachedByUsername(authentication.getName())
                 .orElseThrow(() -> new RuntimeException("User not found"));
         User userToBan = userService.findById(request.getUserId())
                 .orElseThrow(() -> new RuntimeException("User to ban not found"));
@@ -52,7 +52,7 @@ public class ModerationController {
             @RequestBody UnbanRequest request,
             Authentication authentication) {
         
-        User unbannedBy = userService.findByUsername(authentication.getName())
+        User unbannedBy = userService.findCachedByUsername(authentication.getName())
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
         // Find the active ban
@@ -92,7 +92,7 @@ public class ModerationController {
         
         Channel channel = channelService.findById(channelId)
                 .orElseThrow(() -> new RuntimeException("Channel not found"));
-        User mutedBy = userService.findByUsername(authentication.getName())
+        User mutedBy = userService.findCachedByUsername(authentication.getName())
                 .orElseThrow(() -> new RuntimeException("User not found"));
         User userToMute = userService.findById(request.getUserId())
                 .orElseThrow(() -> new RuntimeException("User to mute not found"));
@@ -109,7 +109,7 @@ public class ModerationController {
             @PathVariable UUID userId,
             Authentication authentication) {
         
-        User unmutedBy = userService.findByUsername(authentication.getName())
+        User unmutedBy = userService.findCachedByUsername(authentication.getName())
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
         ChannelMute mute = moderationService.getChannelMutes(channelId).stream()
@@ -145,7 +145,7 @@ public class ModerationController {
             @RequestBody CreateReportRequest request,
             Authentication authentication) {
         
-        User reporter = userService.findByUsername(authentication.getName())
+        User reporter = userService.findCachedByUsername(authentication.getName())
                 .orElseThrow(() -> new RuntimeException("User not found"));
         User reportedUser = userService.findById(request.getReportedUserId())
                 .orElseThrow(() -> new RuntimeException("Reported user not found"));
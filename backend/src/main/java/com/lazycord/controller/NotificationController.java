@@ -32,7 +32,7 @@ public class NotificationController {
             @RequestParam(defaultValue = "20") int size,
             Authentication authentication) {
         
-        User user = userService.findByUsername(authentication.getName())
+        User user = userService.findCachedByUsername(authentication.getName())
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
         Pageable pageable = PageRequest.of(page, size);
@@ -41,7 +41,7 @@ public class NotificationController {
 
     @GetMapping("/unread")
     public ResponseEntity<List<Notification>> getUnreadNotifications(Authentication authentication) {
-        User user = userService.findByUsername(authentication.getName())
+        User user = userService.findCachedByUsername(authentication.getName())
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
         return ResponseEntity.ok(notificationService.getUnreadNotifications(user));
@@ -49,7 +49,7 @@ public class NotificationController {
 
     @GetMapping("/count")
     public ResponseEntity<Map<String, Long>> getUnreadCount(Authentication authentication) {
-        User user = userService.findByUsername(authentication.getName())
+        User user = userService.findCachedByUsername(authentication.getName())
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
         long count = notificationService.getUnreadCount(user);
@@ -64,7 +64,7 @@ public class NotificationController {
 
     @PostMapping("/read-all")
     public ResponseEntity<Void> markAllAsRead(Authentication authentication) {
-        User user = userService.findByUsername(authentication.getName())
+        User user = userService.findCachedByUsername(authentication.getName())
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
         notificationService.markAllAsRead(user);
@@ -76,7 +76,7 @@ public class NotificationController {
             @PathVariable UUID id,
             Authentication authentication) {
         
-        User user = userService.findByUsername(authentication.getName())
+        User user = userService.findCachedByUsername(authentication.getName())
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
         notificationService.deleteNotification(id, user);
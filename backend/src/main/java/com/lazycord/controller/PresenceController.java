@@ -0,0 +1,59 @@
+package com.lazycord.controller;
+
+import com.lazycord.model.User;
+import com.lazycord.repository.CommunityMemberRepository;
+import com.lazycord.service.UserService;
+import com.lazycord.websocket.PresenceTracker;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/presence")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:1420", "tauri://localhost"})
+public class PresenceController {
+
+    private static final int MAX_USER_IDS = 500;
+
+    private final PresenceTracker presenceTracker;
+    private final UserService userService;
+    private final CommunityMemberRepository communityMemberRepository;
+
+    /**
+     * Which of the given members of a community are online right now; later changes arrive
+     * on /topic/community/{communityId}/presence. Only members of the community may ask,
+     * and ids of users outside it are never reported online.
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, List<UUID>>> getOnlineUsers(@RequestParam UUID communityId,
+                                                                  @RequestParam List<UUID> userIds,
+                                                                  Authentication authentication) {
+        if (authentication == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (userIds.size() > MAX_USER_IDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + MAX_USER_IDS + " user ids per request");
+        }
+        User user = userService.findCachedByUsername(authentication.getName())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        if (!communityMemberRepository.existsByCommunityIdAndUserIdAndActiveTrue(communityId, user.getId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        List<UUID> online = presenceTracker.filterOnline(userIds);
+        if (online.isEmpty()) {
+            return ResponseEntity.ok(Map.of("online", online));
+        }
+        return ResponseEntity.ok(Map.of("online",
+                communityMemberRepository.findActiveMemberIds(communityId, online)));
+    }
+}
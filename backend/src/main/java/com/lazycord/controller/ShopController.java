@@ -24,7 +24,7 @@ public class ShopController {
 
     @GetMapping("/items")
     public ResponseEntity<List<ShopItem>> getAvailableItems(Authentication authentication) {
-        User user = userService.findByUsername(authentication.getName())
+        User user = userService.findCachedByUsername(authentication.getName())
                 .orElseThrow(() -> new RuntimeException("User not found"));
         return ResponseEntity.ok(shopService.getAvailableItems(user));
     }
@@ -36,14 +36,14 @@ public class ShopController {
 
     @GetMapping("/inventory")
     public ResponseEntity<List<UserInventory>> getMyInventory(Authentication authentication) {
-        User user = userService.findByUsername(authentication.getName())
+        User user = userService.findCachedByUsername(authentication.getName())
                 .orElseThrow(() -> new RuntimeException("User not found"));
         return ResponseEntity.ok(shopService.getUserInventory(user));
     }
 
     @GetMapping("/inventory/equipped")
     public ResponseEntity<List<UserInventory>> getEquippedItems(Authentication authentication) {
-        User user = userService.findByUsername(authentication.getName())
+        User user = userService.findCachedByUsername(authentication.getName())
                 .orElseThrow(() -> new RuntimeException("User not found"));
         return ResponseEntity.ok(shopService.getUserEquippedItems(user));
     }
@@ -1,5 +1,6 @@
 package com.lazycord.dto;
 
+import com.lazycord.model.Message;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -18,7 +19,16 @@ public class ChatMessageDto {
     private String senderUsername;
     private String senderAvatarUrl;
     private UUID channelId;
+    private Long seq;
     private String attachmentUrl;
     private Boolean edited;
     private LocalDateTime createdAt;
+
+    // Constructor expression target of the history projections in MessageRepository
+    public ChatMessageDto(UUID id, String content, Message.MessageType type, UUID senderId, String senderUsername,
+                          String senderAvatarUrl, UUID channelId, Long seq, String attachmentUrl, Boolean edited,
+                          LocalDateTime createdAt) {
+        this(id, content, type.name(), senderId, senderUsername, senderAvatarUrl, channelId, seq, attachmentUrl,
+                edited, createdAt);
+    }
 }
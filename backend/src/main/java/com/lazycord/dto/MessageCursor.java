@@ -0,0 +1,40 @@
+package com.lazycord.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.UUID;
+
+/**
+ * Keyset position inside a channel's message history.
+ * Encoded as "{createdAt}_{id}", e.g. "2026-01-31T18:04:12.123456_6f1c...".
+ * The id breaks ties between messages written in the same instant.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageCursor {
+    private LocalDateTime createdAt;
+    private UUID id;
+
+    public static MessageCursor parse(String value) {
+        int separator = value != null ? value.lastIndexOf('_') : -1;
+        if (separator <= 0) {
+            throw new IllegalArgumentException("Invalid message cursor: " + value);
+        }
+        try {
+            return new MessageCursor(
+                    LocalDateTime.parse(value.substring(0, separator)),
+                    UUID.fromString(value.substring(separator + 1)));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid message cursor: " + value);
+        }
+    }
+
+    public String encode() {
+        return createdAt + "_" + id;
+    }
+}
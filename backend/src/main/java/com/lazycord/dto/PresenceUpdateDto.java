@@ -0,0 +1,19 @@
+package com.lazycord.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Users that came online or went offline since the previous update.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresenceUpdateDto {
+    private List<UUID> online;
+    private List<UUID> offline;
+}
@@ -0,0 +1,18 @@
+package com.lazycord.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Sent by a reconnecting client: the channel and the {@link MessageCursor} of the last message it saw.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumeRequest {
+    private UUID channelId;
+    private String cursor;
+}
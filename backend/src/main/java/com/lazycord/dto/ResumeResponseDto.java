@@ -0,0 +1,21 @@
+package com.lazycord.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Messages a client missed in one channel, oldest first. When {@code tooFarBehind} is
+ * set no messages are included and the client should reload the channel history instead.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumeResponseDto {
+    private UUID channelId;
+    private List<ChatMessageDto> messages;
+    private boolean tooFarBehind;
+}
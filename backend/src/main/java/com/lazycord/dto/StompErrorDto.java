@@ -0,0 +1,19 @@
+package com.lazycord.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Sent to {@code /user/queue/errors} when a client frame is rejected without closing the session.
+ * {@code receiptId} echoes the {@code receipt} header of the rejected frame, if it had one.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StompErrorDto {
+    private String error;
+    private String destination;
+    private String receiptId;
+    private long retryAfterMs;
+}
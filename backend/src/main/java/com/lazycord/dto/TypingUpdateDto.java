@@ -0,0 +1,27 @@
+package com.lazycord.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Everyone currently typing in a channel. An empty list means nobody is typing.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TypingUpdateDto {
+    private UUID channelId;
+    private List<Typer> typing;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Typer {
+        private UUID userId;
+        private String username;
+    }
+}
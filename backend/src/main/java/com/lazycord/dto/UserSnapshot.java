@@ -0,0 +1,50 @@
+package com.lazycord.dto;
+
+import com.lazycord.model.User;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Immutable copy of a user row, as held by the user snapshot cache.
+ */
+@Value
+public class UserSnapshot {
+    UUID id;
+    String keycloakId;
+    String username;
+    String email;
+    String firstName;
+    String lastName;
+    String avatarUrl;
+    int points;
+    int xp;
+    int level;
+    String rank;
+    LocalDateTime createdAt;
+    LocalDateTime lastActive;
+
+    public static UserSnapshot of(User user) {
+        return new UserSnapshot(user.getId(), user.getKeycloakId(), user.getUsername(), user.getEmail(),
+                user.getFirstName(), user.getLastName(), user.getAvatarUrl(), user.getPoints(), user.getXp(),
+                user.getLevel(), user.getRank(), user.getCreatedAt(), user.getLastActive());
+    }
+
+    /**
+     * Detached entity with the snapshot's values, usable as a query parameter, foreign key
+     * or response body. It may be stale, so it must never be modified and saved.
+     */
+    public User toUser() {
+        User user = new User(keycloakId, username, email, firstName, lastName);
+        user.setId(id);
+        user.setAvatarUrl(avatarUrl);
+        user.setPoints(points);
+        user.setXp(xp);
+        user.setLevel(level);
+        user.setRank(rank);
+        user.setCreatedAt(createdAt);
+        user.setLastActive(lastActive);
+        return user;
+    }
+}
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -41,6 +42,11 @@ public class Channel {
     @JoinColumn(name = "created_by")
     private User createdBy;
 
+    // Maintained only by MessageSequenceService; never written through the entity
+    @ColumnDefault("0")
+    @Column(name = "last_message_seq", nullable = false, insertable = false, updatable = false)
+    private long lastMessageSeq;
+
     @OneToMany(mappedBy = "channel", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<ChannelMember> members = new HashSet<>();
 
@@ -17,7 +17,7 @@ import java.util.UUID;
 public class FileAttachment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
     @Column(nullable = false)
@@ -20,7 +20,7 @@ import java.util.UUID;
 public class Message {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
     @Column(nullable = false, length = 2000)
@@ -38,6 +38,10 @@ public class Message {
     @JoinColumn(name = "channel_id", nullable = false)
     private Channel channel;
 
+    // Per-channel, gap-free under normal operation; assigned by MessageSequenceService
+    @Column(updatable = false)
+    private Long seq;
+
     @Column
     private String attachmentUrl;
 
@@ -0,0 +1,44 @@
+package com.lazycord.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One channel's messages of one archived month, stored as a gzip NDJSON file of ChatMessageDto.
+ */
+@Entity
+@Table(name = "message_archive_segments")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageArchiveSegment {
+
+    @Id
+    @UuidV7
+    private UUID id;
+
+    @Column(name = "channel_id", nullable = false)
+    private UUID channelId;
+
+    @Column(name = "community_id", nullable = false)
+    private UUID communityId;
+
+    @Column(nullable = false)
+    private LocalDate monthStart;
+
+    @Column(nullable = false, length = 1000)
+    private String filePath;
+
+    @Column(nullable = false)
+    private long rowCount;
+
+    @CreationTimestamp
+    private LocalDateTime archivedAt;
+}
@@ -0,0 +1,70 @@
+package com.lazycord.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "message_imports")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageImport {
+
+    @Id
+    @UuidV7
+    private UUID id;
+
+    @Column(name = "community_id", nullable = false)
+    private UUID communityId;
+
+    @Column(name = "requested_by", nullable = false)
+    private UUID requestedBy;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Format format;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status = Status.RUNNING;
+
+    // Archive records committed so far, valid or skipped; a resumed import skips this many
+    @Column(nullable = false)
+    private long recordsProcessed;
+
+    @Column(nullable = false)
+    private long rowsImported;
+
+    @Column(nullable = false)
+    private long rowsSkipped;
+
+    @Column(columnDefinition = "TEXT")
+    private String error;
+
+    // Refreshed by the run that owns the job; a RUNNING job whose heartbeat went stale may be taken over
+    private LocalDateTime heartbeatAt;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+
+    public enum Format {
+        NDJSON,
+        CSV
+    }
+
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -45,20 +45,20 @@ public class User {
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
-    @Column(name = "last_active")
+    // Written only by UserActivityTracker; entity saves must not overwrite a newer value
+    @Column(name = "last_active", updatable = false)
     private LocalDateTime lastActive;
 
+    // Issue time of the token whose claims were last applied; only the conditional identity update writes it
+    @Column(name = "claims_synced_at", updatable = false)
+    private LocalDateTime claimsSyncedAt;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
         lastActive = LocalDateTime.now();
     }
 
-    @PreUpdate
-    protected void onUpdate() {
-        lastActive = LocalDateTime.now();
-    }
-
     public User() {}
 
     public User(String keycloakId, String username, String email, String firstName, String lastName) {
@@ -173,6 +173,14 @@ public class User {
         this.lastActive = lastActive;
     }
 
+    public LocalDateTime getClaimsSyncedAt() {
+        return claimsSyncedAt;
+    }
+
+    public void setClaimsSyncedAt(LocalDateTime claimsSyncedAt) {
+        this.claimsSyncedAt = claimsSyncedAt;
+    }
+
     public void addXp(int amount) {
         this.xp += amount;
         checkLevelUp();
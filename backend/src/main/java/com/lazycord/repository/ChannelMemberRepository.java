@@ -3,11 +3,16 @@ package com.lazycord.repository;
 import com.lazycord.model.Channel;
 import com.lazycord.model.ChannelMember;
 import com.lazycord.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 @Repository
 public interface ChannelMemberRepository extends JpaRepository<ChannelMember, Long> {
@@ -21,4 +26,11 @@ public interface ChannelMemberRepository extends JpaRepository<ChannelMember, Lo
     boolean existsByChannelAndUser(Channel channel, User user);
 
     void deleteByChannelAndUser(Channel channel, User user);
+
+    // @channel recipients of private channels: ids only, in join order, capped by the caller
+    @Query("SELECT m.user.id FROM ChannelMember m WHERE m.channel.id = :channelId ORDER BY m.id")
+    List<UUID> findMemberIds(@Param("channelId") UUID channelId, Limit limit);
+
+    @Query("SELECT m.user.id FROM ChannelMember m WHERE m.channel.id = :channelId AND m.user.id IN :userIds")
+    List<UUID> findMemberIds(@Param("channelId") UUID channelId, @Param("userIds") Collection<UUID> userIds);
 }
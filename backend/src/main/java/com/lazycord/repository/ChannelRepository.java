@@ -5,10 +5,12 @@ import com.lazycord.model.Channel.ChannelType;
 import com.lazycord.model.Community;
 import com.lazycord.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -36,4 +38,15 @@ public interface ChannelRepository extends JpaRepository<Channel, UUID> {
 
     @Query("SELECT c FROM Channel c JOIN c.members cm WHERE cm.user = :user AND c.community = :community")
     List<Channel> findByMemberAndCommunity(@Param("user") User user, @Param("community") Community community);
+
+    // History import: resolves all channel names of a chunk in one query
+    List<Channel> findByCommunityIdAndNameIn(UUID communityId, Collection<String> names);
+
+    // Per-channel message sequence. The UPDATE row lock serializes writers of one channel only.
+    @Modifying
+    @Query("UPDATE Channel c SET c.lastMessageSeq = c.lastMessageSeq + :count WHERE c.id = :id")
+    int incrementLastMessageSeq(@Param("id") UUID id, @Param("count") long count);
+
+    @Query("SELECT c.lastMessageSeq FROM Channel c WHERE c.id = :id")
+    Optional<Long> findLastMessageSeq(@Param("id") UUID id);
 }
@@ -3,11 +3,16 @@ package com.lazycord.repository;
 import com.lazycord.model.Community;
 import com.lazycord.model.CommunityMember;
 import com.lazycord.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 @Repository
 public interface CommunityMemberRepository extends JpaRepository<CommunityMember, Long> {
@@ -21,4 +26,27 @@ public interface CommunityMemberRepository extends JpaRepository<CommunityMember
     boolean existsByUserAndCommunityAndActiveTrue(User user, Community community);
 
     long countByCommunityAndActiveTrue(Community community);
+
+    boolean existsByCommunityIdAndUserIdAndActiveTrue(UUID communityId, UUID userId);
+
+    // Presence fan-out: which communities each of the changed users belongs to
+    @Query("SELECT cm.community.id AS communityId, cm.user.id AS userId FROM CommunityMember cm " +
+           "WHERE cm.user.id IN :userIds AND cm.active = true")
+    List<Membership> findActiveMemberships(@Param("userIds") Collection<UUID> userIds);
+
+    // @channel recipients: ids only, in join order, capped by the caller
+    @Query("SELECT cm.user.id FROM CommunityMember cm WHERE cm.community.id = :communityId " +
+           "AND cm.active = true ORDER BY cm.id")
+    List<UUID> findActiveMemberIds(@Param("communityId") UUID communityId, Limit limit);
+
+    @Query("SELECT cm.user.id FROM CommunityMember cm WHERE cm.community.id = :communityId " +
+           "AND cm.user.id IN :userIds AND cm.active = true")
+    List<UUID> findActiveMemberIds(@Param("communityId") UUID communityId,
+                                   @Param("userIds") Collection<UUID> userIds);
+
+    interface Membership {
+        UUID getCommunityId();
+
+        UUID getUserId();
+    }
 }
@@ -0,0 +1,19 @@
+package com.lazycord.repository;
+
+import com.lazycord.model.MessageArchiveSegment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface MessageArchiveSegmentRepository extends JpaRepository<MessageArchiveSegment, UUID> {
+
+    // Served by idx_message_archive_segments_channel (V14)
+    List<MessageArchiveSegment> findByChannelIdAndCommunityIdAndMonthStartLessThanEqualOrderByMonthStartDesc(
+            UUID channelId, UUID communityId, LocalDate monthStart);
+
+    List<MessageArchiveSegment> findByChannelIdAndCommunityIdOrderByMonthStartAsc(UUID channelId, UUID communityId);
+}
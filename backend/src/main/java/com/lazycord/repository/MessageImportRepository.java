@@ -0,0 +1,29 @@
+package com.lazycord.repository;
+
+import com.lazycord.model.MessageImport;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface MessageImportRepository extends JpaRepository<MessageImport, UUID> {
+
+    List<MessageImport> findByCommunityIdOrderByCreatedAtDesc(UUID communityId);
+
+    /**
+     * Marks the job as running for the caller unless it is completed or another run holds it
+     * with a heartbeat newer than {@code staleBefore}. Returns 1 if the job was claimed.
+     */
+    @Modifying
+    @Query("UPDATE MessageImport j SET j.status = :running, j.heartbeatAt = :now, j.error = NULL " +
+           "WHERE j.id = :id AND j.status <> :completed " +
+           "AND (j.status <> :running OR j.heartbeatAt IS NULL OR j.heartbeatAt < :staleBefore)")
+    int claim(@Param("id") UUID id, @Param("now") LocalDateTime now, @Param("staleBefore") LocalDateTime staleBefore,
+              @Param("running") MessageImport.Status running, @Param("completed") MessageImport.Status completed);
+}
@@ -1,16 +1,27 @@
 package com.lazycord.repository;
 
+import com.lazycord.dto.ChatMessageDto;
 import com.lazycord.model.Channel;
 import com.lazycord.model.Community;
 import com.lazycord.model.Message;
 import com.lazycord.model.User;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface MessageRepository extends JpaRepository<Message, UUID> {
@@ -23,6 +34,82 @@ public interface MessageRepository extends JpaRepository<Message, UUID> {
 
     List<Message> findTop50ByChannelAndCommunityOrderByCreatedAtDesc(Channel channel, Community community);
 
+    // History pages are read as ChatMessageDto rows with the sender joined, so building
+    // the response never touches a lazy association (one SELECT per page, no N+1).
+    String HISTORY_SELECT = "SELECT new com.lazycord.dto.ChatMessageDto(m.id, m.content, m.type, s.id, " +
+            "s.username, s.avatarUrl, m.channel.id, m.seq, m.attachmentUrl, m.edited, m.createdAt) " +
+            "FROM Message m JOIN m.sender s ";
+
+    // Keyset pagination, served by idx_messages_channel_community_created (V10).
+    // The redundant createdAt bound keeps the (createdAt, id) comparison sargable.
+    @Query(HISTORY_SELECT + "WHERE m.channel = :channel AND m.community = :community " +
+           "ORDER BY m.createdAt DESC, m.id DESC")
+    List<ChatMessageDto> findLatestDtos(@Param("channel") Channel channel, @Param("community") Community community,
+                                        Limit limit);
+
+    // Lower-bounded by the start of the current month so the newest page only touches the hot partition (V14)
+    @Query(HISTORY_SELECT + "WHERE m.channel = :channel AND m.community = :community " +
+           "AND m.createdAt >= :since ORDER BY m.createdAt DESC, m.id DESC")
+    List<ChatMessageDto> findLatestDtosSince(@Param("channel") Channel channel, @Param("community") Community community,
+                                             @Param("since") LocalDateTime since, Limit limit);
+
+    @Query(HISTORY_SELECT + "WHERE m.channel = :channel AND m.community = :community " +
+           "AND m.createdAt <= :createdAt " +
+           "AND (m.createdAt < :createdAt OR (m.createdAt = :createdAt AND m.id < :id)) " +
+           "ORDER BY m.createdAt DESC, m.id DESC")
+    List<ChatMessageDto> findBeforeDtos(@Param("channel") Channel channel, @Param("community") Community community,
+                                        @Param("createdAt") LocalDateTime createdAt, @Param("id") UUID id,
+                                        Limit limit);
+
+    @Query(HISTORY_SELECT + "WHERE m.channel = :channel AND m.community = :community " +
+           "AND m.createdAt >= :createdAt " +
+           "AND (m.createdAt > :createdAt OR (m.createdAt = :createdAt AND m.id > :id)) " +
+           "ORDER BY m.createdAt ASC, m.id ASC")
+    List<ChatMessageDto> findAfterDtos(@Param("channel") Channel channel, @Param("community") Community community,
+                                       @Param("createdAt") LocalDateTime createdAt, @Param("id") UUID id,
+                                       Limit limit);
+
+    // Sequence range reads, served by idx_messages_channel_seq (V11)
+    @Query(HISTORY_SELECT + "WHERE m.channel = :channel AND m.community = :community " +
+           "AND m.seq > :seq ORDER BY m.seq ASC")
+    List<ChatMessageDto> findAfterSeqDtos(@Param("channel") Channel channel, @Param("community") Community community,
+                                          @Param("seq") long seq, Limit limit);
+
+    // Full-history export: a forward-only cursor read in fetch-size chunks. Must be consumed
+    // inside a transaction, otherwise the PostgreSQL driver buffers the whole result.
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query(HISTORY_SELECT + "WHERE m.channel = :channel AND m.community = :community " +
+           "ORDER BY m.createdAt ASC, m.id ASC")
+    Stream<ChatMessageDto> streamForExport(@Param("channel") Channel channel, @Param("community") Community community);
+
+    // Full-text search, served by idx_messages_search (V13). Newest first with the same
+    // (createdAt, id) keyset as history; only channels the user can read are matched, i.e.
+    // public or joined and without an active ban, as in ChannelService.canRead.
+    String SEARCH_SELECT = "SELECT m.id AS id, m.content AS content, m.type AS type, u.id AS senderId, " +
+            "u.username AS senderUsername, u.avatar_url AS senderAvatarUrl, m.channel_id AS channelId, " +
+            "m.seq AS seq, m.attachment_url AS attachmentUrl, m.edited AS edited, m.created_at AS createdAt " +
+            "FROM messages m JOIN users u ON u.id = m.sender_id JOIN channels c ON c.id = m.channel_id " +
+            "WHERE m.community_id = :communityId " +
+            "AND m.search_vector @@ websearch_to_tsquery('simple', :query) " +
+            "AND (c.type = 'PUBLIC' OR EXISTS (SELECT 1 FROM channel_members cm " +
+            "WHERE cm.channel_id = c.id AND cm.user_id = :userId)) " +
+            "AND NOT EXISTS (SELECT 1 FROM channel_bans cb WHERE cb.channel_id = c.id AND cb.user_id = :userId " +
+            "AND cb.active = true AND (cb.expires_at IS NULL OR cb.expires_at > CURRENT_TIMESTAMP)) " +
+            "AND m.created_at <= :createdAt AND (m.created_at, m.id) < (:createdAt, :id) ";
+
+    @Query(value = SEARCH_SELECT + "ORDER BY m.created_at DESC, m.id DESC LIMIT :limit", nativeQuery = true)
+    List<MessageSearchRow> searchInCommunity(@Param("communityId") UUID communityId, @Param("userId") UUID userId,
+                                             @Param("query") String query,
+                                             @Param("createdAt") LocalDateTime createdAt, @Param("id") UUID id,
+                                             @Param("limit") int limit);
+
+    @Query(value = SEARCH_SELECT + "AND m.channel_id = :channelId ORDER BY m.created_at DESC, m.id DESC LIMIT :limit",
+           nativeQuery = true)
+    List<MessageSearchRow> searchInChannel(@Param("communityId") UUID communityId, @Param("channelId") UUID channelId,
+                                           @Param("userId") UUID userId, @Param("query") String query,
+                                           @Param("createdAt") LocalDateTime createdAt, @Param("id") UUID id,
+                                           @Param("limit") int limit);
+
     // Legacy methods without community (for backwards compatibility)
     List<Message> findByChannelOrderByCreatedAtAsc(Channel channel);
     Page<Message> findByChannelOrderByCreatedAtDesc(Channel channel, Pageable pageable);
@@ -0,0 +1,28 @@
+package com.lazycord.repository;
+
+import com.lazycord.dto.ChatMessageDto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Row of the native full-text search queries in {@link MessageRepository}.
+ */
+public interface MessageSearchRow {
+    UUID getId();
+    String getContent();
+    String getType();
+    UUID getSenderId();
+    String getSenderUsername();
+    String getSenderAvatarUrl();
+    UUID getChannelId();
+    Long getSeq();
+    String getAttachmentUrl();
+    Boolean getEdited();
+    LocalDateTime getCreatedAt();
+
+    default ChatMessageDto toDto() {
+        return new ChatMessageDto(getId(), getContent(), getType(), getSenderId(), getSenderUsername(),
+                getSenderAvatarUrl(), getChannelId(), getSeq(), getAttachmentUrl(), getEdited(), getCreatedAt());
+    }
+}
@@ -11,6 +11,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -23,6 +24,11 @@ public interface NotificationRepository extends JpaRepository<Notification, UUID
 
     long countByUserAndReadFalse(User user);
 
+    // Rows of (userId, unread count); users without unread notifications are absent
+    @Query("SELECT n.user.id, COUNT(n) FROM Notification n WHERE n.user.id IN :userIds AND n.read = false " +
+           "GROUP BY n.user.id")
+    List<Object[]> countUnreadByUserIds(@Param("userIds") Collection<UUID> userIds);
+
     @Query("SELECT n FROM Notification n WHERE n.user = :user AND n.read = false AND n.createdAt > :since")
     List<Notification> findUnreadSince(@Param("user") User user, @Param("since") LocalDateTime since);
 
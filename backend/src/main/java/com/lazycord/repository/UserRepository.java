@@ -2,8 +2,14 @@ package com.lazycord.repository;
 
 import com.lazycord.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -12,6 +18,20 @@ public interface UserRepository extends JpaRepository<User, UUID> {
 
     Optional<User> findByKeycloakId(String keycloakId);
 
+    /**
+     * Writes only the identity columns, leaving points, XP and the rest untouched. Null
+     * email and names keep the current value. Skipped (returns 0) if claims at least as
+     * new as {@code syncedAt} were already applied.
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.username = :username, u.email = COALESCE(:email, u.email), " +
+           "u.firstName = COALESCE(:firstName, u.firstName), u.lastName = COALESCE(:lastName, u.lastName), " +
+           "u.claimsSyncedAt = :syncedAt " +
+           "WHERE u.id = :id AND (u.claimsSyncedAt IS NULL OR u.claimsSyncedAt < :syncedAt)")
+    int updateIdentity(@Param("id") UUID id, @Param("username") String username, @Param("email") String email,
+                       @Param("firstName") String firstName, @Param("lastName") String lastName,
+                       @Param("syncedAt") LocalDateTime syncedAt);
+
     Optional<User> findByUsername(String username);
 
     Optional<User> findByEmail(String email);
@@ -19,4 +39,18 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     boolean existsByUsername(String username);
 
     boolean existsByEmail(String email);
+
+    // Mention recipients, resolved in one query per message whatever the number of mentions
+    List<User> findByUsernameIn(Collection<String> usernames);
+
+    @Query("SELECT u FROM User u WHERE u.username IN :usernames AND EXISTS " +
+           "(SELECT 1 FROM CommunityMember cm WHERE cm.user = u AND cm.community.id = :communityId " +
+           "AND cm.active = true)")
+    List<User> findCommunityMembersByUsernameIn(@Param("communityId") UUID communityId,
+                                                @Param("usernames") Collection<String> usernames);
+
+    @Query("SELECT u FROM User u WHERE u.username IN :usernames AND EXISTS " +
+           "(SELECT 1 FROM ChannelMember m WHERE m.user = u AND m.channel.id = :channelId)")
+    List<User> findChannelMembersByUsernameIn(@Param("channelId") UUID channelId,
+                                              @Param("usernames") Collection<String> usernames);
 }
@@ -2,6 +2,7 @@ package com.lazycord.security;
 
 import com.lazycord.model.User;
 import com.lazycord.service.UserService;
+import com.lazycord.websocket.StompSessionUser;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,6 +10,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -22,7 +24,6 @@ import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 public class JwtAuthFilter extends OncePerRequestFilter {
 
@@ -30,10 +31,12 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtDecoder jwtDecoder;
     private final UserService userService;
+    private final JwtAuthenticationCache authenticationCache;
 
-    public JwtAuthFilter(JwtDecoder jwtDecoder, UserService userService) {
+    public JwtAuthFilter(JwtDecoder jwtDecoder, UserService userService, JwtAuthenticationCache authenticationCache) {
         this.jwtDecoder = jwtDecoder;
         this.userService = userService;
+        this.authenticationCache = authenticationCache;
     }
 
     @Override
@@ -44,66 +47,80 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         String token = extractToken(request);
         
         if (token != null) {
-            try {
-                Jwt jwt = jwtDecoder.decode(token);
-                
-                // Extract user information from token
-                String keycloakId = jwt.getSubject();
-                String username = jwt.getClaimAsString("preferred_username");
-                String email = jwt.getClaimAsString("email");
-                
-                // Extract roles from realm_access
-                @SuppressWarnings("unchecked")
-                Map<String, List<String>> realmAccess = jwt.getClaim("realm_access");
-                List<String> roles = realmAccess != null ? realmAccess.get("roles") : List.of();
-                
-                List<SimpleGrantedAuthority> authorities = roles.stream()
-                        .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
-                        .collect(Collectors.toList());
-                
-                // Sync user with local database
-                Optional<User> userOpt = userService.findByKeycloakId(keycloakId);
-                if (userOpt.isPresent()) {
-                    User user = userOpt.get();
-                    userService.updateLastActive(user);
+            JwtAuthenticationCache.Entry cached = authenticationCache.get(token);
+            if (cached != null) {
+                userService.updateLastActiveById(cached.user().getId());
+                authenticate(cached);
+            } else {
+                try {
+                    Jwt jwt = jwtDecoder.decode(token);
                     
-                    // Create authentication with user details
-                    UserDetails userDetails = org.springframework.security.core.userdetails.User.builder()
-                            .username(user.getUsername())
-                            .password("")
-                            .authorities(authorities)
-                            .build();
+                    // Extract user information from token
+                    String keycloakId = jwt.getSubject();
+                    String username = jwt.getClaimAsString("preferred_username");
                     
-                    UsernamePasswordAuthenticationToken authentication = 
-                            new UsernamePasswordAuthenticationToken(userDetails, null, authorities);
-                    authentication.setDetails(user);
-                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                    // Extract roles from realm_access
+                    @SuppressWarnings("unchecked")
+                    Map<String, List<String>> realmAccess = jwt.getClaim("realm_access");
+                    List<String> roles = realmAccess != null ? realmAccess.get("roles") : List.of();
                     
-                    logger.debug("Authenticated user: {} with roles: {}", username, roles);
-                } else {
-                    // User not in local DB yet, create minimal authentication
-                    UserDetails userDetails = org.springframework.security.core.userdetails.User.builder()
-                            .username(username != null ? username : keycloakId)
-                            .password("")
-                            .authorities(authorities)
-                            .build();
+                    List<GrantedAuthority> authorities = roles.stream()
+                            .map(role -> (GrantedAuthority) new SimpleGrantedAuthority("ROLE_" + role))
+                            .toList();
                     
-                    UsernamePasswordAuthenticationToken authentication = 
-                            new UsernamePasswordAuthenticationToken(userDetails, null, authorities);
-                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                    // Sync user with local database
+                    Optional<User> userOpt = userService.findCachedByKeycloakId(keycloakId);
+                    if (userOpt.isPresent()) {
+                        User user = userOpt.get();
+                        userService.updateLastActive(user);
+                        
+                        // Create authentication with user details
+                        UserDetails userDetails = org.springframework.security.core.userdetails.User.builder()
+                                .username(user.getUsername())
+                                .password("")
+                                .authorities(authorities)
+                                .build();
+                        
+                        JwtAuthenticationCache.Entry entry = new JwtAuthenticationCache.Entry(
+                                userDetails, authorities, StompSessionUser.of(user), jwt.getExpiresAt());
+                        // Later requests with this token skip verification and the lookup until it expires
+                        authenticationCache.put(token, entry);
+                        authenticate(entry);
+                        
+                        logger.debug("Authenticated user: {} with roles: {}", username, roles);
+                    } else {
+                        // User not in local DB yet, create minimal authentication; not cached so the
+                        // local profile is picked up as soon as it exists
+                        UserDetails userDetails = org.springframework.security.core.userdetails.User.builder()
+                                .username(username != null ? username : keycloakId)
+                                .password("")
+                                .authorities(authorities)
+                                .build();
+                        
+                        UsernamePasswordAuthenticationToken authentication = 
+                                new UsernamePasswordAuthenticationToken(userDetails, null, authorities);
+                        SecurityContextHolder.getContext().setAuthentication(authentication);
+                        
+                        logger.debug("Authenticated user without local profile: {}", username);
+                    }
                     
-                    logger.debug("Authenticated user without local profile: {}", username);
+                } catch (Exception e) {
+                    logger.warn("Failed to validate JWT token: {}", e.getMessage());
+                    SecurityContextHolder.clearContext();
                 }
-                
-            } catch (Exception e) {
-                logger.warn("Failed to validate JWT token: {}", e.getMessage());
-                SecurityContextHolder.clearContext();
             }
         }
         
         filterChain.doFilter(request, response);
     }
 
+    private void authenticate(JwtAuthenticationCache.Entry entry) {
+        UsernamePasswordAuthenticationToken authentication =
+                new UsernamePasswordAuthenticationToken(entry.principal(), null, entry.authorities());
+        authentication.setDetails(entry.user());
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+
     private String extractToken(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (bearerToken != null && bearerToken.startsWith("Bearer ")) {
@@ -0,0 +1,134 @@
+package com.lazycord.security;
+
+import com.lazycord.websocket.StompSessionUser;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Node-local cache of validated bearer tokens.
+ *
+ * Entries are keyed by the SHA-256 of the token, so raw tokens are never held, and live
+ * until the token's {@code exp}. A hit lets {@link JwtAuthFilter} skip signature
+ * verification, claim parsing and the user lookup. Once {@code max-entries} is exceeded,
+ * expired entries are dropped first, then those expiring soonest.
+ */
+@Component
+public class JwtAuthenticationCache {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final int maxEntries;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public JwtAuthenticationCache(
+            MeterRegistry meterRegistry,
+            @Value("${app.security.jwt-cache.max-entries:10000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.hits = Counter.builder("security.jwt_cache.requests").tag("result", "hit")
+                .description("Bearer tokens authenticated from the cache").register(meterRegistry);
+        this.misses = Counter.builder("security.jwt_cache.requests").tag("result", "miss")
+                .description("Bearer tokens that had to be decoded and verified").register(meterRegistry);
+        this.evictions = Counter.builder("security.jwt_cache.evictions")
+                .description("Tokens evicted to stay under the entry cap").register(meterRegistry);
+        Gauge.builder("security.jwt_cache.entries", entries, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached authentication of the token, or {@code null} if it is unknown
+     * or has expired.
+     */
+    public Entry get(String token) {
+        String key = hash(token);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            if (entry.expiresAt().isAfter(Instant.now())) {
+                hits.increment();
+                return entry;
+            }
+            entries.remove(key, entry);
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Caches a freshly validated token until it expires.
+     */
+    public void put(String token, Entry entry) {
+        if (entry.expiresAt() == null || !entry.expiresAt().isAfter(Instant.now())) {
+            return;
+        }
+        entries.put(hash(token), entry);
+        evictIfNeeded();
+    }
+
+    /**
+     * Drops every token of a user, e.g. after the profile changed or was deleted.
+     */
+    public void evictUser(UUID userId) {
+        entries.values().removeIf(entry -> entry.user().getId().equals(userId));
+    }
+
+    private void evictIfNeeded() {
+        if (entries.size() <= maxEntries || !evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            Instant now = Instant.now();
+            entries.values().removeIf(entry -> !entry.expiresAt().isAfter(now));
+
+            int excess = entries.size() - (maxEntries - maxEntries / 10);
+            if (excess <= 0) {
+                return;
+            }
+            List<Map.Entry<String, Entry>> candidates = new ArrayList<>(entries.entrySet());
+            candidates.sort(Comparator.comparing(e -> e.getValue().expiresAt()));
+            for (int i = 0; i < excess && i < candidates.size(); i++) {
+                Map.Entry<String, Entry> candidate = candidates.get(i);
+                if (entries.remove(candidate.getKey(), candidate.getValue())) {
+                    evictions.increment();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * What the filter needs to rebuild the authentication of a token.
+     */
+    public record Entry(UserDetails principal, List<GrantedAuthority> authorities, StompSessionUser user,
+                        Instant expiresAt) {
+    }
+}
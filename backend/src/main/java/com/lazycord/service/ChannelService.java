@@ -4,13 +4,17 @@ import com.lazycord.model.Channel;
 import com.lazycord.model.ChannelMember;
 import com.lazycord.model.Community;
 import com.lazycord.model.User;
+import com.lazycord.repository.ChannelBanRepository;
 import com.lazycord.repository.ChannelMemberRepository;
+import com.lazycord.repository.ChannelMuteRepository;
 import com.lazycord.repository.ChannelRepository;
+import com.lazycord.websocket.StompSessionRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -22,6 +26,9 @@ public class ChannelService {
 
     private final ChannelRepository channelRepository;
     private final ChannelMemberRepository channelMemberRepository;
+    private final ChannelBanRepository channelBanRepository;
+    private final ChannelMuteRepository channelMuteRepository;
+    private final StompSessionRegistry stompSessionRegistry;
 
     @Transactional
     public Channel createChannel(String name, String description, Channel.ChannelType type, 
@@ -60,6 +67,26 @@ public class ChannelService {
         return channelRepository.findByMemberAndCommunity(user, community);
     }
 
+    /**
+     * Whether the user may read the channel: not banned, and either a member or the channel is public.
+     */
+    @Transactional(readOnly = true)
+    public boolean canRead(Channel channel, User user) {
+        if (channelBanRepository.isUserBanned(user, channel, LocalDateTime.now())) {
+            return false;
+        }
+        return channel.getType() == Channel.ChannelType.PUBLIC
+                || channelMemberRepository.existsByChannelAndUser(channel, user);
+    }
+
+    /**
+     * Whether the user may post in the channel: readable and not muted.
+     */
+    @Transactional(readOnly = true)
+    public boolean canPost(Channel channel, User user) {
+        return canRead(channel, user) && !channelMuteRepository.isUserMuted(user, channel, LocalDateTime.now());
+    }
+
     @Transactional
     public void joinChannel(Channel channel, User user) {
         if (channelMemberRepository.existsByChannelAndUser(channel, user)) {
@@ -90,6 +117,7 @@ public class ChannelService {
         }
 
         channelMemberRepository.delete(member);
+        stompSessionRegistry.revokeChannel(user.getId(), channel.getId());
     }
 
     @Transactional
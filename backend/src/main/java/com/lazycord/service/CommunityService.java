@@ -5,6 +5,7 @@ import com.lazycord.model.CommunityMember;
 import com.lazycord.model.User;
 import com.lazycord.repository.CommunityMemberRepository;
 import com.lazycord.repository.CommunityRepository;
+import com.lazycord.websocket.StompSessionRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -26,10 +27,13 @@ public class CommunityService {
 
     private final CommunityRepository communityRepository;
     private final CommunityMemberRepository communityMemberRepository;
+    private final StompSessionRegistry stompSessionRegistry;
 
-    public CommunityService(CommunityRepository communityRepository, CommunityMemberRepository communityMemberRepository) {
+    public CommunityService(CommunityRepository communityRepository, CommunityMemberRepository communityMemberRepository,
+                            StompSessionRegistry stompSessionRegistry) {
         this.communityRepository = communityRepository;
         this.communityMemberRepository = communityMemberRepository;
+        this.stompSessionRegistry = stompSessionRegistry;
     }
 
     @Transactional
@@ -124,6 +128,7 @@ public class CommunityService {
 
         member.setActive(false);
         communityMemberRepository.save(member);
+        stompSessionRegistry.revokeCommunity(user.getId(), community.getId());
 
         log.info("User {} left community {}", user.getUsername(), community.getName());
     }
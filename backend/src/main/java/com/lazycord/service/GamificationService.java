@@ -17,6 +17,7 @@ public class GamificationService {
 
     private final UserRepository userRepository;
     private final RankRepository rankRepository;
+    private final UserSnapshotCache userSnapshotCache;
 
     private static final int[] XP_LEVELS = {
             0,       // Level 1
@@ -56,6 +57,7 @@ public class GamificationService {
             }
         }
 
+        userSnapshotCache.invalidate(user.getId());
         return userRepository.save(user);
     }
 
@@ -70,12 +72,14 @@ public class GamificationService {
             log.info("User {} leveled up to level {}", user.getUsername(), newLevel);
         }
 
+        userSnapshotCache.invalidate(user.getId());
         return userRepository.save(user);
     }
 
     @Transactional
     public User addPoints(User user, int points) {
         user.setPoints(user.getPoints() + points);
+        userSnapshotCache.invalidate(user.getId());
         return userRepository.save(user);
     }
 
@@ -85,6 +89,7 @@ public class GamificationService {
             throw new RuntimeException("Insufficient points");
         }
         user.setPoints(user.getPoints() - points);
+        userSnapshotCache.invalidate(user.getId());
         return userRepository.save(user);
     }
 
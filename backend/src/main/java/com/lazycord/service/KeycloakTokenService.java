@@ -7,9 +7,15 @@ import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 @Slf4j
@@ -35,23 +41,95 @@ public class KeycloakTokenService {
     @Value("${keycloak.admin-password:admin}")
     private String adminPassword;
 
-    private String serviceAccountToken;
-    private Instant tokenExpiry;
+    @Value("${app.keycloak.service-token.request-timeout-ms:5000}")
+    private long requestTimeoutMs;
+
+    @Value("${app.keycloak.service-token.breaker-failure-threshold:3}")
+    private int breakerFailureThreshold;
+
+    @Value("${app.keycloak.service-token.breaker-open-ms:30000}")
+    private long breakerOpenMs;
+
+    private final AtomicReference<CompletableFuture<ServiceToken>> refreshInFlight = new AtomicReference<>();
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile ServiceToken serviceToken;
+    private volatile long breakerOpenUntil;
 
     public KeycloakTokenService(WebClient.Builder webClientBuilder) {
         this.webClient = webClientBuilder.build();
     }
 
     /**
-     * Gets a valid service account token for Keycloak Admin API calls.
-     * Caches the token and refreshes it when needed.
+     * Gets a valid service account token for Keycloak Admin API calls, or {@code null}
+     * if none can be obtained.
+     *
+     * The token is cached and refreshed in the background once two thirds of its
+     * lifetime have passed, while callers keep using the current one. Only one token
+     * request is in flight at a time; callers without a usable token wait for it. After
+     * {@code breaker-failure-threshold} failed requests in a row, calls fail fast for
+     * {@code breaker-open-ms} before a single request probes Keycloak again.
      */
     public String getServiceAccountToken() {
-        // Check if we have a valid cached token
-        if (serviceAccountToken != null && tokenExpiry != null && Instant.now().isBefore(tokenExpiry.minusSeconds(60))) {
-            return serviceAccountToken;
+        ServiceToken token = serviceToken;
+        Instant now = Instant.now();
+        if (token != null && now.isBefore(token.expiresAt())) {
+            if (!now.isBefore(token.refreshAt())) {
+                refresh();
+            }
+            return token.value();
         }
 
+        try {
+            return refresh().join().value();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            log.error("Failed to obtain service account token: {}", cause.getMessage());
+            return null;
+        }
+    }
+
+    // Single flight: returns the running refresh, or starts one unless the breaker is open
+    private CompletableFuture<ServiceToken> refresh() {
+        while (true) {
+            CompletableFuture<ServiceToken> running = refreshInFlight.get();
+            if (running != null) {
+                return running;
+            }
+            if (System.currentTimeMillis() < breakerOpenUntil) {
+                return CompletableFuture.failedFuture(
+                    new IllegalStateException("Keycloak token endpoint unavailable, circuit open"));
+            }
+
+            CompletableFuture<ServiceToken> own = new CompletableFuture<>();
+            if (refreshInFlight.compareAndSet(null, own)) {
+                CompletableFuture<ServiceToken> request;
+                try {
+                    request = requestServiceToken();
+                } catch (RuntimeException e) {
+                    request = CompletableFuture.failedFuture(e);
+                }
+                request.whenComplete((token, error) -> {
+                    if (error == null) {
+                        serviceToken = token;
+                        consecutiveFailures.set(0);
+                    } else if (consecutiveFailures.incrementAndGet() >= breakerFailureThreshold) {
+                        breakerOpenUntil = System.currentTimeMillis() + breakerOpenMs;
+                        log.warn("Keycloak token endpoint failed {} times in a row, failing fast for {} ms",
+                            consecutiveFailures.get(), breakerOpenMs);
+                    }
+                    refreshInFlight.compareAndSet(own, null);
+                    if (error == null) {
+                        own.complete(token);
+                    } else {
+                        own.completeExceptionally(error);
+                    }
+                });
+                return own;
+            }
+        }
+    }
+
+    private CompletableFuture<ServiceToken> requestServiceToken() {
         // Request new token using client credentials
         String tokenUrl = baseUrl + "/realms/master/protocol/openid-connect/token";
         
@@ -70,27 +148,23 @@ public class KeycloakTokenService {
             );
         }
 
-        try {
-            JsonNode response = webClient.post()
-                .uri(tokenUrl)
-                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
-                .body(BodyInserters.fromValue(formData))
-                .retrieve()
-                .bodyToMono(JsonNode.class)
-                .block();
-
-            if (response != null && response.has("access_token")) {
-                serviceAccountToken = response.get("access_token").asText();
+        return webClient.post()
+            .uri(tokenUrl)
+            .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+            .body(BodyInserters.fromValue(formData))
+            .retrieve()
+            .bodyToMono(JsonNode.class)
+            .timeout(Duration.ofMillis(requestTimeoutMs))
+            .switchIfEmpty(Mono.error(new IllegalStateException("Empty token response")))
+            .map(response -> {
+                if (!response.has("access_token")) {
+                    throw new IllegalStateException("Token response without access_token");
+                }
                 int expiresIn = response.has("expires_in") ? response.get("expires_in").asInt() : 300;
-                tokenExpiry = Instant.now().plusSeconds(expiresIn);
                 log.debug("Obtained new service account token, expires in {} seconds", expiresIn);
-                return serviceAccountToken;
-            }
-        } catch (Exception e) {
-            log.error("Failed to obtain service account token: {}", e.getMessage());
-        }
-
-        return null;
+                return ServiceToken.of(response.get("access_token").asText(), expiresIn);
+            })
+            .toFuture();
     }
 
     /**
@@ -172,4 +246,14 @@ public class KeycloakTokenService {
 
         return null;
     }
+
+    private record ServiceToken(String value, Instant refreshAt, Instant expiresAt) {
+
+        // A margin before the real expiry covers clock skew and slow admin calls
+        static ServiceToken of(String value, int expiresInSeconds) {
+            Instant now = Instant.now();
+            long lifetimeMs = expiresInSeconds * 1000L;
+            return new ServiceToken(value, now.plusMillis(lifetimeMs * 2 / 3), now.plusMillis(lifetimeMs * 9 / 10));
+        }
+    }
 }
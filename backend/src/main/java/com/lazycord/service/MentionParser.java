@@ -0,0 +1,56 @@
+package com.lazycord.service;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Extracts {@code @username}, {@code @channel} and {@code @here} mentions from message content.
+ *
+ * A mention starts at the beginning of the content or after a character that cannot be
+ * part of a username, so e-mail addresses are not mistaken for mentions.
+ */
+public final class MentionParser {
+
+    public static final String CHANNEL = "channel";
+    public static final String HERE = "here";
+
+    private static final Pattern MENTION = Pattern.compile("(?<![\\w.@-])@([\\w.-]{3,50})");
+
+    private MentionParser() {
+    }
+
+    public static Mentions parse(String content) {
+        if (content == null || content.indexOf('@') < 0) {
+            return Mentions.NONE;
+        }
+
+        Set<String> usernames = new LinkedHashSet<>();
+        boolean channel = false;
+        boolean here = false;
+        Matcher matcher = MENTION.matcher(content);
+        while (matcher.find()) {
+            // Trailing punctuation ("@alice.") belongs to the sentence, not the username
+            String name = matcher.group(1).replaceAll("[.-]+$", "");
+            if (name.equals(CHANNEL)) {
+                channel = true;
+            } else if (name.equals(HERE)) {
+                here = true;
+            } else if (name.length() >= 3) {
+                usernames.add(name);
+            }
+        }
+        return new Mentions(Collections.unmodifiableSet(usernames), channel, here);
+    }
+
+    public record Mentions(Set<String> usernames, boolean channel, boolean here) {
+
+        public static final Mentions NONE = new Mentions(Set.of(), false, false);
+
+        public boolean isEmpty() {
+            return usernames.isEmpty() && !channel && !here;
+        }
+    }
+}
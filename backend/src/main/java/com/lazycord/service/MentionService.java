@@ -0,0 +1,216 @@
+package com.lazycord.service;
+
+import com.lazycord.model.Channel;
+import com.lazycord.model.Message;
+import com.lazycord.model.User;
+import com.lazycord.repository.ChannelMemberRepository;
+import com.lazycord.repository.ChannelRepository;
+import com.lazycord.repository.CommunityMemberRepository;
+import com.lazycord.repository.UserRepository;
+import com.lazycord.websocket.PresenceTracker;
+import com.lazycord.websocket.StompSessionUser;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turns {@code @username}, {@code @channel} and {@code @here} mentions of sent messages
+ * into notifications, off the send path.
+ *
+ * The content is parsed on the caller's thread; everything else runs on a single worker
+ * once the message has committed (immediately when there is no transaction). Recipients
+ * are resolved with one query per message, restricted to users who can read the channel,
+ * and the notifications are created with one batch insert. {@code @here} only reaches
+ * users online on this node. Jobs beyond {@code queue-capacity} are dropped and counted.
+ *
+ * {@code @channel} and {@code @here} select member ids only, capped at
+ * {@code max-recipients} in the query; {@code @here} only asks about the ids
+ * {@link PresenceTracker} reports online. Just the capped recipients are loaded as users.
+ */
+@Service
+@Slf4j
+public class MentionService {
+
+    private static final int PREVIEW_LENGTH = 100;
+    private static final int ONLINE_CHUNK = 1000;
+
+    private final UserRepository userRepository;
+    private final ChannelRepository channelRepository;
+    private final CommunityMemberRepository communityMemberRepository;
+    private final ChannelMemberRepository channelMemberRepository;
+    private final NotificationService notificationService;
+    private final PresenceTracker presenceTracker;
+    private final int maxRecipients;
+    private final ThreadPoolExecutor executor;
+
+    private final Counter delivered;
+    private final Counter dropped;
+
+    public MentionService(
+            UserRepository userRepository,
+            ChannelRepository channelRepository,
+            CommunityMemberRepository communityMemberRepository,
+            ChannelMemberRepository channelMemberRepository,
+            NotificationService notificationService,
+            PresenceTracker presenceTracker,
+            MeterRegistry meterRegistry,
+            @Value("${app.chat.mentions.max-recipients:1000}") int maxRecipients,
+            @Value("${app.chat.mentions.queue-capacity:10000}") int queueCapacity) {
+        this.userRepository = userRepository;
+        this.channelRepository = channelRepository;
+        this.communityMemberRepository = communityMemberRepository;
+        this.channelMemberRepository = channelMemberRepository;
+        this.notificationService = notificationService;
+        this.presenceTracker = presenceTracker;
+        this.maxRecipients = maxRecipients;
+
+        this.delivered = Counter.builder("chat.mentions.notified")
+                .description("Mention notifications created").register(meterRegistry);
+        this.dropped = Counter.builder("chat.mentions.dropped")
+                .description("Messages whose mentions were dropped because the queue was full").register(meterRegistry);
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread thread = new Thread(r, "mention-notifier");
+                    thread.setDaemon(true);
+                    return thread;
+                }, (task, pool) -> dropped.increment());
+        Gauge.builder("chat.mentions.queue_depth", executor, e -> e.getQueue().size()).register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Schedules notifications for the mentions in a sent message. Returns immediately.
+     */
+    public void publish(Message message, StompSessionUser sender) {
+        MentionParser.Mentions mentions = MentionParser.parse(message.getContent());
+        if (mentions.isEmpty()) {
+            return;
+        }
+
+        UUID channelId = message.getChannel().getId();
+        UUID communityId = message.getCommunity() != null ? message.getCommunity().getId() : null;
+        String preview = preview(message.getContent());
+        Runnable job = () -> deliver(mentions, channelId, communityId, sender, preview);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    executor.execute(job);
+                }
+            });
+        } else {
+            executor.execute(job);
+        }
+    }
+
+    void deliver(MentionParser.Mentions mentions, UUID channelId, UUID communityId, StompSessionUser sender,
+                 String preview) {
+        try {
+            Channel channel = channelRepository.findById(channelId).orElse(null);
+            if (channel == null) {
+                return;
+            }
+
+            Collection<User> recipients = resolveRecipients(mentions, channel, communityId, sender.getId());
+            if (recipients.isEmpty()) {
+                return;
+            }
+            notificationService.notifyMentions(recipients, sender.getUsername(), channel.getName(), preview);
+            delivered.increment(recipients.size());
+        } catch (Exception e) {
+            log.error("Failed to notify mentions in channel {}: {}", channelId, e.getMessage());
+        }
+    }
+
+    Collection<User> resolveRecipients(MentionParser.Mentions mentions, Channel channel, UUID communityId,
+                                       UUID senderId) {
+        // Public channels are readable by their whole community, the others only by their members
+        UUID readerCommunityId = channel.getType() == Channel.ChannelType.PUBLIC ? communityId : null;
+
+        Set<UUID> broadcastIds = new LinkedHashSet<>();
+        if (mentions.channel()) {
+            // One over the cap, in case the sender is among them
+            Limit limit = Limit.of(maxRecipients + 1);
+            broadcastIds.addAll(readerCommunityId != null
+                    ? communityMemberRepository.findActiveMemberIds(readerCommunityId, limit)
+                    : channelMemberRepository.findMemberIds(channel.getId(), limit));
+        } else if (mentions.here()) {
+            addOnlineReaders(broadcastIds, channel.getId(), readerCommunityId);
+        }
+        broadcastIds.remove(senderId);
+
+        List<User> users = new ArrayList<>();
+        if (!broadcastIds.isEmpty()) {
+            users.addAll(userRepository.findAllById(broadcastIds.stream().limit(maxRecipients).toList()));
+        }
+        // Named users are also notified alongside @here, even when offline
+        if (!mentions.channel() && !mentions.usernames().isEmpty()) {
+            users.addAll(findNamedReaders(mentions.usernames(), channel, readerCommunityId));
+        }
+
+        Map<UUID, User> recipients = new LinkedHashMap<>();
+        for (User user : users) {
+            if (!user.getId().equals(senderId)) {
+                recipients.putIfAbsent(user.getId(), user);
+            }
+            if (recipients.size() >= maxRecipients) {
+                log.warn("Mention in channel {} capped at {} recipients", channel.getId(), maxRecipients);
+                break;
+            }
+        }
+        return recipients.values();
+    }
+
+    private void addOnlineReaders(Set<UUID> ids, UUID channelId, UUID communityId) {
+        List<UUID> online = presenceTracker.onlineUserIds();
+        for (int from = 0; from < online.size() && ids.size() <= maxRecipients; from += ONLINE_CHUNK) {
+            List<UUID> chunk = online.subList(from, Math.min(from + ONLINE_CHUNK, online.size()));
+            ids.addAll(communityId != null
+                    ? communityMemberRepository.findActiveMemberIds(communityId, chunk)
+                    : channelMemberRepository.findMemberIds(channelId, chunk));
+        }
+    }
+
+    private List<User> findNamedReaders(Set<String> usernames, Channel channel, UUID communityId) {
+        if (channel.getType() != Channel.ChannelType.PUBLIC) {
+            return userRepository.findChannelMembersByUsernameIn(channel.getId(), usernames);
+        }
+        if (communityId != null) {
+            return userRepository.findCommunityMembersByUsernameIn(communityId, usernames);
+        }
+        return userRepository.findByUsernameIn(usernames);
+    }
+
+    private static String preview(String content) {
+        return content.length() <= PREVIEW_LENGTH ? content : content.substring(0, PREVIEW_LENGTH) + "…";
+    }
+}
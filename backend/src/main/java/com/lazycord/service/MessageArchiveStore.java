@@ -0,0 +1,343 @@
+package com.lazycord.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.lazycord.dto.ChatMessageDto;
+import com.lazycord.dto.MessageCursor;
+import com.lazycord.model.MessageArchiveSegment;
+import com.lazycord.repository.MessageArchiveSegmentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cold storage for message partitions that left the database.
+ *
+ * Archiving a monthly partition writes one gzip NDJSON segment of {@link ChatMessageDto}
+ * per channel under {@code directory/YYYY-MM/}, records the segments in
+ * {@code message_archive_segments}, removes the attachment rows and report links of the
+ * archived messages, then detaches and drops the partition, all in one transaction.
+ * History reads that run past the oldest row in the database continue here, newest
+ * first, with the same (createdAt, id) cursor.
+ *
+ * Segments are written newest first, so a read decompresses a segment only up to the
+ * page it returns; segments of the same month are merged while they are read.
+ */
+@Service
+@Slf4j
+public class MessageArchiveStore {
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("messages_\\d{4}_\\d{2}");
+    private static final LocalDate NO_CURSOR_MONTH = LocalDate.of(9999, 12, 1);
+
+    // Same order as the database: createdAt, then the id compared as unsigned bytes like PostgreSQL's uuid
+    static final Comparator<ChatMessageDto> NEWEST_FIRST = Comparator
+            .comparing(ChatMessageDto::getCreatedAt)
+            .thenComparing(ChatMessageDto::getId, MessageArchiveStore::compareUuids)
+            .reversed();
+
+    private final MessageArchiveSegmentRepository segmentRepository;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectWriter writer;
+    private final ObjectReader reader;
+    private final Path directory;
+
+    public MessageArchiveStore(
+            MessageArchiveSegmentRepository segmentRepository,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            @Value("${app.chat.archive.directory:./data/message-archive}") String directory) {
+        this.segmentRepository = segmentRepository;
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingJdbcTemplate.setFetchSize(1000);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.writer = objectMapper.writerFor(ChatMessageDto.class);
+        this.reader = objectMapper.readerFor(ChatMessageDto.class);
+        this.directory = Paths.get(directory);
+    }
+
+    /**
+     * Writes the partition of {@code monthStart} to segment files and drops it.
+     * Returns the number of archived messages.
+     */
+    public long archivePartition(String partitionName, LocalDate monthStart) {
+        if (!PARTITION_NAME.matcher(partitionName).matches()) {
+            throw new IllegalArgumentException("Not a message partition: " + partitionName);
+        }
+
+        SegmentWriter segments = new SegmentWriter(monthStart);
+        try {
+            Long archived = transactionTemplate.execute(status -> {
+                // Forward-only cursor; the transaction keeps the driver from buffering the partition
+                streamingJdbcTemplate.query(
+                        "SELECT m.id, m.content, m.type, u.id AS sender_id, u.username, u.avatar_url, m.channel_id, " +
+                        "m.community_id, m.seq, m.attachment_url, m.edited, m.created_at " +
+                        "FROM " + partitionName + " m JOIN users u ON u.id = m.sender_id " +
+                        "ORDER BY m.channel_id, m.community_id, m.created_at DESC, m.id DESC",
+                        segments::write);
+                segments.close();
+
+                // Dropping the partition bypasses the delete trigger that cleans up after messages
+                streamingJdbcTemplate.update("DELETE FROM file_attachments WHERE message_id IN " +
+                        "(SELECT id FROM " + partitionName + ")");
+                streamingJdbcTemplate.update("UPDATE reports SET message_id = NULL WHERE message_id IN " +
+                        "(SELECT id FROM " + partitionName + ")");
+
+                streamingJdbcTemplate.execute("ALTER TABLE messages DETACH PARTITION " + partitionName);
+                streamingJdbcTemplate.execute("DROP TABLE " + partitionName);
+                return segments.total;
+            });
+            log.info("Archived {} messages of {} into {} segments", archived, partitionName, segments.written.size());
+            return archived != null ? archived : 0;
+        } catch (RuntimeException e) {
+            // Nothing was committed, so the files are unreferenced
+            segments.discard();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} archived messages older than the cursor (the newest
+     * archived ones when it is null), newest first.
+     */
+    public List<ChatMessageDto> readBefore(UUID channelId, UUID communityId, MessageCursor cursor, int limit) {
+        LocalDate lastMonth = cursor != null ? cursor.getCreatedAt().toLocalDate().withDayOfMonth(1) : NO_CURSOR_MONTH;
+        List<MessageArchiveSegment> segments = segmentRepository
+                .findByChannelIdAndCommunityIdAndMonthStartLessThanEqualOrderByMonthStartDesc(
+                        channelId, communityId, lastMonth);
+
+        List<ChatMessageDto> result = new ArrayList<>();
+        int i = 0;
+        while (i < segments.size() && result.size() < limit) {
+            // A month can hold several segments if it was archived more than once, e.g. after an import
+            LocalDate month = segments.get(i).getMonthStart();
+            List<SegmentReader> readers = new ArrayList<>();
+            try {
+                PriorityQueue<SegmentReader> heads =
+                        new PriorityQueue<>(Comparator.comparing(SegmentReader::head, NEWEST_FIRST));
+                for (; i < segments.size() && segments.get(i).getMonthStart().equals(month); i++) {
+                    SegmentReader segmentReader = new SegmentReader(segments.get(i), cursor);
+                    readers.add(segmentReader);
+                    if (segmentReader.advance()) {
+                        heads.add(segmentReader);
+                    }
+                }
+                while (!heads.isEmpty() && result.size() < limit) {
+                    SegmentReader newest = heads.poll();
+                    result.add(newest.head());
+                    if (newest.advance()) {
+                        heads.add(newest);
+                    }
+                }
+            } finally {
+                readers.forEach(SegmentReader::close);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Passes every archived message of the channel to {@code action}, oldest first, and
+     * returns how many there were. Segments are stored newest first, so one month of the
+     * channel is held in memory at a time.
+     */
+    public long forEachArchived(UUID channelId, UUID communityId, Consumer<ChatMessageDto> action) {
+        List<MessageArchiveSegment> segments =
+                segmentRepository.findByChannelIdAndCommunityIdOrderByMonthStartAsc(channelId, communityId);
+        long count = 0;
+        int i = 0;
+        while (i < segments.size()) {
+            LocalDate month = segments.get(i).getMonthStart();
+            List<ChatMessageDto> monthMessages = new ArrayList<>();
+            for (; i < segments.size() && segments.get(i).getMonthStart().equals(month); i++) {
+                SegmentReader segmentReader = new SegmentReader(segments.get(i), null);
+                try {
+                    while (segmentReader.advance()) {
+                        monthMessages.add(segmentReader.head());
+                    }
+                } finally {
+                    segmentReader.close();
+                }
+            }
+            monthMessages.sort(NEWEST_FIRST.reversed());
+            monthMessages.forEach(action);
+            count += monthMessages.size();
+        }
+        return count;
+    }
+
+    private static boolean isBefore(ChatMessageDto message, MessageCursor cursor) {
+        int byTime = message.getCreatedAt().compareTo(cursor.getCreatedAt());
+        return byTime < 0 || (byTime == 0 && compareUuids(message.getId(), cursor.getId()) < 0);
+    }
+
+    static int compareUuids(UUID a, UUID b) {
+        int byMsb = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return byMsb != 0 ? byMsb : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+
+    // Streams one newest-first segment, starting at the first message older than the cursor
+    private final class SegmentReader {
+        private final MessageArchiveSegment segment;
+        private final BufferedReader lines;
+        private MessageCursor cursor;
+        private ChatMessageDto head;
+
+        SegmentReader(MessageArchiveSegment segment, MessageCursor cursor) {
+            this.segment = segment;
+            this.cursor = cursor;
+            try {
+                this.lines = new BufferedReader(new InputStreamReader(
+                        new GZIPInputStream(Files.newInputStream(Paths.get(segment.getFilePath())), 64 * 1024),
+                        StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read archive segment " + segment.getFilePath(), e);
+            }
+        }
+
+        ChatMessageDto head() {
+            return head;
+        }
+
+        boolean advance() {
+            try {
+                String line;
+                while ((line = lines.readLine()) != null) {
+                    ChatMessageDto message = reader.readValue(line);
+                    if (cursor == null || isBefore(message, cursor)) {
+                        // Everything after the first match is older still
+                        cursor = null;
+                        head = message;
+                        return true;
+                    }
+                }
+                head = null;
+                return false;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read archive segment " + segment.getFilePath(), e);
+            }
+        }
+
+        void close() {
+            try {
+                lines.close();
+            } catch (IOException e) {
+                log.warn("Could not close archive segment {}", segment.getFilePath());
+            }
+        }
+    }
+
+    // Receives the partition ordered by channel and starts a new file whenever the channel changes
+    private final class SegmentWriter {
+        private final LocalDate monthStart;
+        private final List<Path> written = new ArrayList<>();
+        private UUID channelId;
+        private UUID communityId;
+        private Path path;
+        private OutputStream out;
+        private long rows;
+        private long total;
+
+        SegmentWriter(LocalDate monthStart) {
+            this.monthStart = monthStart;
+        }
+
+        void write(ResultSet rs) throws SQLException {
+            UUID rowChannelId = rs.getObject("channel_id", UUID.class);
+            UUID rowCommunityId = rs.getObject("community_id", UUID.class);
+            try {
+                if (!rowChannelId.equals(channelId) || !rowCommunityId.equals(communityId)) {
+                    close();
+                    open(rowChannelId, rowCommunityId);
+                }
+                ChatMessageDto message = new ChatMessageDto(rs.getObject("id", UUID.class), rs.getString("content"),
+                        rs.getString("type"), rs.getObject("sender_id", UUID.class), rs.getString("username"),
+                        rs.getString("avatar_url"), rowChannelId, rs.getLong("seq"), rs.getString("attachment_url"),
+                        rs.getBoolean("edited"), rs.getTimestamp("created_at").toLocalDateTime());
+                out.write(writer.writeValueAsBytes(message));
+                out.write('\n');
+                rows++;
+                total++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void open(UUID channelId, UUID communityId) throws IOException {
+            Path monthDirectory = directory.resolve(monthStart.toString().substring(0, 7));
+            Files.createDirectories(monthDirectory);
+            this.channelId = channelId;
+            this.communityId = communityId;
+            this.path = monthDirectory.resolve(channelId + "-" + System.currentTimeMillis() + ".ndjson.gz");
+            this.out = new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(path), 64 * 1024));
+            this.rows = 0;
+            written.add(path);
+        }
+
+        void close() {
+            if (out == null) {
+                return;
+            }
+            try {
+                out.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            out = null;
+
+            MessageArchiveSegment segment = new MessageArchiveSegment();
+            segment.setChannelId(channelId);
+            segment.setCommunityId(communityId);
+            segment.setMonthStart(monthStart);
+            segment.setFilePath(path.toAbsolutePath().toString());
+            segment.setRowCount(rows);
+            segmentRepository.save(segment);
+        }
+
+        void discard() {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException ignored) {
+                    // The file is deleted next
+                }
+            }
+            for (Path file : written) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    log.warn("Could not delete unreferenced archive segment {}", file);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.lazycord.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.lazycord.dto.ChatMessageDto;
+import com.lazycord.model.Channel;
+import com.lazycord.model.Community;
+import com.lazycord.repository.MessageRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Writes the full history of a channel as NDJSON, one {@link ChatMessageDto} per line,
+ * oldest first.
+ *
+ * Months moved to the {@link MessageArchiveStore} come first, one month in memory at a
+ * time. The rows still in the database follow, read through a forward-only cursor and
+ * written as they arrive.
+ */
+@Service
+@Slf4j
+public class MessageExportService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final MessageRepository messageRepository;
+    private final MessageArchiveStore messageArchiveStore;
+    private final ObjectWriter writer;
+
+    public MessageExportService(MessageRepository messageRepository, MessageArchiveStore messageArchiveStore,
+                                ObjectMapper objectMapper) {
+        this.messageRepository = messageRepository;
+        this.messageArchiveStore = messageArchiveStore;
+        this.writer = objectMapper.writerFor(ChatMessageDto.class);
+    }
+
+    /**
+     * Streams the channel to {@code out} and returns the number of messages written.
+     * Does not close {@code out}.
+     */
+    @Transactional(readOnly = true)
+    public long exportChannel(UUID channelId, Community community, OutputStream out) throws IOException {
+        Channel channel = new Channel();
+        channel.setId(channelId);
+        channel.setCommunity(community);
+
+        BufferedOutputStream buffered = new BufferedOutputStream(out, BUFFER_SIZE);
+        long count;
+        try {
+            count = messageArchiveStore.forEachArchived(channelId, community.getId(), message -> {
+                try {
+                    writeLine(buffered, message);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        try (Stream<ChatMessageDto> messages = messageRepository.streamForExport(channel, community)) {
+            Iterator<ChatMessageDto> iterator = messages.iterator();
+            while (iterator.hasNext()) {
+                writeLine(buffered, iterator.next());
+                count++;
+            }
+        }
+        buffered.flush();
+
+        log.info("Exported {} messages of channel {}", count, channelId);
+        return count;
+    }
+
+    private void writeLine(OutputStream out, ChatMessageDto message) throws IOException {
+        out.write(writer.writeValueAsBytes(message));
+        out.write('\n');
+    }
+}
@@ -0,0 +1,192 @@
+package com.lazycord.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lazycord.model.MessageImport;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the history files uploaded to {@link MessageImportService} record by record,
+ * without buffering the file. Not to be confused with {@link MessageArchiveStore}, which
+ * holds months moved out of the database.
+ *
+ * NDJSON records are objects with {@code channel}, {@code sender}, {@code content},
+ * {@code createdAt} and optionally {@code attachmentUrl}. CSV archives start with a
+ * header row naming the same columns (snake_case is accepted too) and follow RFC 4180
+ * quoting, so quoted fields may span lines. Timestamps are ISO-8601, with or without
+ * an offset. Records that cannot be parsed are returned as {@link ImportedMessage#MALFORMED}
+ * so they still count towards the resume position.
+ */
+final class MessageImportReader implements Closeable {
+
+    private final BufferedReader reader;
+    private final MessageImport.Format format;
+    private final ObjectMapper objectMapper;
+    private Map<String, Integer> columns;
+
+    MessageImportReader(InputStream in, MessageImport.Format format, ObjectMapper objectMapper) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Returns the next record, or {@code null} at the end of the archive.
+     */
+    ImportedMessage next() throws IOException {
+        return format == MessageImport.Format.NDJSON ? nextJson() : nextCsv();
+    }
+
+    /**
+     * Skips {@code count} records and returns how many were actually there.
+     */
+    long skip(long count) throws IOException {
+        long skipped = 0;
+        while (skipped < count && next() != null) {
+            skipped++;
+        }
+        return skipped;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private ImportedMessage nextJson() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+
+        try {
+            JsonNode node = objectMapper.readTree(line);
+            return ImportedMessage.of(text(node, "channel"), text(node, "sender"), text(node, "content"),
+                    text(node, "createdAt"), text(node, "attachmentUrl"));
+        } catch (IOException e) {
+            return ImportedMessage.MALFORMED;
+        }
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private ImportedMessage nextCsv() throws IOException {
+        if (columns == null) {
+            List<String> header = readCsvRecord();
+            if (header == null) {
+                return null;
+            }
+            columns = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(header.get(i).trim().replace("_", "").toLowerCase(), i);
+            }
+        }
+
+        List<String> record;
+        do {
+            record = readCsvRecord();
+            if (record == null) {
+                return null;
+            }
+        } while (record.size() == 1 && record.get(0).isEmpty());
+
+        return ImportedMessage.of(column(record, "channel"), column(record, "sender"), column(record, "content"),
+                column(record, "createdat"), column(record, "attachmenturl"));
+    }
+
+    private String column(List<String> record, String name) {
+        Integer index = columns.get(name);
+        return index != null && index < record.size() ? record.get(index) : null;
+    }
+
+    // One RFC 4180 record; null at the end of the input
+    private List<String> readCsvRecord() throws IOException {
+        int c = reader.read();
+        if (c < 0) {
+            return null;
+        }
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (c >= 0) {
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        reader.reset();
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    record ImportedMessage(String channel, String sender, String content, LocalDateTime createdAt,
+                           String attachmentUrl) {
+
+        static final ImportedMessage MALFORMED = new ImportedMessage(null, null, null, null, null);
+
+        static ImportedMessage of(String channel, String sender, String content, String createdAt,
+                                  String attachmentUrl) {
+            if (channel == null || sender == null || content == null || createdAt == null) {
+                return MALFORMED;
+            }
+            try {
+                return new ImportedMessage(channel, sender, content, parseTimestamp(createdAt),
+                        attachmentUrl == null || attachmentUrl.isEmpty() ? null : attachmentUrl);
+            } catch (DateTimeParseException e) {
+                return MALFORMED;
+            }
+        }
+
+        boolean isMalformed() {
+            return this == MALFORMED;
+        }
+
+        private static LocalDateTime parseTimestamp(String value) {
+            try {
+                return OffsetDateTime.parse(value).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+            } catch (DateTimeParseException e) {
+                return LocalDateTime.parse(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package com.lazycord.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lazycord.model.Channel;
+import com.lazycord.model.MessageImport;
+import com.lazycord.model.User;
+import com.lazycord.model.UuidV7Generator;
+import com.lazycord.repository.ChannelRepository;
+import com.lazycord.repository.MessageImportRepository;
+import com.lazycord.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Imports message history from NDJSON or CSV archives (see {@link MessageImportReader}).
+ *
+ * The archive is read as a stream and loaded in chunks of {@code chunk-size} records. For
+ * each chunk, channel names and sender usernames not seen before are resolved with one
+ * query each, and sequence numbers are reserved per channel in their own short
+ * transaction, so the channel row is not locked while the rows go through a single
+ * PostgreSQL {@code COPY}. The job's progress is updated in the COPY transaction, so a
+ * failed or interrupted import resumes from the last committed chunk when the same
+ * archive is uploaded again. Sequence numbers reserved for a chunk that failed are not
+ * reused, which leaves a gap in the channel's sequence.
+ *
+ * A run claims the job with a conditional update, so concurrent uploads of the same import
+ * are rejected. Every committed chunk refreshes the job's heartbeat; a job left RUNNING by a
+ * crashed node can be resumed once its heartbeat is older than {@code stale-after-ms}.
+ *
+ * Records with an unknown channel or sender, or content over 2000 characters, are skipped
+ * and counted, as are senders that are not active members of the community. Imported
+ * messages get the next sequence numbers of their channel, so the archive should be in
+ * chronological order and imported before new messages are posted. Messages posted during
+ * an import are not delayed by it, but may commit ahead of imported rows with smaller
+ * sequence numbers.
+ */
+@Service
+@Slf4j
+public class MessageImportService {
+
+    private static final String COPY_SQL =
+            "COPY messages (id, content, type, sender_id, channel_id, community_id, attachment_url, edited, " +
+            "created_at, updated_at, seq) FROM STDIN WITH (FORMAT csv)";
+    private static final int MAX_CONTENT_LENGTH = 2000;
+
+    private final MessageImportRepository messageImportRepository;
+    private final ChannelRepository channelRepository;
+    private final UserRepository userRepository;
+    private final MessageSequenceService messageSequenceService;
+    private final MessagePartitionService messagePartitionService;
+    private final RecentMessageCache recentMessageCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final long staleAfterMs;
+
+    public MessageImportService(
+            MessageImportRepository messageImportRepository,
+            ChannelRepository channelRepository,
+            UserRepository userRepository,
+            MessageSequenceService messageSequenceService,
+            MessagePartitionService messagePartitionService,
+            RecentMessageCache recentMessageCache,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            @Value("${app.chat.import.chunk-size:10000}") int chunkSize,
+            @Value("${app.chat.import.stale-after-ms:300000}") long staleAfterMs) {
+        this.messageImportRepository = messageImportRepository;
+        this.channelRepository = channelRepository;
+        this.userRepository = userRepository;
+        this.messageSequenceService = messageSequenceService;
+        this.messagePartitionService = messagePartitionService;
+        this.recentMessageCache = recentMessageCache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+        this.staleAfterMs = staleAfterMs;
+    }
+
+    @Transactional
+    public MessageImport create(UUID communityId, User requestedBy, MessageImport.Format format) {
+        MessageImport job = new MessageImport();
+        job.setCommunityId(communityId);
+        job.setRequestedBy(requestedBy.getId());
+        job.setFormat(format);
+        return messageImportRepository.save(job);
+    }
+
+    @Transactional(readOnly = true)
+    public MessageImport findById(UUID importId) {
+        return messageImportRepository.findById(importId)
+                .orElseThrow(() -> new RuntimeException("Import not found"));
+    }
+
+    /**
+     * Loads the archive, skipping the records already committed by earlier runs of this
+     * import. Returns the job with its final status; failures are recorded on the job.
+     */
+    public MessageImport run(UUID importId, InputStream archive) {
+        MessageImport job = claim(importId);
+
+        ImportContext context = new ImportContext();
+        long started = System.nanoTime();
+        try (MessageImportReader reader = new MessageImportReader(archive, job.getFormat(), objectMapper)) {
+            if (reader.skip(job.getRecordsProcessed()) < job.getRecordsProcessed()) {
+                throw new RuntimeException("Archive has fewer records than this import already processed");
+            }
+
+            List<MessageImportReader.ImportedMessage> chunk = new ArrayList<>(chunkSize);
+            MessageImportReader.ImportedMessage record;
+            while ((record = reader.next()) != null) {
+                chunk.add(record);
+                if (chunk.size() == chunkSize) {
+                    job = commitChunk(job, chunk, context);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                job = commitChunk(job, chunk, context);
+            }
+
+            job.setStatus(MessageImport.Status.COMPLETED);
+            job = messageImportRepository.save(job);
+            log.info("Import {} completed: {} rows imported, {} skipped in {} ms", job.getId(),
+                    job.getRowsImported(), job.getRowsSkipped(), (System.nanoTime() - started) / 1_000_000);
+        } catch (Exception e) {
+            log.error("Import {} failed: {}", importId, e.getMessage());
+            // Progress of the chunks committed so far is kept for resuming
+            job = findById(importId);
+            job.setStatus(MessageImport.Status.FAILED);
+            job.setError(e.getMessage());
+            job = messageImportRepository.save(job);
+        } finally {
+            context.touchedChannels.forEach(recentMessageCache::invalidate);
+        }
+        return job;
+    }
+
+    // Takes ownership of the job atomically; a second upload of the same import fails here
+    private MessageImport claim(UUID importId) {
+        LocalDateTime now = LocalDateTime.now();
+        Integer claimed = transactionTemplate.execute(status -> messageImportRepository.claim(importId, now,
+                now.minus(staleAfterMs, ChronoUnit.MILLIS), MessageImport.Status.RUNNING,
+                MessageImport.Status.COMPLETED));
+        MessageImport job = findById(importId);
+        if (claimed == null || claimed == 0) {
+            throw new RuntimeException(job.getStatus() == MessageImport.Status.COMPLETED
+                    ? "Import already completed" : "Import is already running");
+        }
+        return job;
+    }
+
+    private MessageImport commitChunk(MessageImport job, List<MessageImportReader.ImportedMessage> chunk,
+                                      ImportContext context) {
+        resolveNames(job.getCommunityId(), chunk, context);
+
+        Map<UUID, List<MessageImportReader.ImportedMessage>> byChannel = new LinkedHashMap<>();
+        long skipped = 0;
+        for (MessageImportReader.ImportedMessage message : chunk) {
+            UUID channelId = message.isMalformed() ? null : context.channels.get(message.channel());
+            UUID senderId = message.isMalformed() ? null : context.senders.get(message.sender());
+            if (channelId == null || senderId == null || message.content().length() > MAX_CONTENT_LENGTH) {
+                skipped++;
+                continue;
+            }
+            byChannel.computeIfAbsent(channelId, id -> new ArrayList<>()).add(message);
+        }
+
+        // Each reservation commits on its own, so live senders wait for the update, not the COPY
+        Map<UUID, Long> firstSeq = new HashMap<>();
+        for (Map.Entry<UUID, List<MessageImportReader.ImportedMessage>> entry : byChannel.entrySet()) {
+            firstSeq.put(entry.getKey(), messageSequenceService.reserve(entry.getKey(), entry.getValue().size()));
+        }
+
+        long rowsSkipped = skipped;
+        return transactionTemplate.execute(status -> {
+            StringBuilder csv = new StringBuilder(chunk.size() * 200);
+            long rows = 0;
+            for (Map.Entry<UUID, List<MessageImportReader.ImportedMessage>> entry : byChannel.entrySet()) {
+                UUID channelId = entry.getKey();
+                long seq = firstSeq.get(channelId);
+                for (MessageImportReader.ImportedMessage message : entry.getValue()) {
+                    appendRow(csv, message, context.senders.get(message.sender()), channelId,
+                            job.getCommunityId(), seq++);
+                    rows++;
+                }
+                context.touchedChannels.add(channelId);
+            }
+
+            if (rows > 0) {
+                // History older than the partitions created by maintenance needs its own months
+                messagePartitionService.ensurePartitions(byChannel.values().stream()
+                        .flatMap(List::stream)
+                        .map(message -> message.createdAt().toLocalDate())
+                        .collect(Collectors.toSet()));
+                jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+                    try {
+                        return connection.unwrap(PGConnection.class).getCopyAPI()
+                                .copyIn(COPY_SQL, new StringReader(csv.toString()));
+                    } catch (IOException e) {
+                        throw new RuntimeException("COPY failed", e);
+                    }
+                });
+            }
+
+            job.setRecordsProcessed(job.getRecordsProcessed() + chunk.size());
+            job.setRowsImported(job.getRowsImported() + rows);
+            job.setRowsSkipped(job.getRowsSkipped() + rowsSkipped);
+            job.setHeartbeatAt(LocalDateTime.now());
+            return messageImportRepository.save(job);
+        });
+    }
+
+    // Looks up only names this import has not resolved yet; misses are remembered as null
+    private void resolveNames(UUID communityId, List<MessageImportReader.ImportedMessage> chunk,
+                              ImportContext context) {
+        Set<String> channelNames = new HashSet<>();
+        Set<String> usernames = new HashSet<>();
+        for (MessageImportReader.ImportedMessage message : chunk) {
+            if (message.isMalformed()) {
+                continue;
+            }
+            if (!context.channels.containsKey(message.channel())) {
+                channelNames.add(message.channel());
+            }
+            if (!context.senders.containsKey(message.sender())) {
+                usernames.add(message.sender());
+            }
+        }
+
+        if (!channelNames.isEmpty()) {
+            channelNames.forEach(name -> context.channels.put(name, null));
+            for (Channel channel : channelRepository.findByCommunityIdAndNameIn(communityId, channelNames)) {
+                // Channel names are not unique; the first match wins
+                if (context.channels.get(channel.getName()) == null) {
+                    context.channels.put(channel.getName(), channel.getId());
+                }
+            }
+        }
+        if (!usernames.isEmpty()) {
+            usernames.forEach(name -> context.senders.put(name, null));
+            for (User user : userRepository.findCommunityMembersByUsernameIn(communityId, usernames)) {
+                context.senders.put(user.getUsername(), user.getId());
+            }
+        }
+    }
+
+    private static void appendRow(StringBuilder csv, MessageImportReader.ImportedMessage message, UUID senderId,
+                                  UUID channelId, UUID communityId, long seq) {
+        LocalDateTime createdAt = message.createdAt();
+        long epochMillis = createdAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        csv.append(UuidV7Generator.generate(epochMillis)).append(',');
+        appendQuoted(csv, message.content());
+        csv.append(",TEXT,").append(senderId).append(',').append(channelId).append(',').append(communityId)
+                .append(',');
+        if (message.attachmentUrl() != null) {
+            appendQuoted(csv, message.attachmentUrl());
+        }
+        csv.append(",false,").append(createdAt).append(',').append(createdAt).append(',').append(seq).append('\n');
+    }
+
+    private static void appendQuoted(StringBuilder csv, String value) {
+        csv.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                csv.append('"');
+            }
+            csv.append(c);
+        }
+        csv.append('"');
+    }
+
+    private static final class ImportContext {
+        final Map<String, UUID> channels = new HashMap<>();
+        final Map<String, UUID> senders = new HashMap<>();
+        final Set<UUID> touchedChannels = new HashSet<>();
+    }
+}
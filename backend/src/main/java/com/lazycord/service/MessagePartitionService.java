@@ -0,0 +1,130 @@
+package com.lazycord.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maintains the monthly partitions of {@code messages} (V14).
+ *
+ * Every {@code maintenance-interval-ms}, and once at startup, the partitions of the
+ * current month and the next {@code months-ahead} months are created if missing. With
+ * archival enabled, partitions older than {@code retain-months} full months are then
+ * moved to {@link MessageArchiveStore}. Requires PostgreSQL; disabled in tests.
+ */
+@Service
+@Slf4j
+public class MessagePartitionService {
+
+    private static final String PARTITIONS_SQL =
+            "SELECT c.relname FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent " +
+            "WHERE p.relname = 'messages' ORDER BY c.relname";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MessageArchiveStore messageArchiveStore;
+    private final boolean maintenanceEnabled;
+    private final long maintenanceIntervalMs;
+    private final int monthsAhead;
+    private final boolean archiveEnabled;
+    private final int retainMonths;
+
+    private ScheduledExecutorService scheduler;
+
+    public MessagePartitionService(
+            JdbcTemplate jdbcTemplate,
+            MessageArchiveStore messageArchiveStore,
+            @Value("${app.chat.partitions.maintenance-enabled:true}") boolean maintenanceEnabled,
+            @Value("${app.chat.partitions.maintenance-interval-ms:3600000}") long maintenanceIntervalMs,
+            @Value("${app.chat.partitions.months-ahead:3}") int monthsAhead,
+            @Value("${app.chat.archive.enabled:false}") boolean archiveEnabled,
+            @Value("${app.chat.archive.retain-months:12}") int retainMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.messageArchiveStore = messageArchiveStore;
+        this.maintenanceEnabled = maintenanceEnabled;
+        this.maintenanceIntervalMs = maintenanceIntervalMs;
+        this.monthsAhead = monthsAhead;
+        this.archiveEnabled = archiveEnabled;
+        this.retainMonths = retainMonths;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!maintenanceEnabled) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "message-partitions");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::maintain, 0, maintenanceIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    void maintain() {
+        try {
+            LocalDate currentMonth = LocalDate.now().withDayOfMonth(1);
+            for (int i = 0; i <= monthsAhead; i++) {
+                ensurePartition(currentMonth.plusMonths(i));
+            }
+            if (archiveEnabled) {
+                archiveOlderThan(currentMonth.minusMonths(retainMonths));
+            }
+        } catch (Exception e) {
+            log.error("Message partition maintenance failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Creates the partitions of the given months if they do not exist yet, e.g. before
+     * importing history.
+     */
+    public void ensurePartitions(Collection<LocalDate> months) {
+        months.stream().map(month -> month.withDayOfMonth(1)).distinct().forEach(this::ensurePartition);
+    }
+
+    private void ensurePartition(LocalDate month) {
+        jdbcTemplate.queryForObject("SELECT create_messages_partition(?)", String.class, Date.valueOf(month));
+    }
+
+    private void archiveOlderThan(LocalDate cutoff) {
+        List<String> partitions = jdbcTemplate.queryForList(PARTITIONS_SQL, String.class);
+        for (String partition : partitions) {
+            LocalDate month = monthOf(partition);
+            if (month != null && month.isBefore(cutoff)) {
+                messageArchiveStore.archivePartition(partition, month);
+            }
+        }
+    }
+
+    // messages_2026_01 -> 2026-01-01
+    static LocalDate monthOf(String partition) {
+        String[] parts = partition.split("_");
+        if (parts.length != 3) {
+            return null;
+        }
+        try {
+            return LocalDate.of(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), 1);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.lazycord.service;
+
+import com.lazycord.repository.ChannelRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+
+/**
+ * Hands out per-channel message sequence numbers from {@code channels.last_message_seq}.
+ *
+ * Called inside the inserting transaction, the channel row stays locked until the message
+ * commits, so sequence order matches commit order and a reader that has seen seq N never
+ * misses a smaller one later. Different channels never contend.
+ */
+@Service
+@RequiredArgsConstructor
+public class MessageSequenceService {
+
+    private final ChannelRepository channelRepository;
+
+    @Transactional
+    public long next(UUID channelId) {
+        return reserve(channelId, 1);
+    }
+
+    /**
+     * Reserves {@code count} consecutive sequence numbers and returns the first one.
+     */
+    @Transactional
+    public long reserve(UUID channelId, int count) {
+        if (channelRepository.incrementLastMessageSeq(channelId, count) == 0) {
+            throw new RuntimeException("Channel not found");
+        }
+        long last = channelRepository.findLastMessageSeq(channelId)
+                .orElseThrow(() -> new RuntimeException("Channel not found"));
+        return last - count + 1;
+    }
+}
@@ -1,15 +1,27 @@
 package com.lazycord.service;
 
+import com.lazycord.dto.ChatMessageDto;
+import com.lazycord.dto.MessageCursor;
 import com.lazycord.model.Channel;
 import com.lazycord.model.Community;
 import com.lazycord.model.Message;
 import com.lazycord.model.User;
 import com.lazycord.repository.MessageRepository;
+import com.lazycord.repository.MessageSearchRow;
+import com.lazycord.websocket.RedisBrokerRelay;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 
@@ -18,7 +30,17 @@ import java.util.UUID;
 @Slf4j
 public class MessageService {
 
+    public static final int RECENT_LIMIT = 50;
+
+    // Start of a search without cursor: sorts after every real (createdAt, id)
+    private static final MessageCursor SEARCH_START =
+            new MessageCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), new UUID(-1L, -1L));
+
     private final MessageRepository messageRepository;
+    private final RecentMessageCache recentMessageCache;
+    private final MessageSequenceService messageSequenceService;
+    private final MessageArchiveStore messageArchiveStore;
+    private final ObjectProvider<RedisBrokerRelay> redisBrokerRelay;
 
     @Transactional
     public Message saveMessage(String content, User sender, Channel channel, Community community) {
@@ -28,6 +50,7 @@ public class MessageService {
         message.setChannel(channel);
         message.setCommunity(community);  // Set community
         message.setType(Message.MessageType.TEXT);
+        message.setSeq(messageSequenceService.next(channel.getId()));
 
         return messageRepository.save(message);
     }
@@ -40,6 +63,7 @@ public class MessageService {
         message.setSender(sender);
         message.setChannel(channel);
         message.setType(Message.MessageType.TEXT);
+        message.setSeq(messageSequenceService.next(channel.getId()));
 
         return messageRepository.save(message);
     }
@@ -61,11 +85,123 @@ public class MessageService {
     }
 
     @Transactional(readOnly = true)
-    public List<Message> getChannelMessagesRecent(UUID channelId, Community community) {
+    public List<ChatMessageDto> getChannelMessagesRecent(UUID channelId, Community community) {
+        return getChannelMessagesRecent(channelId, community, RECENT_LIMIT);
+    }
+
+    /**
+     * Returns the latest {@code limit} messages, newest first, including archived ones
+     * when the database holds fewer.
+     */
+    @Transactional(readOnly = true)
+    public List<ChatMessageDto> getChannelMessagesRecent(UUID channelId, Community community, int limit) {
+        Channel channel = new Channel();
+        channel.setId(channelId);
+        channel.setCommunity(community);
+
+        // Busy channels are answered from the current month's partition alone
+        LocalDateTime hotPartitionStart = LocalDate.now().withDayOfMonth(1).atStartOfDay();
+        List<ChatMessageDto> messages = new ArrayList<>(
+                messageRepository.findLatestDtosSince(channel, community, hotPartitionStart, Limit.of(limit)));
+        if (messages.size() < limit) {
+            if (messages.isEmpty()) {
+                messages.addAll(messageRepository.findLatestDtos(channel, community, Limit.of(limit)));
+            } else {
+                ChatMessageDto oldest = messages.get(messages.size() - 1);
+                messages.addAll(messageRepository.findBeforeDtos(channel, community, oldest.getCreatedAt(),
+                        oldest.getId(), Limit.of(limit - messages.size())));
+            }
+            appendArchived(channel, community, null, messages, limit);
+        }
+        return messages;
+    }
+
+    /**
+     * Returns up to {@code limit} messages older than the cursor, newest first, continuing
+     * into archived partitions when the database has no older rows.
+     */
+    @Transactional(readOnly = true)
+    public List<ChatMessageDto> getChannelMessagesBefore(UUID channelId, Community community,
+                                                         MessageCursor cursor, int limit) {
+        Channel channel = new Channel();
+        channel.setId(channelId);
+        channel.setCommunity(community);
+        List<ChatMessageDto> messages = new ArrayList<>(messageRepository.findBeforeDtos(channel, community,
+                cursor.getCreatedAt(), cursor.getId(), Limit.of(limit)));
+        appendArchived(channel, community, cursor, messages, limit);
+        return messages;
+    }
+
+    // Continues a newest-first page in the archived segments once the database has no older rows
+    private void appendArchived(Channel channel, Community community, MessageCursor cursor,
+                                List<ChatMessageDto> messages, int limit) {
+        if (messages.size() >= limit) {
+            return;
+        }
+        if (!messages.isEmpty()) {
+            ChatMessageDto oldest = messages.get(messages.size() - 1);
+            cursor = new MessageCursor(oldest.getCreatedAt(), oldest.getId());
+        }
+        messages.addAll(messageArchiveStore.readBefore(channel.getId(), community.getId(), cursor,
+                limit - messages.size()));
+    }
+
+    /**
+     * Returns up to {@code limit} messages newer than the cursor, newest first.
+     */
+    @Transactional(readOnly = true)
+    public List<ChatMessageDto> getChannelMessagesAfter(UUID channelId, Community community,
+                                                        MessageCursor cursor, int limit) {
+        Channel channel = new Channel();
+        channel.setId(channelId);
+        channel.setCommunity(community);
+        List<ChatMessageDto> messages = messageRepository.findAfterDtos(channel, community, cursor.getCreatedAt(),
+                cursor.getId(), Limit.of(limit));
+        Collections.reverse(messages);
+        return messages;
+    }
+
+    /**
+     * Returns up to {@code limit} messages with a sequence number above {@code seq}, newest first.
+     */
+    @Transactional(readOnly = true)
+    public List<ChatMessageDto> getChannelMessagesAfterSeq(UUID channelId, Community community, long seq, int limit) {
+        Channel channel = new Channel();
+        channel.setId(channelId);
+        channel.setCommunity(community);
+        List<ChatMessageDto> messages = messageRepository.findAfterSeqDtos(channel, community, seq, Limit.of(limit));
+        Collections.reverse(messages);
+        return messages;
+    }
+
+    /**
+     * Returns up to {@code limit} messages newer than the cursor, oldest first.
+     */
+    @Transactional(readOnly = true)
+    public List<ChatMessageDto> getMissedMessages(UUID channelId, Community community,
+                                                  MessageCursor cursor, int limit) {
         Channel channel = new Channel();
         channel.setId(channelId);
         channel.setCommunity(community);
-        return messageRepository.findTop50ByChannelAndCommunityOrderByCreatedAtDesc(channel, community);
+        return messageRepository.findAfterDtos(channel, community, cursor.getCreatedAt(), cursor.getId(),
+                Limit.of(limit));
+    }
+
+    /**
+     * Full-text search over the channels of a community the user can read, or over one
+     * channel when {@code channelId} is set. Returns up to {@code limit} matches older than
+     * the cursor (all matches when it is null), newest first.
+     */
+    @Transactional(readOnly = true)
+    public List<ChatMessageDto> searchMessages(UUID communityId, UUID channelId, User user, String query,
+                                               MessageCursor before, int limit) {
+        MessageCursor cursor = before != null ? before : SEARCH_START;
+        List<MessageSearchRow> rows = channelId != null
+                ? messageRepository.searchInChannel(communityId, channelId, user.getId(), query,
+                        cursor.getCreatedAt(), cursor.getId(), limit)
+                : messageRepository.searchInCommunity(communityId, user.getId(), query,
+                        cursor.getCreatedAt(), cursor.getId(), limit);
+        return rows.stream().map(MessageSearchRow::toDto).toList();
     }
 
     // Legacy method without community
@@ -88,7 +224,9 @@ public class MessageService {
         message.setContent(newContent);
         message.setEdited(true);
 
-        return messageRepository.save(message);
+        Message saved = messageRepository.save(message);
+        invalidateRecent(message.getChannel().getId());
+        return saved;
     }
 
     @Transactional
@@ -101,5 +239,27 @@ public class MessageService {
         }
 
         messageRepository.delete(message);
+        invalidateRecent(message.getChannel().getId());
+    }
+
+    // Invalidate now, and again after commit in case a concurrent reader re-cached the old rows.
+    // Other nodes of a cluster are told once the change is visible to their readers.
+    private void invalidateRecent(UUID channelId) {
+        recentMessageCache.invalidate(channelId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recentMessageCache.invalidate(channelId);
+                    publishRecentInvalidation(channelId);
+                }
+            });
+        } else {
+            publishRecentInvalidation(channelId);
+        }
+    }
+
+    private void publishRecentInvalidation(UUID channelId) {
+        redisBrokerRelay.ifAvailable(relay -> relay.publishInvalidation(RedisBrokerRelay.RECENT_MESSAGES, channelId));
     }
 }
@@ -0,0 +1,293 @@
+package com.lazycord.service;
+
+import com.lazycord.model.Channel;
+import com.lazycord.model.Community;
+import com.lazycord.model.Message;
+import com.lazycord.model.User;
+import com.lazycord.model.UuidV7Generator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Optional write-behind persistence for chat messages.
+ *
+ * When enabled, messages get their id and timestamp up front so they can be broadcast
+ * immediately, and a single writer thread inserts them in JDBC batches every
+ * {@code flush-interval-ms} or {@code batch-size} messages, whichever comes first.
+ * The queue is bounded: producers wait up to {@code offer-timeout-ms} and are then
+ * rejected. Pending messages are flushed on shutdown.
+ *
+ * The channel sequence number is assigned at submit time, so the broadcast already
+ * carries it. Numbers come from blocks of {@code seq-block-size} that each node reserves
+ * per channel in one short transaction, so sending stays off the channel row. Within a
+ * node a channel's numbers increase in submit order; across nodes they follow the order
+ * of the blocks, not of the sends. A message that is later rejected or fails to insert,
+ * and the unused rest of a block at shutdown, leave gaps in the channel's sequence.
+ *
+ * Producers check {@code running} and enqueue under the read side of a lock whose write
+ * side {@link #stop()} takes to shut down, so nothing is queued after the final drain.
+ *
+ * A queued message is already in the {@link RecentMessageCache}, so its channel is marked
+ * as having a pending write until the insert is done, which keeps readers from priming
+ * the cache with a database page that misses it. A message that fails to insert drops
+ * its channel from the cache.
+ */
+@Service
+@Slf4j
+public class MessageWriteBehindService {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO messages (id, content, type, sender_id, channel_id, community_id, " +
+            "attachment_url, edited, created_at, updated_at, seq) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MessageSequenceService messageSequenceService;
+    private final RecentMessageCache recentMessageCache;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long offerTimeoutMs;
+    private final int seqBlockSize;
+    private final BlockingQueue<Message> queue;
+    private final Map<UUID, SeqBlock> seqBlocks = new ConcurrentHashMap<>();
+
+    private final Counter persisted;
+    private final Counter failed;
+    private final Counter rejected;
+    private final Timer flushTimer;
+
+    private final ReadWriteLock lifecycleLock = new ReentrantReadWriteLock();
+    private volatile boolean running;
+    private Thread writer;
+
+    public MessageWriteBehindService(
+            JdbcTemplate jdbcTemplate,
+            MessageSequenceService messageSequenceService,
+            RecentMessageCache recentMessageCache,
+            MeterRegistry meterRegistry,
+            @Value("${app.chat.write-behind.enabled:false}") boolean enabled,
+            @Value("${app.chat.write-behind.batch-size:500}") int batchSize,
+            @Value("${app.chat.write-behind.flush-interval-ms:50}") long flushIntervalMs,
+            @Value("${app.chat.write-behind.queue-capacity:20000}") int queueCapacity,
+            @Value("${app.chat.write-behind.offer-timeout-ms:250}") long offerTimeoutMs,
+            @Value("${app.chat.write-behind.seq-block-size:100}") int seqBlockSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.messageSequenceService = messageSequenceService;
+        this.recentMessageCache = recentMessageCache;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.seqBlockSize = seqBlockSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        this.persisted = Counter.builder("chat.write_behind.persisted")
+                .description("Messages inserted by the write-behind pipeline").register(meterRegistry);
+        this.failed = Counter.builder("chat.write_behind.failed")
+                .description("Messages that could not be inserted").register(meterRegistry);
+        this.rejected = Counter.builder("chat.write_behind.rejected")
+                .description("Messages rejected because the queue stayed full").register(meterRegistry);
+        this.flushTimer = Timer.builder("chat.write_behind.flush")
+                .description("Duration of one batch insert").register(meterRegistry);
+        Gauge.builder("chat.write_behind.queue_depth", queue, BlockingQueue::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::runWriter, "message-write-behind");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Message write-behind enabled (batch size {}, flush every {} ms)", batchSize, flushIntervalMs);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Assigns id, sequence number and timestamps and queues the message for insertion.
+     * The returned message is not yet persisted.
+     */
+    public Message submit(String content, User sender, Channel channel, Community community) {
+        lifecycleLock.readLock().lock();
+        try {
+            if (!running) {
+                rejected.increment();
+                throw new RuntimeException("Not accepting messages, write-behind is stopped");
+            }
+            return enqueue(content, sender, channel, community);
+        } finally {
+            lifecycleLock.readLock().unlock();
+        }
+    }
+
+    private Message enqueue(String content, User sender, Channel channel, Community community) {
+        Message message = new Message();
+        message.setId(UuidV7Generator.generate());
+        message.setContent(content);
+        message.setSender(sender);
+        message.setChannel(channel);
+        message.setCommunity(community);
+        message.setType(Message.MessageType.TEXT);
+        LocalDateTime now = LocalDateTime.now();
+        message.setCreatedAt(now);
+        message.setUpdatedAt(now);
+        message.setSeq(nextSeq(channel.getId()));
+
+        recentMessageCache.writePending(channel.getId());
+        try {
+            if (!queue.offer(message, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                recentMessageCache.writeSettled(channel.getId());
+                rejected.increment();
+                throw new RuntimeException("Message queue is full, please retry");
+            }
+        } catch (InterruptedException e) {
+            recentMessageCache.writeSettled(channel.getId());
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while queueing message", e);
+        }
+        return message;
+    }
+
+    // Only the first message of each block waits for the database
+    private long nextSeq(UUID channelId) {
+        SeqBlock block = seqBlocks.computeIfAbsent(channelId, id -> new SeqBlock());
+        synchronized (block) {
+            if (block.next > block.last) {
+                block.next = messageSequenceService.reserve(channelId, seqBlockSize);
+                block.last = block.next + seqBlockSize - 1;
+            }
+            return block.next++;
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        // Waits for producers that already passed the running check to finish enqueueing
+        lifecycleLock.writeLock().lock();
+        try {
+            if (!running) {
+                return;
+            }
+            running = false;
+        } finally {
+            lifecycleLock.writeLock().unlock();
+        }
+        writer.interrupt();
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Anything still queued after the writer exited is flushed on this thread
+        drainAndFlush();
+        log.info("Message write-behind stopped");
+    }
+
+    private void runWriter() {
+        List<Message> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Message first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Message next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                // Shutdown requested; flush what we already took off the queue
+            }
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    private void drainAndFlush() {
+        List<Message> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    void flush(List<Message> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            flushTimer.record(() -> jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, m) -> {
+                ps.setObject(1, m.getId());
+                ps.setString(2, m.getContent());
+                ps.setString(3, m.getType().name());
+                ps.setObject(4, m.getSender().getId());
+                ps.setObject(5, m.getChannel().getId());
+                ps.setObject(6, m.getCommunity() != null ? m.getCommunity().getId() : null);
+                ps.setString(7, m.getAttachmentUrl());
+                ps.setBoolean(8, Boolean.TRUE.equals(m.getEdited()));
+                ps.setTimestamp(9, Timestamp.valueOf(m.getCreatedAt()));
+                ps.setTimestamp(10, Timestamp.valueOf(m.getUpdatedAt()));
+                ps.setLong(11, m.getSeq());
+            }));
+            persisted.increment(batch.size());
+        } catch (Exception e) {
+            log.warn("Batch insert of {} messages failed, retrying one by one: {}", batch.size(), e.getMessage());
+            batch.forEach(this::insertSingle);
+        }
+        batch.forEach(m -> recentMessageCache.writeSettled(m.getChannel().getId()));
+    }
+
+    // Isolates the offending rows (e.g. a channel deleted meanwhile) so one bad row does not drop the batch
+    private void insertSingle(Message m) {
+        try {
+            jdbcTemplate.update(INSERT_SQL, m.getId(), m.getContent(), m.getType().name(), m.getSender().getId(),
+                    m.getChannel().getId(), m.getCommunity() != null ? m.getCommunity().getId() : null,
+                    m.getAttachmentUrl(), Boolean.TRUE.equals(m.getEdited()),
+                    Timestamp.valueOf(m.getCreatedAt()), Timestamp.valueOf(m.getUpdatedAt()), m.getSeq());
+            persisted.increment();
+        } catch (Exception e) {
+            failed.increment();
+            // The message was already appended to the cache when it was queued
+            recentMessageCache.invalidate(m.getChannel().getId());
+            log.error("Dropping message {} for channel {}: {}", m.getId(), m.getChannel().getId(), e.getMessage());
+        }
+    }
+
+    private static final class SeqBlock {
+        private long next = 1;
+        private long last = 0;
+    }
+}
@@ -2,6 +2,7 @@ package com.lazycord.service;
 
 import com.lazycord.model.*;
 import com.lazycord.repository.*;
+import com.lazycord.websocket.StompSessionRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -23,6 +24,7 @@ public class ModerationService {
     private final ChannelRepository channelRepository;
     private final UserRepository userRepository;
     private final ChannelMemberRepository channelMemberRepository;
+    private final StompSessionRegistry stompSessionRegistry;
 
     // Ban operations
     @Transactional
@@ -49,6 +51,7 @@ public class ModerationService {
         channelMemberRepository.findByChannelAndUser(channel, user).ifPresent(cm -> {
             channelMemberRepository.delete(cm);
         });
+        stompSessionRegistry.revokeChannel(user.getId(), channel.getId());
 
         log.info("User {} banned from channel {} by {}", user.getUsername(), channel.getName(), bannedBy.getUsername());
     }
@@ -93,6 +96,7 @@ public class ModerationService {
         }
 
         muteRepository.save(mute);
+        stompSessionRegistry.revokeChannel(user.getId(), channel.getId());
 
         log.info("User {} muted in channel {} by {}", user.getUsername(), channel.getName(), mutedBy.getUsername());
     }
@@ -3,16 +3,21 @@ package com.lazycord.service;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.lazycord.model.Notification;
 import com.lazycord.model.User;
+import com.lazycord.model.UuidV7Generator;
 import com.lazycord.repository.NotificationRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -23,9 +28,14 @@ import java.util.UUID;
 @Slf4j
 public class NotificationService {
 
+    private static final String INSERT_SQL =
+            "INSERT INTO notifications (id, user_id, type, title, message, data_json, read, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
     private final NotificationRepository notificationRepository;
     private final SimpMessagingTemplate messagingTemplate;
     private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
 
     @Transactional
     public Notification createNotification(User user, Notification.NotificationType type, 
@@ -70,6 +80,67 @@ public class NotificationService {
         );
     }
 
+    /**
+     * Creates one mention notification per user with a single JDBC batch insert and pushes
+     * them in real time, reading all unread counts in one grouped query.
+     */
+    @Transactional
+    public void notifyMentions(Collection<User> mentionedUsers, String mentioningUsername, String channelName,
+                               String messagePreview) {
+        if (mentionedUsers.isEmpty()) {
+            return;
+        }
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("mentioningUser", mentioningUsername);
+        data.put("channelName", channelName);
+        data.put("messagePreview", messagePreview);
+        String dataJson = null;
+        try {
+            dataJson = objectMapper.writeValueAsString(data);
+        } catch (Exception e) {
+            log.error("Failed to serialize notification data", e);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Notification> notifications = new ArrayList<>(mentionedUsers.size());
+        for (User user : mentionedUsers) {
+            Notification notification = new Notification();
+            notification.setId(UuidV7Generator.generate());
+            notification.setUser(user);
+            notification.setType(Notification.NotificationType.MENTION);
+            notification.setTitle("New Mention");
+            notification.setMessage(mentioningUsername + " mentioned you in #" + channelName);
+            notification.setData(dataJson);
+            notification.setCreatedAt(now);
+            notifications.add(notification);
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, notifications, notifications.size(), (ps, n) -> {
+            ps.setObject(1, n.getId());
+            ps.setObject(2, n.getUser().getId());
+            ps.setString(3, n.getType().name());
+            ps.setString(4, n.getTitle());
+            ps.setString(5, n.getMessage());
+            ps.setString(6, n.getData());
+            ps.setBoolean(7, false);
+            ps.setTimestamp(8, Timestamp.valueOf(n.getCreatedAt()));
+        });
+
+        Map<UUID, Long> unreadCounts = new HashMap<>();
+        for (Object[] row : notificationRepository.countUnreadByUserIds(
+                notifications.stream().map(n -> n.getUser().getId()).toList())) {
+            unreadCounts.put((UUID) row[0], (Long) row[1]);
+        }
+        for (Notification notification : notifications) {
+            User user = notification.getUser();
+            sendRealtimeNotification(user.getUsername(), notification, unreadCounts.getOrDefault(user.getId(), 1L));
+        }
+
+        log.info("Created {} mention notifications from {} in #{}", notifications.size(), mentioningUsername,
+                channelName);
+    }
+
     @Transactional
     public void notifyNewMessage(User user, String channelName, String senderName) {
         Map<String, Object> data = new HashMap<>();
@@ -117,6 +188,10 @@ public class NotificationService {
     }
 
     private void sendRealtimeNotification(User user, Notification notification) {
+        sendRealtimeNotification(user.getUsername(), notification, getUnreadCount(user));
+    }
+
+    private void sendRealtimeNotification(String username, Notification notification, long unreadCount) {
         try {
             Map<String, Object> payload = new HashMap<>();
             payload.put("id", notification.getId());
@@ -128,15 +203,14 @@ public class NotificationService {
             payload.put("read", notification.isRead());
             
             messagingTemplate.convertAndSendToUser(
-                user.getUsername(),
+                username,
                 "/queue/notifications",
                 payload
             );
             
             // Also send unread count
-            long unreadCount = getUnreadCount(user);
             messagingTemplate.convertAndSendToUser(
-                user.getUsername(),
+                username,
                 "/queue/notifications/count",
                 Map.of("count", unreadCount)
             );
@@ -0,0 +1,327 @@
+package com.lazycord.service;
+
+import com.lazycord.dto.ChatMessageDto;
+import com.lazycord.dto.MessageCursor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Node-local ring buffer of the most recent messages per channel.
+ *
+ * A channel is only cached once it has been primed from the database, so a cached
+ * buffer always holds the true newest messages. Writes append, edits and deletes drop
+ * the channel, and whole channels are evicted least-recently-used first once the
+ * estimated footprint exceeds the global cap.
+ *
+ * With write-behind, a message is appended before it is in the database. Such channels
+ * are marked with {@link #writePending} until the insert committed, and are not primed
+ * meanwhile, since a database read would miss the queued message.
+ */
+@Component
+@Slf4j
+public class RecentMessageCache {
+
+    private static final int STAMP_STRIPES = 1024;
+    private static final long ENTRY_OVERHEAD_BYTES = 200;
+
+    private final Map<UUID, ChannelBuffer> buffers = new ConcurrentHashMap<>();
+    private final AtomicLongArray writeStamps = new AtomicLongArray(STAMP_STRIPES);
+    private final AtomicIntegerArray pendingWrites = new AtomicIntegerArray(STAMP_STRIPES);
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final int capacity;
+    private final long maxBytes;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public RecentMessageCache(
+            MeterRegistry meterRegistry,
+            @Value("${app.chat.recent-cache.messages-per-channel:50}") int capacity,
+            @Value("${app.chat.recent-cache.max-bytes:67108864}") long maxBytes) {
+        this.capacity = capacity;
+        this.maxBytes = maxBytes;
+        this.hits = Counter.builder("chat.recent_cache.requests").tag("result", "hit")
+                .description("Channel history reads served from memory").register(meterRegistry);
+        this.misses = Counter.builder("chat.recent_cache.requests").tag("result", "miss")
+                .description("Channel history reads that went to the database").register(meterRegistry);
+        this.evictions = Counter.builder("chat.recent_cache.evictions")
+                .description("Channels evicted to stay under the memory cap").register(meterRegistry);
+        Gauge.builder("chat.recent_cache.channels", buffers, Map::size).register(meterRegistry);
+        Gauge.builder("chat.recent_cache.bytes", totalBytes, AtomicLong::get).baseUnit("bytes").register(meterRegistry);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the newest {@code limit} messages (newest first) if the channel is cached
+     * for the given community and holds enough history to answer the request.
+     */
+    public Optional<List<ChatMessageDto>> get(UUID channelId, UUID communityId, int limit) {
+        ChannelBuffer buffer = buffers.get(channelId);
+        if (buffer != null && limit <= capacity && buffer.communityId.equals(communityId)) {
+            List<ChatMessageDto> messages = buffer.newest(limit);
+            if (messages != null) {
+                hits.increment();
+                return Optional.of(messages);
+            }
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    /**
+     * Returns the messages newer than the cursor (oldest first) if the cached buffer
+     * reaches back far enough to be sure nothing in between is missing.
+     */
+    public Optional<List<ChatMessageDto>> after(UUID channelId, UUID communityId, MessageCursor cursor) {
+        ChannelBuffer buffer = buffers.get(channelId);
+        if (buffer != null && buffer.communityId.equals(communityId)) {
+            List<ChatMessageDto> messages = buffer.after(cursor);
+            if (messages != null) {
+                hits.increment();
+                return Optional.of(messages);
+            }
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    /**
+     * Token to pass to {@link #prime} so a load that raced with a write is discarded.
+     */
+    public long stamp(UUID channelId) {
+        return writeStamps.get(stripe(channelId));
+    }
+
+    /**
+     * Seeds a channel with messages loaded from the database (newest first).
+     */
+    public void prime(UUID channelId, UUID communityId, List<ChatMessageDto> newestFirst, long stamp) {
+        int stripe = stripe(channelId);
+        if (writeStamps.get(stripe) != stamp || pendingWrites.get(stripe) > 0 || buffers.containsKey(channelId)) {
+            return;
+        }
+        ChannelBuffer buffer = new ChannelBuffer(communityId, capacity, newestFirst.size() < capacity);
+        for (int i = Math.min(newestFirst.size(), capacity) - 1; i >= 0; i--) {
+            buffer.add(newestFirst.get(i));
+        }
+        if (buffers.putIfAbsent(channelId, buffer) == null) {
+            totalBytes.addAndGet(buffer.attach());
+            evictIfNeeded();
+        }
+    }
+
+    /**
+     * Appends a freshly persisted message to its channel, if the channel is cached.
+     * A reader may already have primed the channel from a snapshot that includes the
+     * message, so ids already in the buffer are skipped.
+     */
+    public void append(ChatMessageDto message) {
+        UUID channelId = message.getChannelId();
+        writeStamps.incrementAndGet(stripe(channelId));
+        ChannelBuffer buffer = buffers.get(channelId);
+        if (buffer != null) {
+            totalBytes.addAndGet(buffer.addIfAbsent(message));
+            evictIfNeeded();
+        }
+    }
+
+    /**
+     * Marks a message of the channel as queued but not yet in the database; priming
+     * the channel is skipped until {@link #writeSettled} is called for it.
+     */
+    public void writePending(UUID channelId) {
+        pendingWrites.incrementAndGet(stripe(channelId));
+    }
+
+    /**
+     * Ends a {@link #writePending} once the insert committed or failed. Loads started
+     * before this point are discarded, since they may predate the insert.
+     */
+    public void writeSettled(UUID channelId) {
+        int stripe = stripe(channelId);
+        writeStamps.incrementAndGet(stripe);
+        pendingWrites.decrementAndGet(stripe);
+    }
+
+    /**
+     * Drops a channel after one of its messages was edited or deleted.
+     */
+    public void invalidate(UUID channelId) {
+        writeStamps.incrementAndGet(stripe(channelId));
+        ChannelBuffer buffer = buffers.remove(channelId);
+        if (buffer != null) {
+            totalBytes.addAndGet(-buffer.detach());
+        }
+    }
+
+    private void evictIfNeeded() {
+        if (totalBytes.get() <= maxBytes || !evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            long target = maxBytes - maxBytes / 10;
+            List<Map.Entry<UUID, ChannelBuffer>> entries = new ArrayList<>(buffers.entrySet());
+            entries.sort(Comparator.comparingLong(e -> e.getValue().lastAccess));
+            for (Map.Entry<UUID, ChannelBuffer> entry : entries) {
+                if (totalBytes.get() <= target) {
+                    break;
+                }
+                if (buffers.remove(entry.getKey(), entry.getValue())) {
+                    totalBytes.addAndGet(-entry.getValue().detach());
+                    evictions.increment();
+                }
+            }
+            log.debug("Recent message cache evicted down to {} bytes", totalBytes.get());
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private static int stripe(UUID channelId) {
+        return (channelId.hashCode() & 0x7fffffff) % STAMP_STRIPES;
+    }
+
+    static long estimateSize(ChatMessageDto message) {
+        return ENTRY_OVERHEAD_BYTES + 2L * (length(message.getContent())
+                + length(message.getType())
+                + length(message.getSenderUsername())
+                + length(message.getSenderAvatarUrl())
+                + length(message.getAttachmentUrl()));
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    /**
+     * Fixed-size ring of one channel's newest messages, oldest overwritten first.
+     * Byte deltas are only reported while the buffer is attached to the cache.
+     */
+    private static final class ChannelBuffer {
+        private final UUID communityId;
+        private final ChatMessageDto[] ring;
+        private final long[] sizes;
+        private int head;
+        private int count;
+        private long bytes;
+        private boolean fullHistory;
+        private boolean attached;
+        private boolean removed;
+        private volatile long lastAccess = System.nanoTime();
+
+        ChannelBuffer(UUID communityId, int capacity, boolean fullHistory) {
+            this.communityId = communityId;
+            this.ring = new ChatMessageDto[capacity];
+            this.sizes = new long[capacity];
+            this.fullHistory = fullHistory;
+        }
+
+        synchronized long addIfAbsent(ChatMessageDto message) {
+            for (int i = 1; i <= count; i++) {
+                if (ring[(head - i + ring.length) % ring.length].getId().equals(message.getId())) {
+                    return 0;
+                }
+            }
+            return add(message);
+        }
+
+        synchronized long add(ChatMessageDto message) {
+            long size = estimateSize(message);
+            long delta = size - sizes[head];
+            if (count == ring.length) {
+                fullHistory = false;
+            } else {
+                count++;
+            }
+            ring[head] = message;
+            sizes[head] = size;
+            head = (head + 1) % ring.length;
+            bytes += delta;
+            lastAccess = System.nanoTime();
+            return attached ? delta : 0;
+        }
+
+        synchronized List<ChatMessageDto> newest(int limit) {
+            if (count < limit && !fullHistory) {
+                return null;
+            }
+            lastAccess = System.nanoTime();
+            int size = Math.min(limit, count);
+            List<ChatMessageDto> result = new ArrayList<>(size);
+            for (int i = 1; i <= size; i++) {
+                result.add(ring[(head - i + ring.length) % ring.length]);
+            }
+            return result;
+        }
+
+        synchronized List<ChatMessageDto> after(MessageCursor cursor) {
+            int oldest = (head - count + ring.length) % ring.length;
+            for (int i = 0; i < count; i++) {
+                if (ring[(oldest + i) % ring.length].getId().equals(cursor.getId())) {
+                    return slice(oldest, i + 1);
+                }
+            }
+            // Cursor message not buffered (e.g. deleted): fall back to timestamps if the buffer spans it
+            if (!fullHistory && (count == 0 || !ring[oldest].getCreatedAt().isBefore(cursor.getCreatedAt()))) {
+                return null;
+            }
+            lastAccess = System.nanoTime();
+            List<ChatMessageDto> result = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                ChatMessageDto message = ring[(oldest + i) % ring.length];
+                if (message.getCreatedAt().isAfter(cursor.getCreatedAt())) {
+                    result.add(message);
+                }
+            }
+            return result;
+        }
+
+        private List<ChatMessageDto> slice(int oldest, int from) {
+            lastAccess = System.nanoTime();
+            List<ChatMessageDto> result = new ArrayList<>(count - from);
+            for (int i = from; i < count; i++) {
+                result.add(ring[(oldest + i) % ring.length]);
+            }
+            return result;
+        }
+
+        synchronized long attach() {
+            if (removed) {
+                return 0;
+            }
+            attached = true;
+            return bytes;
+        }
+
+        synchronized long detach() {
+            removed = true;
+            if (!attached) {
+                return 0;
+            }
+            attached = false;
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.lazycord.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces {@code users.last_active} writes.
+ *
+ * Activity is recorded in memory, keeping only the latest timestamp per user, and
+ * written every {@code flush-interval-ms} with one batched UPDATE. A user making
+ * hundreds of requests between flushes costs a single row update, and never holds
+ * the row lock inside a request's transaction. The guard on the current value
+ * keeps a late flush from moving {@code last_active} backwards. Pending entries are
+ * flushed on shutdown and kept for the next attempt when a flush fails.
+ */
+@Service
+@Slf4j
+public class UserActivityTracker {
+
+    private static final String UPDATE_SQL =
+            "UPDATE users SET last_active = ? WHERE id = ? AND (last_active IS NULL OR last_active < ?)";
+
+    private final Map<UUID, LocalDateTime> pending = new ConcurrentHashMap<>();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long flushIntervalMs;
+
+    private final Counter flushed;
+    private final Timer flushTimer;
+
+    private ScheduledExecutorService scheduler;
+
+    public UserActivityTracker(
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${app.users.activity.flush-interval-ms:5000}") long flushIntervalMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.flushIntervalMs = flushIntervalMs;
+        this.flushed = Counter.builder("users.activity.flushed")
+                .description("last_active updates written").register(meterRegistry);
+        this.flushTimer = Timer.builder("users.activity.flush")
+                .description("Duration of one batched last_active update").register(meterRegistry);
+        Gauge.builder("users.activity.pending", pending, Map::size)
+                .description("Users whose activity is not written yet").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "user-activity-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        flush();
+    }
+
+    /**
+     * Marks the user as active now.
+     */
+    public void record(UUID userId) {
+        record(userId, LocalDateTime.now());
+    }
+
+    void record(UUID userId, LocalDateTime at) {
+        pending.merge(userId, at, (current, next) -> next.isAfter(current) ? next : current);
+    }
+
+    synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<UUID, LocalDateTime>> batch = new ArrayList<>(pending.size());
+        for (Map.Entry<UUID, LocalDateTime> entry : pending.entrySet()) {
+            // Only remove the value we write; a newer one recorded meanwhile stays for the next flush
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                batch.add(Map.entry(entry.getKey(), entry.getValue()));
+            }
+        }
+
+        try {
+            flushTimer.record(() -> jdbcTemplate.batchUpdate(UPDATE_SQL, batch, batch.size(), (ps, entry) -> {
+                Timestamp lastActive = Timestamp.valueOf(entry.getValue());
+                ps.setTimestamp(1, lastActive);
+                ps.setObject(2, entry.getKey());
+                ps.setTimestamp(3, lastActive);
+            }));
+            flushed.increment(batch.size());
+        } catch (RuntimeException e) {
+            log.warn("Could not write activity of {} users, retrying next flush: {}", batch.size(), e.getMessage());
+            batch.forEach(entry -> record(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    int pendingCount() {
+        return pending.size();
+    }
+}
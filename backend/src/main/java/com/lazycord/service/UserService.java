@@ -1,14 +1,24 @@
 package com.lazycord.service;
 
 import com.lazycord.dto.UserRegistrationRequest;
+import com.lazycord.dto.UserSnapshot;
 import com.lazycord.model.User;
 import com.lazycord.repository.UserRepository;
+import com.lazycord.security.JwtAuthenticationCache;
+import com.lazycord.websocket.RedisBrokerRelay;
+import com.lazycord.websocket.StompSessionRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -20,10 +30,26 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final KeycloakUserService keycloakUserService;
+    private final StompSessionRegistry stompSessionRegistry;
+    private final JwtAuthenticationCache jwtAuthenticationCache;
+    private final UserActivityTracker userActivityTracker;
+    private final UserSnapshotCache userSnapshotCache;
+    private final ObjectProvider<RedisBrokerRelay> redisBrokerRelay;
+    private final TransactionTemplate transactionTemplate;
 
-    public UserService(UserRepository userRepository, KeycloakUserService keycloakUserService) {
+    public UserService(UserRepository userRepository, KeycloakUserService keycloakUserService,
+                       StompSessionRegistry stompSessionRegistry, JwtAuthenticationCache jwtAuthenticationCache,
+                       UserActivityTracker userActivityTracker, UserSnapshotCache userSnapshotCache,
+                       ObjectProvider<RedisBrokerRelay> redisBrokerRelay,
+                       PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
         this.keycloakUserService = keycloakUserService;
+        this.stompSessionRegistry = stompSessionRegistry;
+        this.jwtAuthenticationCache = jwtAuthenticationCache;
+        this.userActivityTracker = userActivityTracker;
+        this.userSnapshotCache = userSnapshotCache;
+        this.redisBrokerRelay = redisBrokerRelay;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     @Transactional(readOnly = true)
@@ -46,6 +72,25 @@ public class UserService {
         return userRepository.findByUsername(username);
     }
 
+    /**
+     * Cached variants of the lookups above, for callers that only need to identify the
+     * user: the returned entity is a detached copy of a snapshot that may be up to the
+     * cache TTL old, and must not be modified or passed to code that saves it.
+     */
+    public Optional<User> findCachedById(UUID id) {
+        return userSnapshotCache.getById(id, () -> userRepository.findById(id)).map(UserSnapshot::toUser);
+    }
+
+    public Optional<User> findCachedByKeycloakId(String keycloakId) {
+        return userSnapshotCache.getByKeycloakId(keycloakId, () -> userRepository.findByKeycloakId(keycloakId))
+            .map(UserSnapshot::toUser);
+    }
+
+    public Optional<User> findCachedByUsername(String username) {
+        return userSnapshotCache.getByUsername(username, () -> userRepository.findByUsername(username))
+            .map(UserSnapshot::toUser);
+    }
+
     @Transactional(readOnly = true)
     public Optional<User> findByEmail(String email) {
         return userRepository.findByEmail(email);
@@ -61,7 +106,11 @@ public class UserService {
         return userRepository.existsByEmail(email);
     }
 
-    @Transactional
+    /**
+     * Registers the user in Keycloak, then stores the local row in a short transaction.
+     * No database connection is held during the Keycloak calls; if the local insert
+     * fails, the Keycloak user is deleted again.
+     */
     public User createUser(UserRegistrationRequest request) {
         // Check if user already exists locally
         if (existsByUsername(request.getUsername())) {
@@ -97,13 +146,21 @@ public class UserService {
         user.setLevel(1);
         user.setRank("Newbie");
 
-        User savedUser = userRepository.save(user);
+        User savedUser;
+        try {
+            savedUser = transactionTemplate.execute(status -> userRepository.save(user));
+        } catch (RuntimeException e) {
+            compensate("delete Keycloak user " + keycloakId, () -> keycloakUserService.deleteUser(keycloakId));
+            throw e;
+        }
         logger.info("User created: {} with ID: {}", request.getUsername(), savedUser.getId());
         
         return savedUser;
     }
 
-    @Transactional
+    /**
+     * Reads the user from the Keycloak admin API, then creates the local row if missing.
+     */
     public User syncUserWithKeycloak(String keycloakId) {
         var keycloakUser = keycloakUserService.getUserById(keycloakId);
         
@@ -117,65 +174,208 @@ public class UserService {
         String lastName = keycloakUser.has("lastName") ? keycloakUser.get("lastName").asText() : "";
 
         return userRepository.findByKeycloakId(keycloakId)
-            .orElseGet(() -> {
-                // Create new local user
-                User newUser = new User();
-                newUser.setKeycloakId(keycloakId);
-                newUser.setUsername(username);
-                newUser.setEmail(email);
-                newUser.setFirstName(firstName != null ? firstName : "");
-                newUser.setLastName(lastName != null ? lastName : "");
-                newUser.setPoints(0);
-                newUser.setXp(0);
-                newUser.setLevel(1);
-                newUser.setRank("Newbie");
-                
-                logger.info("Synced new user from Keycloak: {}", username);
-                return userRepository.save(newUser);
-            });
+            .orElseGet(() -> createLocalUser(keycloakId, username, email, firstName, lastName));
     }
 
-    @Transactional
-    public User updateUser(UUID id, User updatedUser) {
-        User existingUser = userRepository.findById(id)
+    /**
+     * Creates or refreshes the local user from the claims of an access token Keycloak
+     * just issued, without an admin API call. Falls back to the admin API when the claims
+     * cannot describe the user (no username, or no email for a user that does not exist
+     * locally yet) or are stale: no {@code iat}, or not newer than the claims last applied.
+     *
+     * Only the identity columns are written, in one conditional update, so points and XP
+     * changed meanwhile are kept and an older token never overwrites a newer one. An
+     * unchanged user is not written.
+     */
+    public User syncUserFromClaims(String keycloakId, String username, String email,
+                                   String firstName, String lastName, Instant issuedAt) {
+        if (isBlank(keycloakId)) {
+            throw new RuntimeException("Token has no subject");
+        }
+        Optional<User> existing = userRepository.findByKeycloakId(keycloakId);
+        if (isBlank(username) || (existing.isEmpty() && isBlank(email))) {
+            logger.debug("Token claims incomplete for {}, syncing through the admin API", keycloakId);
+            return syncUserWithKeycloak(keycloakId);
+        }
+        if (existing.isEmpty()) {
+            return createLocalUser(keycloakId, username, email, firstName, lastName);
+        }
+
+        User user = existing.get();
+        LocalDateTime syncedAt = issuedAt != null ? LocalDateTime.ofInstant(issuedAt, ZoneId.systemDefault()) : null;
+        if (syncedAt == null || (user.getClaimsSyncedAt() != null && !syncedAt.isAfter(user.getClaimsSyncedAt()))) {
+            logger.debug("Token claims for {} are stale, refreshing through the admin API", keycloakId);
+            return refreshFromKeycloak(user);
+        }
+        return applyIdentity(user, username, email, firstName, lastName, syncedAt);
+    }
+
+    private User refreshFromKeycloak(User user) {
+        var keycloakUser = keycloakUserService.getUserById(user.getKeycloakId());
+        if (keycloakUser == null) {
+            throw new RuntimeException("User not found in Keycloak");
+        }
+        return applyIdentity(user, keycloakUser.get("username").asText(),
+            keycloakUser.has("email") ? keycloakUser.get("email").asText() : null,
+            keycloakUser.has("firstName") ? keycloakUser.get("firstName").asText() : null,
+            keycloakUser.has("lastName") ? keycloakUser.get("lastName").asText() : null,
+            LocalDateTime.now());
+    }
+
+    private User applyIdentity(User user, String username, String email, String firstName, String lastName,
+                               LocalDateTime syncedAt) {
+        String newEmail = isBlank(email) ? null : email;
+        boolean changed = !username.equals(user.getUsername())
+            || (newEmail != null && !newEmail.equals(user.getEmail()))
+            || (firstName != null && !firstName.equals(user.getFirstName()))
+            || (lastName != null && !lastName.equals(user.getLastName()));
+        if (!changed) {
+            return user;
+        }
+
+        Integer updated = transactionTemplate.execute(status -> userRepository.updateIdentity(
+            user.getId(), username, newEmail, firstName, lastName, syncedAt));
+        if (updated == null || updated == 0) {
+            // Newer claims were applied concurrently; they win
+            return userRepository.findById(user.getId()).orElse(user);
+        }
+        User savedUser = userRepository.findById(user.getId())
             .orElseThrow(() -> new RuntimeException("User not found"));
-        
-        // Only allow updating certain fields locally
-        if (updatedUser.getAvatarUrl() != null) {
-            existingUser.setAvatarUrl(updatedUser.getAvatarUrl());
+        stompSessionRegistry.refreshUser(savedUser);
+        evictAuthentications(savedUser.getId());
+        userSnapshotCache.invalidate(savedUser.getId());
+        logger.info("Refreshed user {} from token claims", username);
+        return savedUser;
+    }
+
+    private User createLocalUser(String keycloakId, String username, String email, String firstName,
+                                 String lastName) {
+        User newUser = new User();
+        newUser.setKeycloakId(keycloakId);
+        newUser.setUsername(username);
+        newUser.setEmail(email);
+        newUser.setFirstName(firstName != null ? firstName : "");
+        newUser.setLastName(lastName != null ? lastName : "");
+        newUser.setPoints(0);
+        newUser.setXp(0);
+        newUser.setLevel(1);
+        newUser.setRank("Newbie");
+
+        try {
+            User savedUser = userRepository.save(newUser);
+            logger.info("Synced new user from Keycloak: {}", username);
+            return savedUser;
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent first login of the same user inserted the row first
+            return userRepository.findByKeycloakId(keycloakId).orElseThrow(() -> e);
         }
-        
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    // Every node caches bearer tokens, so in cluster mode the other nodes are told to drop them too
+    private void evictAuthentications(UUID userId) {
+        jwtAuthenticationCache.evictUser(userId);
+        redisBrokerRelay.ifAvailable(relay -> relay.publishInvalidation(RedisBrokerRelay.AUTHENTICATED_USERS, userId));
+    }
+
+    /**
+     * Updates the avatar and email. An email change is applied in Keycloak first, then
+     * the local row is updated in a short transaction; if that fails, the Keycloak email
+     * is reverted.
+     */
+    public User updateUser(UUID id, User updatedUser) {
+        User existingUser = findById(id)
+            .orElseThrow(() -> new RuntimeException("User not found"));
+        String previousEmail = existingUser.getEmail();
+        boolean emailChanged = updatedUser.getEmail() != null && !updatedUser.getEmail().equals(previousEmail);
+
         // Sync with Keycloak if needed
-        if (updatedUser.getEmail() != null && !updatedUser.getEmail().equals(existingUser.getEmail())) {
+        if (emailChanged) {
             keycloakUserService.updateUser(existingUser.getKeycloakId(), updatedUser.getEmail(), null, null, null);
-            existingUser.setEmail(updatedUser.getEmail());
         }
 
-        return userRepository.save(existingUser);
+        User savedUser;
+        try {
+            savedUser = transactionTemplate.execute(status -> {
+                User user = userRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("User not found"));
+
+                // Only allow updating certain fields locally
+                if (updatedUser.getAvatarUrl() != null) {
+                    user.setAvatarUrl(updatedUser.getAvatarUrl());
+                }
+                if (emailChanged) {
+                    user.setEmail(updatedUser.getEmail());
+                }
+                return userRepository.save(user);
+            });
+        } catch (RuntimeException e) {
+            if (emailChanged) {
+                compensate("restore Keycloak email of " + id, () -> keycloakUserService.updateUser(
+                    existingUser.getKeycloakId(), previousEmail, null, null, null));
+            }
+            throw e;
+        }
+
+        stompSessionRegistry.refreshUser(savedUser);
+        evictAuthentications(savedUser.getId());
+        userSnapshotCache.invalidate(savedUser.getId());
+        return savedUser;
     }
 
-    @Transactional
+    /**
+     * Disables the user in Keycloak, deletes the local row in a short transaction, then
+     * deletes the Keycloak user. If the local delete fails, the user is enabled again;
+     * if the final Keycloak delete fails, the account stays disabled there.
+     */
     public void deleteUser(UUID id) {
-        User user = userRepository.findById(id)
+        User user = findById(id)
             .orElseThrow(() -> new RuntimeException("User not found"));
-        
+        String keycloakId = user.getKeycloakId();
+
+        keycloakUserService.updateUser(keycloakId, null, null, null, false);
+        try {
+            transactionTemplate.executeWithoutResult(status -> userRepository.deleteById(id));
+        } catch (RuntimeException e) {
+            compensate("re-enable Keycloak user " + keycloakId,
+                () -> keycloakUserService.updateUser(keycloakId, null, null, null, true));
+            throw e;
+        }
+        stompSessionRegistry.evictUser(id);
+        evictAuthentications(id);
+        userSnapshotCache.invalidate(id);
+
         // Delete from Keycloak
-        keycloakUserService.deleteUser(user.getKeycloakId());
-        
-        // Delete from local database
-        userRepository.delete(user);
+        try {
+            keycloakUserService.deleteUser(keycloakId);
+        } catch (RuntimeException e) {
+            logger.warn("User {} deleted locally but not in Keycloak, where it stays disabled: {}", id, e.getMessage());
+        }
         logger.info("User deleted: {}", id);
     }
 
-    @Transactional
+    private void compensate(String action, Runnable compensation) {
+        try {
+            compensation.run();
+        } catch (RuntimeException e) {
+            logger.error("Could not {} after a failed local write: {}", action, e.getMessage());
+        }
+    }
+
+    /**
+     * Records activity in memory; {@link UserActivityTracker} writes it in batches.
+     */
     public User updateLastActive(User user) {
         user.setLastActive(LocalDateTime.now());
-        return userRepository.save(user);
+        userActivityTracker.record(user.getId());
+        return user;
     }
 
-    @Transactional
     public void updateLastActiveById(UUID id) {
-        userRepository.findById(id).ifPresent(this::updateLastActive);
+        userActivityTracker.record(id);
     }
 
     @Transactional
@@ -184,6 +384,7 @@ public class UserService {
             .orElseThrow(() -> new RuntimeException("User not found"));
         
         user.addXp(amount);
+        userSnapshotCache.invalidate(userId);
         return userRepository.save(user);
     }
 
@@ -193,6 +394,7 @@ public class UserService {
             .orElseThrow(() -> new RuntimeException("User not found"));
         
         user.addPoints(amount);
+        userSnapshotCache.invalidate(userId);
         return userRepository.save(user);
     }
 
@@ -0,0 +1,197 @@
+package com.lazycord.service;
+
+import com.lazycord.dto.UserSnapshot;
+import com.lazycord.model.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Node-local read-through cache of {@link UserSnapshot}s, looked up by id, username or
+ * keycloakId.
+ *
+ * Concurrent misses for the same key share one database load. Entries live for
+ * {@code ttl-ms}, which bounds how stale another node's changes can appear here, and
+ * are dropped oldest first beyond {@code max-entries}. Writers call {@link #invalidate}
+ * both immediately and after their transaction commits, and a load that overlapped an
+ * invalidation is returned but not stored. Unknown users are not cached.
+ */
+@Component
+@Slf4j
+public class UserSnapshotCache {
+
+    private final Map<UUID, Entry> byId = new ConcurrentHashMap<>();
+    private final Map<String, UUID> byUsername = new ConcurrentHashMap<>();
+    private final Map<String, UUID> byKeycloakId = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Optional<UserSnapshot>>> loading = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public UserSnapshotCache(
+            MeterRegistry meterRegistry,
+            @Value("${app.users.snapshot-cache.ttl-ms:60000}") long ttlMs,
+            @Value("${app.users.snapshot-cache.max-entries:50000}") int maxEntries) {
+        this.ttlNanos = ttlMs * 1_000_000;
+        this.maxEntries = maxEntries;
+        this.hits = Counter.builder("users.snapshot_cache.requests").tag("result", "hit")
+                .description("User lookups served from memory").register(meterRegistry);
+        this.misses = Counter.builder("users.snapshot_cache.requests").tag("result", "miss")
+                .description("User lookups that went to the database").register(meterRegistry);
+        this.evictions = Counter.builder("users.snapshot_cache.evictions")
+                .description("Users evicted to stay under the entry cap").register(meterRegistry);
+        Gauge.builder("users.snapshot_cache.entries", byId, Map::size).register(meterRegistry);
+    }
+
+    public Optional<UserSnapshot> getById(UUID id, Supplier<Optional<User>> loader) {
+        return get("id:" + id, id, loader);
+    }
+
+    public Optional<UserSnapshot> getByUsername(String username, Supplier<Optional<User>> loader) {
+        UUID id = byUsername.get(username);
+        Optional<UserSnapshot> cached = fresh(id).filter(snapshot -> snapshot.getUsername().equals(username));
+        return cached.isPresent() ? hit(cached) : load("username:" + username, loader);
+    }
+
+    public Optional<UserSnapshot> getByKeycloakId(String keycloakId, Supplier<Optional<User>> loader) {
+        UUID id = byKeycloakId.get(keycloakId);
+        Optional<UserSnapshot> cached = fresh(id).filter(snapshot -> snapshot.getKeycloakId().equals(keycloakId));
+        return cached.isPresent() ? hit(cached) : load("keycloak:" + keycloakId, loader);
+    }
+
+    /**
+     * Drops a user now and, inside a transaction, again after it commits, so a reload
+     * that ran before the commit cannot bring back the old values.
+     */
+    public void invalidate(UUID id) {
+        evict(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(id);
+                }
+            });
+        }
+    }
+
+    private Optional<UserSnapshot> get(String loadKey, UUID id, Supplier<Optional<User>> loader) {
+        Optional<UserSnapshot> cached = fresh(id);
+        return cached.isPresent() ? hit(cached) : load(loadKey, loader);
+    }
+
+    private Optional<UserSnapshot> hit(Optional<UserSnapshot> snapshot) {
+        hits.increment();
+        return snapshot;
+    }
+
+    private Optional<UserSnapshot> fresh(UUID id) {
+        Entry entry = id != null ? byId.get(id) : null;
+        if (entry == null || System.nanoTime() - entry.loadedAt > ttlNanos) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.snapshot);
+    }
+
+    // Single flight: the first miss for a key loads, concurrent ones wait for its result
+    private Optional<UserSnapshot> load(String loadKey, Supplier<Optional<User>> loader) {
+        misses.increment();
+        CompletableFuture<Optional<UserSnapshot>> own = new CompletableFuture<>();
+        CompletableFuture<Optional<UserSnapshot>> inFlight = loading.putIfAbsent(loadKey, own);
+        if (inFlight != null) {
+            try {
+                return inFlight.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        try {
+            long generation = invalidations.get();
+            Optional<UserSnapshot> loaded = loader.get().map(UserSnapshot::of);
+            if (invalidations.get() == generation) {
+                loaded.ifPresent(this::store);
+            }
+            own.complete(loaded);
+            return loaded;
+        } catch (RuntimeException e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(loadKey, own);
+        }
+    }
+
+    private void store(UserSnapshot snapshot) {
+        Entry previous = byId.put(snapshot.getId(), new Entry(snapshot, System.nanoTime()));
+        if (previous != null) {
+            unindex(previous.snapshot);
+        }
+        byUsername.put(snapshot.getUsername(), snapshot.getId());
+        byKeycloakId.put(snapshot.getKeycloakId(), snapshot.getId());
+        evictIfNeeded();
+    }
+
+    private void evict(UUID id) {
+        invalidations.incrementAndGet();
+        Entry entry = byId.remove(id);
+        if (entry != null) {
+            unindex(entry.snapshot);
+        }
+    }
+
+    private void unindex(UserSnapshot snapshot) {
+        byUsername.remove(snapshot.getUsername(), snapshot.getId());
+        byKeycloakId.remove(snapshot.getKeycloakId(), snapshot.getId());
+    }
+
+    private void evictIfNeeded() {
+        if (byId.size() <= maxEntries || !evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            int target = maxEntries - maxEntries / 10;
+            List<Map.Entry<UUID, Entry>> entries = new ArrayList<>(byId.entrySet());
+            entries.sort(Comparator.comparingLong(e -> e.getValue().loadedAt));
+            for (Map.Entry<UUID, Entry> entry : entries) {
+                if (byId.size() <= target) {
+                    break;
+                }
+                if (byId.remove(entry.getKey(), entry.getValue())) {
+                    unindex(entry.getValue().snapshot);
+                    evictions.increment();
+                }
+            }
+            log.debug("User snapshot cache evicted down to {} entries", byId.size());
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private record Entry(UserSnapshot snapshot, long loadedAt) {
+    }
+}
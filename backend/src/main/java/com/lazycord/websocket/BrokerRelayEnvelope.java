@@ -0,0 +1,19 @@
+package com.lazycord.websocket;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Broker message as published to the other nodes of the cluster.
+ * The payload is already serialized, so every node delivers identical frames.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BrokerRelayEnvelope {
+    private String origin;
+    private String destination;
+    private String contentType;
+    private byte[] payload;
+}
@@ -0,0 +1,165 @@
+package com.lazycord.websocket;
+
+import com.lazycord.dto.ChatMessageDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Broadcasts chat messages to {@code /topic/channel/{id}}, optionally coalescing them.
+ *
+ * When coalescing is enabled, a channel that reaches {@code rate-threshold} messages
+ * within one second switches to batching: messages are collected for {@code window-ms}
+ * and sent as a single frame carrying a JSON array. A window holding only one message
+ * is still sent as a plain object. The channel falls back to direct sends after a
+ * second below the threshold.
+ */
+@Component
+@Slf4j
+public class ChannelBroadcaster {
+
+    private static final long RATE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long IDLE_EXPIRY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final boolean enabled;
+    private final long windowMs;
+    private final int rateThreshold;
+    private final Map<UUID, ChannelState> channels = new ConcurrentHashMap<>();
+
+    private final Counter coalescedFrames;
+    private final Counter framesSaved;
+
+    private ScheduledExecutorService scheduler;
+
+    public ChannelBroadcaster(
+            SimpMessagingTemplate messagingTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${app.websocket.coalescing.enabled:false}") boolean enabled,
+            @Value("${app.websocket.coalescing.window-ms:20}") long windowMs,
+            @Value("${app.websocket.coalescing.rate-threshold:50}") int rateThreshold) {
+        this.messagingTemplate = messagingTemplate;
+        this.enabled = enabled;
+        this.windowMs = windowMs;
+        this.rateThreshold = rateThreshold;
+        this.coalescedFrames = Counter.builder("websocket.coalescing.frames")
+                .description("Frames sent carrying several chat messages").register(meterRegistry);
+        this.framesSaved = Counter.builder("websocket.coalescing.frames_saved")
+                .description("Frames not sent because messages were coalesced").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "channel-broadcast-coalescer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::expireIdleChannels, 1, 1, TimeUnit.MINUTES);
+        log.info("Broadcast coalescing enabled ({} ms window above {} msg/s)", windowMs, rateThreshold);
+    }
+
+    public void broadcast(UUID channelId, ChatMessageDto message) {
+        if (!enabled) {
+            send(channelId, message);
+            return;
+        }
+
+        ChannelState state = channels.computeIfAbsent(channelId, id -> new ChannelState());
+        synchronized (state) {
+            long now = System.nanoTime();
+            if (now - state.windowStart >= RATE_WINDOW_NANOS) {
+                state.hot = state.count >= rateThreshold;
+                state.windowStart = now;
+                state.count = 0;
+            }
+            state.count++;
+            if (state.count >= rateThreshold) {
+                state.hot = true;
+            }
+
+            // Anything already pending goes first, so a cooling channel keeps its order
+            if (state.hot || !state.pending.isEmpty()) {
+                state.pending.add(message);
+                if (!state.flushScheduled) {
+                    state.flushScheduled = true;
+                    scheduler.schedule(() -> flush(channelId, state), windowMs, TimeUnit.MILLISECONDS);
+                }
+                return;
+            }
+        }
+        send(channelId, message);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        channels.forEach(this::flush);
+    }
+
+    private void flush(UUID channelId, ChannelState state) {
+        List<ChatMessageDto> batch;
+        synchronized (state) {
+            state.flushScheduled = false;
+            if (state.pending.isEmpty()) {
+                return;
+            }
+            batch = new ArrayList<>(state.pending);
+            state.pending.clear();
+        }
+
+        try {
+            if (batch.size() == 1) {
+                send(channelId, batch.get(0));
+            } else {
+                messagingTemplate.convertAndSend("/topic/channel/" + channelId, batch);
+                coalescedFrames.increment();
+                framesSaved.increment(batch.size() - 1);
+            }
+        } catch (Exception e) {
+            log.error("Failed to broadcast {} messages to channel {}: {}", batch.size(), channelId, e.getMessage());
+        }
+    }
+
+    private void send(UUID channelId, ChatMessageDto message) {
+        messagingTemplate.convertAndSend("/topic/channel/" + channelId, message);
+    }
+
+    private void expireIdleChannels() {
+        long now = System.nanoTime();
+        channels.entrySet().removeIf(entry -> {
+            ChannelState state = entry.getValue();
+            synchronized (state) {
+                return state.pending.isEmpty() && now - state.windowStart > IDLE_EXPIRY_NANOS;
+            }
+        });
+    }
+
+    private static final class ChannelState {
+        private final List<ChatMessageDto> pending = new ArrayList<>();
+        private long windowStart = System.nanoTime();
+        private int count;
+        private boolean hot;
+        private boolean flushScheduled;
+    }
+}
@@ -0,0 +1,60 @@
+package com.lazycord.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Builds the bounded executors of the STOMP client inbound and outbound channels and
+ * publishes their saturation as {@code websocket.executor.*} metrics tagged by channel.
+ *
+ * When the queue is full the submitting transport thread runs the task itself, which
+ * slows down reading from that connection instead of dropping frames.
+ */
+public final class ChannelExecutorFactory {
+
+    private ChannelExecutorFactory() {
+    }
+
+    /**
+     * @param virtualThreads run tasks on virtual threads; the pool size then only caps concurrency
+     */
+    public static ThreadPoolTaskExecutor create(String channel, int corePoolSize, int maxPoolSize, int queueCapacity,
+                                                boolean virtualThreads, MeterRegistry meterRegistry) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("ws-" + channel + "-");
+        if (virtualThreads) {
+            executor.setThreadFactory(Thread.ofVirtual().name("ws-" + channel + "-", 0).factory());
+        }
+
+        Counter rejected = Counter.builder("websocket.executor.rejected")
+                .description("Tasks run on the caller because the queue was full")
+                .tag("channel", channel)
+                .register(meterRegistry);
+        ThreadPoolExecutor.CallerRunsPolicy callerRuns = new ThreadPoolExecutor.CallerRunsPolicy();
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            rejected.increment();
+            callerRuns.rejectedExecution(task, pool);
+        });
+
+        Gauge.builder("websocket.executor.queue_depth", executor, ThreadPoolTaskExecutor::getQueueSize)
+                .description("Tasks waiting for a thread")
+                .tag("channel", channel)
+                .register(meterRegistry);
+        Gauge.builder("websocket.executor.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .description("Threads currently running a task")
+                .tag("channel", channel)
+                .register(meterRegistry);
+        Gauge.builder("websocket.executor.pool_size", executor, ThreadPoolTaskExecutor::getPoolSize)
+                .description("Threads in the pool")
+                .tag("channel", channel)
+                .register(meterRegistry);
+        return executor;
+    }
+}
@@ -0,0 +1,275 @@
+package com.lazycord.websocket;
+
+import com.lazycord.dto.PresenceUpdateDto;
+import com.lazycord.dto.TypingUpdateDto;
+import com.lazycord.repository.CommunityMemberRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory presence and typing state. Nothing here is persisted.
+ *
+ * A user is online while at least one STOMP session is connected. Presence changes are
+ * collected every {@code presence-flush-ms} and published as one {@link PresenceUpdateDto}
+ * per community to {@code /topic/community/{id}/presence}, holding only that community's
+ * members, so clients never see users they share no community with. Typing state expires after {@code typing-ttl-ms}
+ * without a new event and is broadcast to {@code /topic/channel/{id}/typing} at most
+ * once per {@code typing-throttle-ms} per channel.
+ */
+@Component
+@Slf4j
+public class PresenceTracker {
+
+    private static final int MEMBERSHIP_CHUNK = 1000;
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final StompSessionRegistry sessionRegistry;
+    private final CommunityMemberRepository communityMemberRepository;
+    private final long presenceFlushMs;
+    private final long typingThrottleMs;
+    private final long typingTtlMs;
+
+    private final Map<String, UUID> sessionUsers = new ConcurrentHashMap<>();
+    private final Map<UUID, Integer> onlineSessions = new ConcurrentHashMap<>();
+    private final Set<UUID> presenceChanged = ConcurrentHashMap.newKeySet();
+    private final Map<UUID, ChannelTyping> typing = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    public PresenceTracker(
+            SimpMessagingTemplate messagingTemplate,
+            StompSessionRegistry sessionRegistry,
+            CommunityMemberRepository communityMemberRepository,
+            MeterRegistry meterRegistry,
+            @Value("${app.websocket.presence.presence-flush-ms:1000}") long presenceFlushMs,
+            @Value("${app.websocket.presence.typing-throttle-ms:500}") long typingThrottleMs,
+            @Value("${app.websocket.presence.typing-ttl-ms:5000}") long typingTtlMs) {
+        this.messagingTemplate = messagingTemplate;
+        this.sessionRegistry = sessionRegistry;
+        this.communityMemberRepository = communityMemberRepository;
+        this.presenceFlushMs = presenceFlushMs;
+        this.typingThrottleMs = typingThrottleMs;
+        this.typingTtlMs = typingTtlMs;
+        Gauge.builder("websocket.presence.online_users", onlineSessions, Map::size)
+                .description("Users with at least one connected session")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "presence-broadcaster");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushPresence, presenceFlushMs, presenceFlushMs, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::expireTyping, typingTtlMs / 2, typingTtlMs / 2, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        // The CONNECTED event carries the original CONNECT frame, whose session attributes hold the user snapshot
+        Message<?> connect = (Message<?>) event.getMessage().getHeaders()
+                .get(SimpMessageHeaderAccessor.CONNECT_MESSAGE_HEADER);
+        StompSessionState state = connect != null
+                ? sessionRegistry.get(SimpMessageHeaderAccessor.getSessionAttributes(connect.getHeaders()))
+                : null;
+        if (state != null && state.getUser() != null) {
+            connected(state.getSessionId(), state.getUser().getId());
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        disconnected(event.getSessionId());
+    }
+
+    void connected(String sessionId, UUID userId) {
+        if (sessionUsers.putIfAbsent(sessionId, userId) != null) {
+            return;
+        }
+        if (onlineSessions.merge(userId, 1, Integer::sum) == 1) {
+            presenceChanged.add(userId);
+        }
+    }
+
+    void disconnected(String sessionId) {
+        UUID userId = sessionUsers.remove(sessionId);
+        if (userId == null) {
+            return;
+        }
+        if (onlineSessions.computeIfPresent(userId, (id, count) -> count > 1 ? count - 1 : null) == null) {
+            presenceChanged.add(userId);
+        }
+    }
+
+    public boolean isOnline(UUID userId) {
+        return onlineSessions.containsKey(userId);
+    }
+
+    /**
+     * Snapshot of the users with a session on this node.
+     */
+    public List<UUID> onlineUserIds() {
+        return List.copyOf(onlineSessions.keySet());
+    }
+
+    public List<UUID> filterOnline(Collection<UUID> userIds) {
+        return userIds.stream().filter(this::isOnline).toList();
+    }
+
+    public void typing(UUID channelId, StompSessionUser user) {
+        ChannelTyping channel = typing.computeIfAbsent(channelId, id -> new ChannelTyping());
+        boolean started;
+        synchronized (channel) {
+            started = channel.typers.put(user.getId(),
+                    new TypingEntry(user.getUsername(), System.currentTimeMillis() + typingTtlMs)) == null;
+        }
+        // Refreshing an existing entry does not change what clients see
+        if (started) {
+            requestTypingBroadcast(channelId, channel);
+        }
+    }
+
+    public void stoppedTyping(UUID channelId, UUID userId) {
+        ChannelTyping channel = typing.get(channelId);
+        if (channel == null) {
+            return;
+        }
+        boolean removed;
+        synchronized (channel) {
+            removed = channel.typers.remove(userId) != null;
+        }
+        if (removed) {
+            requestTypingBroadcast(channelId, channel);
+        }
+    }
+
+    private void requestTypingBroadcast(UUID channelId, ChannelTyping channel) {
+        synchronized (channel) {
+            if (channel.broadcastScheduled) {
+                return;
+            }
+            channel.broadcastScheduled = true;
+            long delay = Math.max(0, channel.lastBroadcast + typingThrottleMs - System.currentTimeMillis());
+            scheduler.schedule(() -> broadcastTyping(channelId, channel), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void broadcastTyping(UUID channelId, ChannelTyping channel) {
+        List<TypingUpdateDto.Typer> typers = new ArrayList<>();
+        synchronized (channel) {
+            channel.broadcastScheduled = false;
+            channel.lastBroadcast = System.currentTimeMillis();
+            channel.typers.forEach((userId, entry) -> typers.add(new TypingUpdateDto.Typer(userId, entry.username)));
+        }
+        try {
+            messagingTemplate.convertAndSend("/topic/channel/" + channelId + "/typing",
+                    new TypingUpdateDto(channelId, typers));
+        } catch (Exception e) {
+            log.warn("Failed to broadcast typing state of channel {}: {}", channelId, e.getMessage());
+        }
+    }
+
+    private void expireTyping() {
+        long now = System.currentTimeMillis();
+        typing.forEach((channelId, channel) -> {
+            boolean expired;
+            synchronized (channel) {
+                expired = channel.typers.values().removeIf(entry -> entry.expiresAt <= now);
+                if (!expired && channel.typers.isEmpty() && !channel.broadcastScheduled
+                        && now - channel.lastBroadcast > typingTtlMs) {
+                    typing.remove(channelId, channel);
+                    return;
+                }
+            }
+            if (expired) {
+                requestTypingBroadcast(channelId, channel);
+            }
+        });
+    }
+
+    private void flushPresence() {
+        if (presenceChanged.isEmpty()) {
+            return;
+        }
+        Map<UUID, Boolean> changed = new HashMap<>();
+        for (UUID userId : List.copyOf(presenceChanged)) {
+            presenceChanged.remove(userId);
+            changed.put(userId, isOnline(userId));
+        }
+
+        Map<UUID, PresenceUpdateDto> updates = new HashMap<>();
+        List<UUID> userIds = List.copyOf(changed.keySet());
+        try {
+            for (int from = 0; from < userIds.size(); from += MEMBERSHIP_CHUNK) {
+                List<UUID> chunk = userIds.subList(from, Math.min(from + MEMBERSHIP_CHUNK, userIds.size()));
+                for (CommunityMemberRepository.Membership membership
+                        : communityMemberRepository.findActiveMemberships(chunk)) {
+                    PresenceUpdateDto update = updates.computeIfAbsent(membership.getCommunityId(),
+                            id -> new PresenceUpdateDto(new ArrayList<>(), new ArrayList<>()));
+                    UUID userId = membership.getUserId();
+                    (Boolean.TRUE.equals(changed.get(userId)) ? update.getOnline() : update.getOffline()).add(userId);
+                }
+            }
+        } catch (Exception e) {
+            // Retried on the next flush with the then-current state
+            presenceChanged.addAll(changed.keySet());
+            log.warn("Failed to resolve communities for presence update: {}", e.getMessage());
+            return;
+        }
+
+        updates.forEach((communityId, update) -> {
+            try {
+                messagingTemplate.convertAndSend("/topic/community/" + communityId + "/presence", update);
+            } catch (Exception e) {
+                log.warn("Failed to broadcast presence update of community {}: {}", communityId, e.getMessage());
+            }
+        });
+    }
+
+    private static final class ChannelTyping {
+        private final Map<UUID, TypingEntry> typers = new LinkedHashMap<>();
+        private long lastBroadcast;
+        private boolean broadcastScheduled;
+    }
+
+    private static final class TypingEntry {
+        private final String username;
+        private final long expiresAt;
+
+        private TypingEntry(String username, long expiresAt) {
+            this.username = username;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.lazycord.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lazycord.dto.ChatMessageDto;
+import com.lazycord.service.RecentMessageCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Relays broker broadcasts between backend nodes through Redis pub/sub.
+ *
+ * As a brokerChannel interceptor it publishes every server-side {@code /topic} and
+ * {@code /user} message exactly once to a shared Redis channel, while the local simple
+ * broker keeps delivering to this node's subscribers. As a Redis listener it re-injects
+ * messages from other nodes into the local brokerChannel, marked so they are not
+ * published again. Remote chat messages are also appended to this node's
+ * {@link RecentMessageCache} so cached history stays complete.
+ *
+ * The same channel carries cache invalidations: {@link #publishInvalidation} sends a
+ * cache name and key, and every other node runs the handler registered for that cache,
+ * e.g. dropping a channel from its recent cache after a message was edited or deleted.
+ */
+@Slf4j
+public class RedisBrokerRelay implements ChannelInterceptor, MessageListener {
+
+    static final String RELAYED_HEADER = "lazycordRelayed";
+    public static final String RECENT_MESSAGES = "recent-messages";
+    public static final String AUTHENTICATED_USERS = "authenticated-users";
+    public static final String CHANNEL_AUTHORIZATIONS = "channel-authorizations";
+    private static final String CHANNEL_TOPIC_PREFIX = "/topic/channel/";
+    // Not a STOMP destination, so preSend never publishes and the broker never routes these
+    private static final String INVALIDATION_PREFIX = "invalidate:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<MessageChannel> brokerChannel;
+    private final RecentMessageCache recentMessageCache;
+    private final String topic;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, Consumer<UUID>> invalidationHandlers = new ConcurrentHashMap<>();
+
+    private final Counter published;
+    private final Counter received;
+    private final Counter errors;
+
+    public RedisBrokerRelay(StringRedisTemplate redisTemplate, ObjectMapper objectMapper,
+                            ObjectProvider<MessageChannel> brokerChannel, RecentMessageCache recentMessageCache,
+                            String topic, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.brokerChannel = brokerChannel;
+        this.recentMessageCache = recentMessageCache;
+        this.topic = topic;
+        this.published = Counter.builder("websocket.relay.published")
+                .description("Broadcasts published to other nodes").register(meterRegistry);
+        this.received = Counter.builder("websocket.relay.received")
+                .description("Broadcasts received from other nodes").register(meterRegistry);
+        this.errors = Counter.builder("websocket.relay.errors")
+                .description("Broadcasts that could not be relayed").register(meterRegistry);
+        onInvalidation(RECENT_MESSAGES, recentMessageCache::invalidate);
+    }
+
+    /**
+     * Registers what this node does when another node invalidates a key of {@code cache}.
+     */
+    public void onInvalidation(String cache, Consumer<UUID> handler) {
+        invalidationHandlers.put(cache, handler);
+    }
+
+    /**
+     * Asks every other node to drop {@code key} from {@code cache}. The caller handles its own node.
+     */
+    public void publishInvalidation(String cache, UUID key) {
+        try {
+            BrokerRelayEnvelope envelope = new BrokerRelayEnvelope(nodeId, INVALIDATION_PREFIX + cache, null,
+                    key.toString().getBytes(StandardCharsets.UTF_8));
+            redisTemplate.convertAndSend(topic, objectMapper.writeValueAsString(envelope));
+            published.increment();
+        } catch (Exception e) {
+            errors.increment();
+            log.warn("Failed to relay invalidation of {} in {}: {}", key, cache, e.getMessage());
+        }
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        String destination = accessor.getDestination();
+        if (accessor.getMessageType() != SimpMessageType.MESSAGE
+                || destination == null
+                || !(destination.startsWith("/topic/") || destination.startsWith("/user/"))
+                || accessor.getHeader(RELAYED_HEADER) != null
+                || !(message.getPayload() instanceof byte[] payload)) {
+            return message;
+        }
+        // Replies to one session (e.g. @SendToUser(broadcast = false), rate limit errors) carry its id.
+        // That session is connected to this node, and elsewhere the reply would reach all the user's sessions.
+        if (destination.startsWith("/user/") && accessor.getSessionId() != null) {
+            return message;
+        }
+
+        try {
+            MimeType contentType = accessor.getContentType();
+            BrokerRelayEnvelope envelope = new BrokerRelayEnvelope(nodeId, destination,
+                    contentType != null ? contentType.toString() : null, payload);
+            redisTemplate.convertAndSend(topic, objectMapper.writeValueAsString(envelope));
+            published.increment();
+        } catch (Exception e) {
+            // Local subscribers still get the message; only remote nodes miss it
+            errors.increment();
+            log.warn("Failed to relay broadcast to {}: {}", destination, e.getMessage());
+        }
+        return message;
+    }
+
+    @Override
+    public void onMessage(org.springframework.data.redis.connection.Message message, byte[] pattern) {
+        try {
+            BrokerRelayEnvelope envelope = objectMapper.readValue(message.getBody(), BrokerRelayEnvelope.class);
+            if (nodeId.equals(envelope.getOrigin())) {
+                return;
+            }
+            if (envelope.getDestination().startsWith(INVALIDATION_PREFIX)) {
+                invalidate(envelope);
+                return;
+            }
+
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            accessor.setDestination(envelope.getDestination());
+            if (envelope.getContentType() != null) {
+                accessor.setContentType(MimeType.valueOf(envelope.getContentType()));
+            }
+            accessor.setHeader(RELAYED_HEADER, Boolean.TRUE);
+
+            brokerChannel.getObject().send(MessageBuilder.createMessage(envelope.getPayload(),
+                    accessor.getMessageHeaders()));
+            received.increment();
+            appendToRecentCache(envelope);
+        } catch (Exception e) {
+            errors.increment();
+            log.warn("Failed to deliver relayed broadcast: {}", e.getMessage());
+        }
+    }
+
+    private void invalidate(BrokerRelayEnvelope envelope) {
+        String cache = envelope.getDestination().substring(INVALIDATION_PREFIX.length());
+        Consumer<UUID> handler = invalidationHandlers.get(cache);
+        if (handler != null) {
+            handler.accept(UUID.fromString(new String(envelope.getPayload(), StandardCharsets.UTF_8)));
+            received.increment();
+        }
+    }
+
+    private void appendToRecentCache(BrokerRelayEnvelope envelope) {
+        String destination = envelope.getDestination();
+        if (!destination.startsWith(CHANNEL_TOPIC_PREFIX)
+                || destination.indexOf('/', CHANNEL_TOPIC_PREFIX.length()) >= 0) {
+            return;
+        }
+        try {
+            // Coalesced frames carry an array of messages
+            JsonNode payload = objectMapper.readTree(envelope.getPayload());
+            for (JsonNode node : payload.isArray() ? payload : List.of(payload)) {
+                ChatMessageDto message = objectMapper.treeToValue(node, ChatMessageDto.class);
+                if (message.getChannelId() != null) {
+                    recentMessageCache.append(message);
+                }
+            }
+        } catch (Exception e) {
+            log.debug("Relayed payload on {} is not a chat message: {}", destination, e.getMessage());
+        }
+    }
+
+    String getNodeId() {
+        return nodeId;
+    }
+}
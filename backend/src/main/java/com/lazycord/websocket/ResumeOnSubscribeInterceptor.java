@@ -0,0 +1,74 @@
+package com.lazycord.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lazycord.dto.ResumeRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.UUID;
+
+/**
+ * Lets a client resume a channel directly on SUBSCRIBE by adding a {@code resume-cursor}
+ * header to its {@code /topic/channel/{id}} subscription.
+ *
+ * The inbound channel is multi-threaded, so the resume is only dispatched once the broker
+ * has registered the subscription: every message broadcast after the replay snapshot
+ * then reaches the client live. The request is handed back to the inbound channel as a
+ * {@code /app/chat.resume} message and handled like an explicit resume.
+ */
+@Component
+@Slf4j
+public class ResumeOnSubscribeInterceptor implements ExecutorChannelInterceptor {
+
+    static final String RESUME_CURSOR_HEADER = "resume-cursor";
+    private static final String CHANNEL_TOPIC_PREFIX = "/topic/channel/";
+
+    private final ObjectMapper objectMapper;
+
+    public ResumeOnSubscribeInterceptor(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler,
+                                    Exception ex) {
+        if (ex != null || !(handler instanceof AbstractBrokerMessageHandler)) {
+            return;
+        }
+        StompHeaderAccessor subscribe = StompHeaderAccessor.wrap(message);
+        if (subscribe.getCommand() != StompCommand.SUBSCRIBE) {
+            return;
+        }
+        String cursor = subscribe.getFirstNativeHeader(RESUME_CURSOR_HEADER);
+        String destination = subscribe.getDestination();
+        if (cursor == null || destination == null || !destination.startsWith(CHANNEL_TOPIC_PREFIX)) {
+            return;
+        }
+
+        try {
+            UUID channelId = UUID.fromString(destination.substring(CHANNEL_TOPIC_PREFIX.length()));
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            accessor.setDestination("/app/chat.resume");
+            accessor.setSessionId(subscribe.getSessionId());
+            accessor.setSessionAttributes(subscribe.getSessionAttributes());
+            accessor.setUser(subscribe.getUser());
+            accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+            byte[] payload = objectMapper.writeValueAsBytes(new ResumeRequest(channelId, cursor));
+            channel.send(MessageBuilder.createMessage(payload, accessor.getMessageHeaders()));
+        } catch (Exception e) {
+            // Sub-destinations such as /typing, or a malformed id: nothing to resume
+            log.debug("Ignoring resume cursor on {}: {}", destination, e.getMessage());
+        }
+    }
+}
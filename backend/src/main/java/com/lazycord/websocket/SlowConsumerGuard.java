@@ -0,0 +1,174 @@
+package com.lazycord.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps one slow client from holding frames for everybody else.
+ *
+ * Outbound lag is the number of frames accepted on the clientOutboundChannel for a
+ * session that have not been written to its socket yet. Above {@code drop-threshold}
+ * non-critical frames (typing, presence, join/leave notices) are dropped; above
+ * {@code disconnect-threshold} the session is closed with a close reason asking the
+ * client to reconnect. Chat frames are never dropped, only the whole session.
+ */
+@Component
+@Slf4j
+public class SlowConsumerGuard implements ChannelInterceptor, WebSocketHandlerDecoratorFactory {
+
+    static final CloseStatus SLOW_CONSUMER_STATUS =
+            CloseStatus.SESSION_NOT_RELIABLE.withReason("Slow consumer, please reconnect");
+
+    private final int dropThreshold;
+    private final int disconnectThreshold;
+    private final List<String> nonCriticalDestinations;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Map<String, SessionLag> sessions = new ConcurrentHashMap<>();
+
+    private final Counter dropped;
+    private final Counter disconnects;
+
+    public SlowConsumerGuard(
+            MeterRegistry meterRegistry,
+            @Value("${app.websocket.slow-consumer.drop-threshold:64}") int dropThreshold,
+            @Value("${app.websocket.slow-consumer.disconnect-threshold:512}") int disconnectThreshold,
+            @Value("${app.websocket.slow-consumer.non-critical-destinations:/topic/**/typing,/topic/community/*/presence,/topic/channel/*/join,/topic/channel/*/leave}")
+            List<String> nonCriticalDestinations) {
+        this.dropThreshold = dropThreshold;
+        this.disconnectThreshold = disconnectThreshold;
+        this.nonCriticalDestinations = nonCriticalDestinations;
+        this.dropped = Counter.builder("websocket.slow_consumer.dropped")
+                .description("Non-critical frames dropped for lagging sessions").register(meterRegistry);
+        this.disconnects = Counter.builder("websocket.slow_consumer.disconnects")
+                .description("Sessions closed because their outbound lag kept growing").register(meterRegistry);
+        Gauge.builder("websocket.slow_consumer.lagging_sessions", sessions,
+                        s -> s.values().stream().filter(lag -> lag.pending.get() >= dropThreshold).count())
+                .description("Sessions above the drop threshold")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        String sessionId = accessor.getSessionId();
+        SessionLag lag = sessionId != null ? sessions.get(sessionId) : null;
+        if (lag == null) {
+            return message;
+        }
+        if (lag.closing.get()) {
+            return null;
+        }
+
+        int pending = lag.pending.get();
+        if (pending >= disconnectThreshold) {
+            disconnect(lag, pending);
+            return null;
+        }
+        if (pending >= dropThreshold && accessor.getMessageType() == SimpMessageType.MESSAGE
+                && isNonCritical(accessor.getDestination())) {
+            dropped.increment();
+            return null;
+        }
+        lag.pending.incrementAndGet();
+        return message;
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                SessionLag lag = new SessionLag(session);
+                sessions.put(session.getId(), lag);
+                super.afterConnectionEstablished(lag);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                sessions.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    int pendingFrames(String sessionId) {
+        SessionLag lag = sessions.get(sessionId);
+        return lag != null ? lag.pending.get() : 0;
+    }
+
+    private boolean isNonCritical(String destination) {
+        if (destination == null) {
+            return false;
+        }
+        for (String pattern : nonCriticalDestinations) {
+            if (pathMatcher.match(pattern, destination)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void disconnect(SessionLag lag, int pending) {
+        if (!lag.closing.compareAndSet(false, true)) {
+            return;
+        }
+        disconnects.increment();
+        log.warn("Closing slow WebSocket session {} with {} frames pending", lag.getId(), pending);
+        // Closing may block on the same congested socket, so keep it off the broadcasting thread
+        CompletableFuture.runAsync(() -> {
+            try {
+                lag.getDelegate().close(SLOW_CONSUMER_STATUS);
+            } catch (IOException e) {
+                log.debug("Failed to close slow session {}: {}", lag.getId(), e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Session seen by the STOMP handler; counts a frame as delivered once it is written.
+     */
+    private static final class SessionLag extends WebSocketSessionDecorator {
+
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicBoolean closing = new AtomicBoolean();
+
+        SessionLag(WebSocketSession session) {
+            super(session);
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            try {
+                super.sendMessage(message);
+            } finally {
+                // Frames sent by the handler directly (e.g. ERROR) were never counted
+                pending.updateAndGet(n -> Math.max(0, n - 1));
+            }
+        }
+    }
+}
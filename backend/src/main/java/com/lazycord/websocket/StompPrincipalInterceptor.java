@@ -0,0 +1,88 @@
+package com.lazycord.websocket;
+
+import com.lazycord.model.User;
+import com.lazycord.repository.CommunityMemberRepository;
+import com.lazycord.service.UserService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Resolves the local user once per STOMP session, on CONNECT, and stores the snapshot
+ * in the session attributes so message handlers do not have to look it up per frame.
+ * Also rejects SUBSCRIBE frames to {@code /topic/community/{id}/...} from non-members.
+ */
+@Component
+@Slf4j
+public class StompPrincipalInterceptor implements ChannelInterceptor {
+
+    private static final String COMMUNITY_TOPIC_PREFIX = "/topic/community/";
+
+    private final UserService userService;
+    private final StompSessionRegistry sessionRegistry;
+    private final CommunityMemberRepository communityMemberRepository;
+
+    public StompPrincipalInterceptor(UserService userService, StompSessionRegistry sessionRegistry,
+                                     CommunityMemberRepository communityMemberRepository) {
+        this.userService = userService;
+        this.sessionRegistry = sessionRegistry;
+        this.communityMemberRepository = communityMemberRepository;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor != null && accessor.getCommand() == StompCommand.SUBSCRIBE) {
+            authorizeCommunitySubscription(accessor);
+            return message;
+        }
+        if (accessor == null || accessor.getCommand() != StompCommand.CONNECT) {
+            return message;
+        }
+
+        Principal principal = accessor.getUser();
+        Map<String, Object> sessionAttributes = accessor.getSessionAttributes();
+        if (principal == null || sessionAttributes == null) {
+            return message;
+        }
+
+        try {
+            userService.findCachedByUsername(principal.getName()).ifPresent(user ->
+                    sessionRegistry.attach(sessionAttributes, accessor.getSessionId(), user));
+        } catch (Exception e) {
+            // Handlers fall back to resolving the user themselves
+            log.warn("Failed to resolve user {} on CONNECT: {}", principal.getName(), e.getMessage());
+        }
+        return message;
+    }
+
+    private void authorizeCommunitySubscription(StompHeaderAccessor accessor) {
+        String destination = accessor.getDestination();
+        if (destination == null || !destination.startsWith(COMMUNITY_TOPIC_PREFIX)) {
+            return;
+        }
+        int end = destination.indexOf('/', COMMUNITY_TOPIC_PREFIX.length());
+        UUID communityId = UUID.fromString(destination.substring(COMMUNITY_TOPIC_PREFIX.length(),
+                end >= 0 ? end : destination.length()));
+
+        StompSessionState session = sessionRegistry.get(accessor.getSessionAttributes());
+        UUID userId = session != null && session.getUser() != null ? session.getUser().getId() : null;
+        if (userId == null && accessor.getUser() != null) {
+            userId = userService.findCachedByUsername(accessor.getUser().getName())
+                    .map(User::getId)
+                    .orElse(null);
+        }
+        if (userId == null || !communityMemberRepository.existsByCommunityIdAndUserIdAndActiveTrue(communityId, userId)) {
+            throw new RuntimeException("Not a member of community " + communityId);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.lazycord.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lazycord.dto.StompErrorDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token-bucket rate limits for chat SEND frames, applied per user, per channel and per
+ * community before the frame is queued for the inbound executor.
+ *
+ * A rejected frame is dropped, counted, and answered with a {@link StompErrorDto} on the
+ * sender's {@code /user/queue/errors}. A STOMP ERROR frame would close the connection,
+ * so it is not used. Buckets that have refilled completely are swept every
+ * {@code idle-sweep-ms}, so memory tracks active keys only.
+ */
+@Component
+@Slf4j
+public class StompRateLimiter implements ChannelInterceptor {
+
+    static final String LIMITED_DESTINATION = "/app/chat.send";
+    public static final String ERROR_DESTINATION = "/queue/errors";
+
+    private final ObjectMapper objectMapper;
+    private final StompSessionRegistry sessionRegistry;
+    private final ObjectProvider<SimpMessagingTemplate> messagingTemplate;
+    private final boolean enabled;
+    private final long idleSweepNanos;
+
+    private final KeyedLimit<String> userLimit;
+    private final KeyedLimit<UUID> channelLimit;
+    private final KeyedLimit<UUID> communityLimit;
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+
+    public StompRateLimiter(
+            ObjectMapper objectMapper,
+            StompSessionRegistry sessionRegistry,
+            ObjectProvider<SimpMessagingTemplate> messagingTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${app.websocket.rate-limit.enabled:true}") boolean enabled,
+            @Value("${app.websocket.rate-limit.user-per-second:5}") double userPerSecond,
+            @Value("${app.websocket.rate-limit.user-burst:10}") int userBurst,
+            @Value("${app.websocket.rate-limit.channel-per-second:50}") double channelPerSecond,
+            @Value("${app.websocket.rate-limit.channel-burst:100}") int channelBurst,
+            @Value("${app.websocket.rate-limit.community-per-second:200}") double communityPerSecond,
+            @Value("${app.websocket.rate-limit.community-burst:400}") int communityBurst,
+            @Value("${app.websocket.rate-limit.idle-sweep-ms:60000}") long idleSweepMs) {
+        this.objectMapper = objectMapper;
+        this.sessionRegistry = sessionRegistry;
+        this.messagingTemplate = messagingTemplate;
+        this.enabled = enabled;
+        this.idleSweepNanos = TimeUnit.MILLISECONDS.toNanos(idleSweepMs);
+        this.userLimit = new KeyedLimit<>("user", userPerSecond, userBurst, meterRegistry);
+        this.channelLimit = new KeyedLimit<>("channel", channelPerSecond, channelBurst, meterRegistry);
+        this.communityLimit = new KeyedLimit<>("community", communityPerSecond, communityBurst, meterRegistry);
+        Gauge.builder("websocket.rate_limit.tracked_keys", this, StompRateLimiter::trackedKeys)
+                .description("Rate limit buckets currently held in memory")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (!enabled) {
+            return message;
+        }
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() != StompCommand.SEND
+                || !LIMITED_DESTINATION.equals(accessor.getDestination())) {
+            return message;
+        }
+
+        long now = System.nanoTime();
+        sweepIfDue(now);
+
+        Principal principal = accessor.getUser();
+        UUID channelId = readChannelId(message.getPayload());
+        StompSessionState session = sessionRegistry.get(accessor.getSessionAttributes());
+        // Channel and community are only charged once the session has been authorized for
+        // the channel, so made-up channel ids cannot drain a real channel's bucket
+        UUID communityId = session != null && channelId != null ? session.authorizedCommunity(channelId) : null;
+
+        // Checked narrowest first; a token taken before a wider limit rejects is not returned
+        long wait = principal != null ? userLimit.tryAcquire(principal.getName(), now) : 0;
+        if (wait == 0 && communityId != null) {
+            wait = channelLimit.tryAcquire(channelId, now);
+        }
+        if (wait == 0 && communityId != null) {
+            wait = communityLimit.tryAcquire(communityId, now);
+        }
+        if (wait == 0) {
+            return message;
+        }
+
+        notifyRejected(accessor, principal, wait);
+        return null;
+    }
+
+    int trackedKeys() {
+        return userLimit.buckets.size() + channelLimit.buckets.size() + communityLimit.buckets.size();
+    }
+
+    void sweep(long nowNanos) {
+        userLimit.sweep(nowNanos);
+        channelLimit.sweep(nowNanos);
+        communityLimit.sweep(nowNanos);
+    }
+
+    private void sweepIfDue(long now) {
+        long last = lastSweep.get();
+        if (now - last >= idleSweepNanos && lastSweep.compareAndSet(last, now)) {
+            sweep(now);
+        }
+    }
+
+    private UUID readChannelId(Object payload) {
+        if (!(payload instanceof byte[] bytes)) {
+            return null;
+        }
+        try {
+            String channelId = objectMapper.readTree(bytes).path("channelId").asText(null);
+            return channelId != null ? UUID.fromString(channelId) : null;
+        } catch (Exception e) {
+            // Malformed frames are rejected by the handler; only the user limit applies
+            return null;
+        }
+    }
+
+    private void notifyRejected(StompHeaderAccessor accessor, Principal principal, long waitNanos) {
+        if (principal == null) {
+            return;
+        }
+        try {
+            // Addressed to the rejected session only, not to every session of the user
+            SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            headers.setSessionId(accessor.getSessionId());
+            headers.setLeaveMutable(true);
+            StompErrorDto error = new StompErrorDto("Rate limit exceeded", accessor.getDestination(),
+                    accessor.getReceipt(), Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos)));
+            messagingTemplate.getObject().convertAndSendToUser(principal.getName(), ERROR_DESTINATION, error,
+                    headers.getMessageHeaders());
+        } catch (Exception e) {
+            log.debug("Failed to notify {} of a rate limited frame: {}", principal.getName(), e.getMessage());
+        }
+    }
+
+    private static final class KeyedLimit<K> {
+        private final double permitsPerSecond;
+        private final int burst;
+        private final Map<K, TokenBucket> buckets = new ConcurrentHashMap<>();
+        private final Counter rejected;
+
+        private KeyedLimit(String scope, double permitsPerSecond, int burst, MeterRegistry meterRegistry) {
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = burst;
+            this.rejected = Counter.builder("websocket.rate_limit.rejected")
+                    .description("Chat frames rejected by a rate limit")
+                    .tag("scope", scope)
+                    .register(meterRegistry);
+        }
+
+        private long tryAcquire(K key, long now) {
+            long wait = buckets.computeIfAbsent(key, k -> new TokenBucket(permitsPerSecond, burst, now))
+                    .tryAcquire(now);
+            if (wait > 0) {
+                rejected.increment();
+            }
+            return wait;
+        }
+
+        // A sender racing with the sweep may see a fresh bucket, which grants at most one extra burst
+        private void sweep(long now) {
+            buckets.values().removeIf(bucket -> bucket.isIdle(now));
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.lazycord.websocket;
+
+import com.lazycord.model.User;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Tracks the {@link StompSessionState} of every connected session by user, so that
+ * membership, moderation and profile changes can invalidate the cached snapshot and
+ * channel authorizations of all of that user's sessions.
+ *
+ * In cluster mode a revocation is also sent to the other nodes through the
+ * {@link RedisBrokerRelay}, which drop every channel authorization of the user's
+ * sessions there. Authorizations also expire after {@code authorization-ttl-ms}.
+ */
+@Component
+public class StompSessionRegistry {
+
+    static final String SESSION_STATE_ATTRIBUTE = "lazycord.sessionState";
+
+    private final Map<UUID, Set<StompSessionState>> sessionsByUser = new ConcurrentHashMap<>();
+    private final ObjectProvider<RedisBrokerRelay> redisBrokerRelay;
+    private final long authorizationTtlMs;
+
+    public StompSessionRegistry(
+            MeterRegistry meterRegistry,
+            ObjectProvider<RedisBrokerRelay> redisBrokerRelay,
+            @Value("${app.websocket.session.authorization-ttl-ms:60000}") long authorizationTtlMs) {
+        this.redisBrokerRelay = redisBrokerRelay;
+        this.authorizationTtlMs = authorizationTtlMs;
+        Gauge.builder("websocket.sessions.tracked", sessionsByUser,
+                        m -> m.values().stream().mapToInt(Set::size).sum())
+                .description("STOMP sessions with a cached user snapshot")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Stores the user snapshot in the session attributes, creating the session state if needed.
+     */
+    public StompSessionState attach(Map<String, Object> sessionAttributes, String sessionId, User user) {
+        StompSessionState state;
+        synchronized (sessionAttributes) {
+            state = (StompSessionState) sessionAttributes.computeIfAbsent(SESSION_STATE_ATTRIBUTE,
+                    key -> new StompSessionState(sessionId, authorizationTtlMs));
+        }
+        state.setUser(StompSessionUser.of(user));
+        sessionsByUser.computeIfAbsent(user.getId(), id -> ConcurrentHashMap.newKeySet()).add(state);
+        return state;
+    }
+
+    /**
+     * @return the session state, or {@code null} if none was attached yet
+     */
+    public StompSessionState get(Map<String, Object> sessionAttributes) {
+        return sessionAttributes != null
+                ? (StompSessionState) sessionAttributes.get(SESSION_STATE_ATTRIBUTE)
+                : null;
+    }
+
+    /**
+     * Drops the cached authorization of one channel for all sessions of the user.
+     * Applied immediately and again after commit, so a send racing with the change
+     * cannot re-cache the old state.
+     */
+    public void revokeChannel(UUID userId, UUID channelId) {
+        Runnable revoke = () -> forEachSession(userId, state -> state.revoke(channelId));
+        revoke.run();
+        afterCommit(() -> {
+            revoke.run();
+            publishRevocation(userId);
+        });
+    }
+
+    /**
+     * Drops the cached authorizations of every channel of the community for all sessions
+     * of the user, e.g. after they left the community.
+     */
+    public void revokeCommunity(UUID userId, UUID communityId) {
+        Runnable revoke = () -> forEachSession(userId, state -> state.revokeCommunity(communityId));
+        revoke.run();
+        afterCommit(() -> {
+            revoke.run();
+            publishRevocation(userId);
+        });
+    }
+
+    /**
+     * Applies a revocation published by another node. Only the user id travels, so all of
+     * the user's channel authorizations on this node are dropped and checked again.
+     */
+    public void revokeAllChannels(UUID userId) {
+        forEachSession(userId, StompSessionState::revokeAll);
+    }
+
+    /**
+     * Replaces the snapshot of all sessions of the user once the change is committed.
+     */
+    public void refreshUser(User user) {
+        StompSessionUser snapshot = StompSessionUser.of(user);
+        afterCommit(() -> forEachSession(user.getId(), state -> state.setUser(snapshot)));
+    }
+
+    /**
+     * Forgets everything cached for the user; the next frame resolves it again.
+     */
+    public void evictUser(UUID userId) {
+        afterCommit(() -> {
+            Set<StompSessionState> sessions = sessionsByUser.remove(userId);
+            if (sessions != null) {
+                sessions.forEach(StompSessionState::reset);
+            }
+        });
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        StompSessionState state = get(SimpMessageHeaderAccessor.getSessionAttributes(event.getMessage().getHeaders()));
+        if (state == null || state.getUser() == null) {
+            return;
+        }
+        sessionsByUser.computeIfPresent(state.getUser().getId(), (id, sessions) -> {
+            sessions.remove(state);
+            return sessions.isEmpty() ? null : sessions;
+        });
+    }
+
+    private void forEachSession(UUID userId, Consumer<StompSessionState> action) {
+        Set<StompSessionState> sessions = sessionsByUser.get(userId);
+        if (sessions != null) {
+            sessions.forEach(action);
+        }
+    }
+
+    private void publishRevocation(UUID userId) {
+        redisBrokerRelay.ifAvailable(relay -> relay.publishInvalidation(RedisBrokerRelay.CHANNEL_AUTHORIZATIONS, userId));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.lazycord.websocket;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-connection state kept in the STOMP session attributes: the user snapshot resolved
+ * at CONNECT and the channels this session has already been authorized to post in,
+ * mapped to their community id. An authorization is trusted for {@code authorization-ttl-ms}
+ * at most, so a revocation that never arrived is picked up by the next check.
+ */
+public class StompSessionState {
+
+    private static final int MAX_AUTHORIZED_CHANNELS = 256;
+
+    private final String sessionId;
+    private final long authorizationTtlNanos;
+    private final Map<UUID, Authorization> authorizedChannels = new ConcurrentHashMap<>();
+    private volatile StompSessionUser user;
+
+    StompSessionState(String sessionId, long authorizationTtlMs) {
+        this.sessionId = sessionId;
+        this.authorizationTtlNanos = TimeUnit.MILLISECONDS.toNanos(authorizationTtlMs);
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * @return the user snapshot, or {@code null} if it was evicted and must be resolved again
+     */
+    public StompSessionUser getUser() {
+        return user;
+    }
+
+    void setUser(StompSessionUser user) {
+        this.user = user;
+    }
+
+    /**
+     * @return the community of an already authorized channel, or {@code null} if unknown or expired
+     */
+    public UUID authorizedCommunity(UUID channelId) {
+        Authorization authorization = authorizedChannels.get(channelId);
+        if (authorization == null) {
+            return null;
+        }
+        if (System.nanoTime() - authorization.authorizedAt() > authorizationTtlNanos) {
+            authorizedChannels.remove(channelId, authorization);
+            return null;
+        }
+        return authorization.communityId();
+    }
+
+    public void authorize(UUID channelId, UUID communityId) {
+        if (authorizedChannels.size() >= MAX_AUTHORIZED_CHANNELS) {
+            authorizedChannels.clear();
+        }
+        authorizedChannels.put(channelId, new Authorization(communityId, System.nanoTime()));
+    }
+
+    void revoke(UUID channelId) {
+        authorizedChannels.remove(channelId);
+    }
+
+    void revokeCommunity(UUID communityId) {
+        authorizedChannels.values().removeIf(authorization -> authorization.communityId().equals(communityId));
+    }
+
+    void revokeAll() {
+        authorizedChannels.clear();
+    }
+
+    void reset() {
+        user = null;
+        authorizedChannels.clear();
+    }
+
+    private record Authorization(UUID communityId, long authorizedAt) {
+    }
+}
@@ -0,0 +1,29 @@
+package com.lazycord.websocket;
+
+import com.lazycord.model.User;
+import lombok.Value;
+
+import java.util.UUID;
+
+/**
+ * Immutable view of the connected user, holding only what the chat hot path needs.
+ */
+@Value
+public class StompSessionUser {
+    UUID id;
+    String username;
+    String avatarUrl;
+
+    public static StompSessionUser of(User user) {
+        return new StompSessionUser(user.getId(), user.getUsername(), user.getAvatarUrl());
+    }
+
+    /**
+     * Id-only entity reference, enough to be used as a query parameter or foreign key.
+     */
+    public User toReference() {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+}
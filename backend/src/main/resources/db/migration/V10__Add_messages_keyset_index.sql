@@ -0,0 +1,7 @@
+-- V10__Add_messages_keyset_index.sql
+-- Composite index for keyset (cursor) pagination of channel history.
+-- Matches ORDER BY created_at DESC, id DESC for "before" pages and is
+-- scanned backwards for "after" pages, so no OFFSET is ever needed.
+
+CREATE INDEX IF NOT EXISTS idx_messages_channel_community_created
+    ON messages (channel_id, community_id, created_at DESC, id DESC);
@@ -0,0 +1,24 @@
+-- V11__Add_message_channel_seq.sql
+-- Per-channel monotonic message sequence numbers.
+-- channels.last_message_seq is the counter; writers bump it with a single-row
+-- UPDATE, so only writers of the same channel ever wait on each other.
+
+ALTER TABLE channels ADD COLUMN last_message_seq BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE messages ADD COLUMN seq BIGINT;
+
+-- Number existing history in the order it was written
+UPDATE messages m
+SET seq = numbered.seq
+FROM (
+    SELECT id, ROW_NUMBER() OVER (PARTITION BY channel_id ORDER BY created_at, id) AS seq
+    FROM messages
+) numbered
+WHERE m.id = numbered.id;
+
+UPDATE channels c
+SET last_message_seq = COALESCE((SELECT MAX(seq) FROM messages m WHERE m.channel_id = c.id), 0);
+
+ALTER TABLE messages ALTER COLUMN seq SET NOT NULL;
+
+-- Serves "seq > N" range reads and guarantees a sequence number is never reused
+CREATE UNIQUE INDEX IF NOT EXISTS idx_messages_channel_seq ON messages (channel_id, seq);
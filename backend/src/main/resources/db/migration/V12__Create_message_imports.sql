@@ -0,0 +1,19 @@
+-- V12__Create_message_imports.sql
+-- Bulk history imports. records_processed counts archive records already committed,
+-- so an interrupted import resumes by skipping that many records of the same archive.
+
+CREATE TABLE message_imports (
+    id UUID PRIMARY KEY,
+    community_id UUID NOT NULL REFERENCES communities(id) ON DELETE CASCADE,
+    requested_by UUID NOT NULL REFERENCES users(id),
+    format VARCHAR(10) NOT NULL CHECK (format IN ('NDJSON', 'CSV')),
+    status VARCHAR(20) NOT NULL CHECK (status IN ('RUNNING', 'COMPLETED', 'FAILED')),
+    records_processed BIGINT NOT NULL DEFAULT 0,
+    rows_imported BIGINT NOT NULL DEFAULT 0,
+    rows_skipped BIGINT NOT NULL DEFAULT 0,
+    error TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_message_imports_community ON message_imports(community_id, created_at DESC);
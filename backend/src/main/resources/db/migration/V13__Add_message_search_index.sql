@@ -0,0 +1,13 @@
+-- V13__Add_message_search_index.sql
+-- Full-text search over message content.
+-- The 'simple' configuration lowercases and splits words without stemming or stop
+-- words, which suits multilingual chat. Adding the stored column rewrites the table.
+
+CREATE EXTENSION IF NOT EXISTS btree_gin;
+
+ALTER TABLE messages ADD COLUMN search_vector tsvector
+    GENERATED ALWAYS AS (to_tsvector('simple', coalesce(content, ''))) STORED;
+
+-- community_id leads so a community-scoped search only visits that community's postings
+CREATE INDEX IF NOT EXISTS idx_messages_search
+    ON messages USING GIN (community_id, search_vector);
@@ -0,0 +1,107 @@
+-- V14__Partition_messages_by_month.sql
+-- Moves messages to monthly range partitions on created_at.
+--
+-- The primary key has to include the partition key, so it becomes (id, created_at);
+-- ids stay unique in practice since they are UUIDs. Likewise the (channel_id, seq)
+-- index can no longer be unique across partitions. Foreign keys cannot point at a
+-- partitioned table without the partition key, so the ON DELETE actions of
+-- file_attachments and reports move into a trigger.
+--
+-- Partitions are created ahead of time by MessagePartitionService through
+-- create_messages_partition(); old ones are archived to segment files and detached.
+-- There is deliberately no DEFAULT partition: it would block creating partitions
+-- for months it already holds rows of.
+
+ALTER TABLE file_attachments DROP CONSTRAINT IF EXISTS file_attachments_message_id_fkey;
+ALTER TABLE reports DROP CONSTRAINT IF EXISTS reports_message_id_fkey;
+
+ALTER TABLE messages RENAME TO messages_unpartitioned;
+DROP TRIGGER IF EXISTS update_messages_updated_at ON messages_unpartitioned;
+
+CREATE TABLE messages (
+    id UUID NOT NULL DEFAULT gen_random_uuid(),
+    content TEXT NOT NULL,
+    type VARCHAR(20) NOT NULL DEFAULT 'TEXT' CHECK (type IN ('TEXT', 'IMAGE', 'FILE', 'SYSTEM')),
+    sender_id UUID NOT NULL REFERENCES users(id),
+    channel_id UUID NOT NULL REFERENCES channels(id) ON DELETE CASCADE,
+    community_id UUID NOT NULL REFERENCES communities(id),
+    attachment_url VARCHAR(500),
+    edited BOOLEAN NOT NULL DEFAULT false,
+    seq BIGINT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    search_vector tsvector GENERATED ALWAYS AS (to_tsvector('simple', coalesce(content, ''))) STORED,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- Creates the partition holding the month of the given date, e.g. messages_2026_01
+CREATE OR REPLACE FUNCTION create_messages_partition(month DATE)
+RETURNS TEXT AS $$
+DECLARE
+    month_start DATE := date_trunc('month', month)::DATE;
+    partition_name TEXT := 'messages_' || to_char(month_start, 'YYYY_MM');
+BEGIN
+    EXECUTE format(
+        'CREATE TABLE IF NOT EXISTS %I PARTITION OF messages FOR VALUES FROM (%L) TO (%L)',
+        partition_name, month_start, (month_start + INTERVAL '1 month')::DATE);
+    RETURN partition_name;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Partitions for all existing history and the next three months
+DO $$
+DECLARE
+    month DATE := date_trunc('month', COALESCE(
+        (SELECT MIN(created_at) FROM messages_unpartitioned), CURRENT_TIMESTAMP))::DATE;
+BEGIN
+    WHILE month <= (date_trunc('month', CURRENT_TIMESTAMP) + INTERVAL '3 months')::DATE LOOP
+        PERFORM create_messages_partition(month);
+        month := (month + INTERVAL '1 month')::DATE;
+    END LOOP;
+END $$;
+
+INSERT INTO messages (id, content, type, sender_id, channel_id, community_id, attachment_url, edited, seq,
+                      created_at, updated_at)
+SELECT id, content, type, sender_id, channel_id, community_id, attachment_url, edited, seq, created_at, updated_at
+FROM messages_unpartitioned;
+
+DROP TABLE messages_unpartitioned;
+
+-- Indexes on the parent are created on every partition, present and future.
+-- No global created_at index: month pruning replaces it.
+CREATE INDEX idx_messages_channel_community_created
+    ON messages (channel_id, community_id, created_at DESC, id DESC);
+CREATE INDEX idx_messages_channel_seq ON messages (channel_id, seq);
+CREATE INDEX idx_messages_sender_id ON messages (sender_id);
+CREATE INDEX idx_messages_id ON messages (id);
+CREATE INDEX idx_messages_search ON messages USING GIN (community_id, search_vector);
+
+CREATE TRIGGER update_messages_updated_at BEFORE UPDATE ON messages
+    FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
+
+-- Former ON DELETE CASCADE / SET NULL of the dropped foreign keys
+CREATE OR REPLACE FUNCTION messages_delete_dependents()
+RETURNS TRIGGER AS $$
+BEGIN
+    DELETE FROM file_attachments WHERE message_id = OLD.id;
+    UPDATE reports SET message_id = NULL WHERE message_id = OLD.id;
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER delete_message_dependents AFTER DELETE ON messages
+    FOR EACH ROW EXECUTE FUNCTION messages_delete_dependents();
+
+-- Archived partitions: one gzip NDJSON segment per channel and month
+CREATE TABLE message_archive_segments (
+    id UUID PRIMARY KEY,
+    channel_id UUID NOT NULL,
+    community_id UUID NOT NULL,
+    month_start DATE NOT NULL,
+    file_path VARCHAR(1000) NOT NULL,
+    row_count BIGINT NOT NULL,
+    archived_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_message_archive_segments_channel
+    ON message_archive_segments (channel_id, community_id, month_start DESC);
@@ -0,0 +1,5 @@
+-- V15__Add_message_import_heartbeat.sql
+-- Set by the run that claimed an import and refreshed on every committed chunk. A RUNNING
+-- import is only taken over by another upload once its heartbeat is stale.
+
+ALTER TABLE message_imports ADD COLUMN heartbeat_at TIMESTAMP;
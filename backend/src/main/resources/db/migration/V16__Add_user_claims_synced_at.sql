@@ -0,0 +1,5 @@
+-- V16__Add_user_claims_synced_at.sql
+-- Issue time of the access token whose claims last refreshed the user's identity columns.
+-- A login with an older token does not overwrite them.
+
+ALTER TABLE users ADD COLUMN claims_synced_at TIMESTAMP;
@@ -0,0 +1,51 @@
+package com.lazycord.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UuidV7GeneratorTest {
+
+    @Test
+    void generate_SetsVersionAndVariant() {
+        // Act
+        UUID id = UuidV7Generator.generate();
+
+        // Assert
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+    }
+
+    @Test
+    void generate_EmbedsCurrentTimestamp() {
+        // Arrange
+        long before = System.currentTimeMillis();
+
+        // Act
+        UUID id = UuidV7Generator.generate();
+
+        // Assert
+        long timestamp = id.getMostSignificantBits() >>> 16;
+        assertTrue(timestamp >= before);
+        // Counter overflow from bursts in other tests may run a few milliseconds ahead of the clock
+        assertTrue(timestamp <= System.currentTimeMillis() + 10);
+    }
+
+    @Test
+    void generate_IsStrictlyIncreasingWithinTheSameMillisecond() {
+        // Act
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(UuidV7Generator.generate());
+        }
+
+        // Assert
+        for (int i = 1; i < ids.size(); i++) {
+            assertTrue(ids.get(i).compareTo(ids.get(i - 1)) > 0, "id " + i + " is not increasing");
+        }
+    }
+}
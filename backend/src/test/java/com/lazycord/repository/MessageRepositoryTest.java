@@ -0,0 +1,230 @@
+package com.lazycord.repository;
+
+import com.lazycord.dto.ChatMessageDto;
+import com.lazycord.model.Channel;
+import com.lazycord.model.Community;
+import com.lazycord.model.Message;
+import com.lazycord.model.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the keyset and sequence range projections of MessageRepository, the channel
+ * sequence counter, and saving messages through id-only references, as the WebSocket
+ * send path does.
+ * Uses H2 in-memory database for fast test execution.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class MessageRepositoryTest {
+
+    private static final int MESSAGE_COUNT = 7;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private ChannelRepository channelRepository;
+
+    private User sender;
+    private User otherSender;
+    private Community community;
+    private Channel channel;
+
+    @BeforeEach
+    void setUp() {
+        sender = new User("kc-message-test", "messagetester", "messages@example.com", "Message", "Tester");
+        entityManager.persist(sender);
+        otherSender = new User("kc-message-test-2", "othertester", "other@example.com", "Other", "Tester");
+        entityManager.persist(otherSender);
+
+        community = new Community();
+        community.setName("Test Community");
+        community.setEmbedId(UUID.randomUUID());
+        community.setApiKey("test-api-key");
+        community.setOwner(sender);
+        entityManager.persist(community);
+
+        channel = new Channel();
+        channel.setName("general");
+        channel.setType(Channel.ChannelType.PUBLIC);
+        channel.setCommunity(community);
+        channel.setCreatedBy(sender);
+        entityManager.persist(channel);
+
+        for (int i = 0; i < MESSAGE_COUNT; i++) {
+            Message message = new Message();
+            message.setContent("message " + i);
+            message.setSender(i % 2 == 0 ? sender : otherSender);
+            message.setChannel(channel);
+            message.setCommunity(community);
+            message.setSeq(i + 1L);
+            entityManager.persist(message);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void testFindLatest_NewestFirst() {
+        // Act
+        List<ChatMessageDto> page = messageRepository.findLatestDtos(channel, community, Limit.of(3));
+
+        // Assert
+        assertEquals(3, page.size());
+        for (int i = 1; i < page.size(); i++) {
+            assertFalse(page.get(i).getCreatedAt().isAfter(page.get(i - 1).getCreatedAt()));
+        }
+    }
+
+    @Test
+    void testFindLatestDtos_LoadsPageWithSendersInOneStatement() {
+        // Arrange
+        Statistics statistics = statistics();
+        statistics.clear();
+
+        // Act
+        List<ChatMessageDto> page = messageRepository.findLatestDtos(channel, community, Limit.of(MESSAGE_COUNT));
+
+        // Assert
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(MESSAGE_COUNT, page.size());
+        Set<String> usernames = new HashSet<>();
+        page.forEach(dto -> {
+            usernames.add(dto.getSenderUsername());
+            assertEquals(channel.getId(), dto.getChannelId());
+            assertEquals("TEXT", dto.getType());
+        });
+        assertEquals(Set.of("messagetester", "othertester"), usernames);
+    }
+
+    @Test
+    void testFindBefore_WalksWholeHistoryWithoutOverlap() {
+        // Arrange
+        List<ChatMessageDto> seen = new ArrayList<>(messageRepository.findLatestDtos(channel, community, Limit.of(3)));
+
+        // Act
+        List<ChatMessageDto> page = seen;
+        while (!page.isEmpty()) {
+            ChatMessageDto oldest = page.get(page.size() - 1);
+            page = messageRepository.findBeforeDtos(channel, community, oldest.getCreatedAt(), oldest.getId(),
+                    Limit.of(3));
+            seen.addAll(page);
+        }
+
+        // Assert
+        Set<UUID> ids = new HashSet<>();
+        seen.forEach(m -> ids.add(m.getId()));
+        assertEquals(MESSAGE_COUNT, seen.size());
+        assertEquals(MESSAGE_COUNT, ids.size());
+    }
+
+    @Test
+    void testFindAfter_ReturnsNewerMessagesOldestFirst() {
+        // Arrange
+        List<ChatMessageDto> all = messageRepository.findLatestDtos(channel, community, Limit.of(MESSAGE_COUNT));
+        ChatMessageDto cursor = all.get(4);
+
+        // Act
+        List<ChatMessageDto> newer = messageRepository.findAfterDtos(channel, community, cursor.getCreatedAt(), cursor.getId(),
+                Limit.of(10));
+
+        // Assert
+        assertEquals(4, newer.size());
+        assertEquals(all.get(3).getId(), newer.get(0).getId());
+        assertEquals(all.get(0).getId(), newer.get(3).getId());
+    }
+
+    @Test
+    void testFindAfterSeq_ReturnsHigherSequenceNumbersInOrder() {
+        // Act
+        List<ChatMessageDto> newer = messageRepository.findAfterSeqDtos(channel, community, 4, Limit.of(2));
+
+        // Assert
+        assertEquals(2, newer.size());
+        assertEquals(5L, newer.get(0).getSeq());
+        assertEquals(6L, newer.get(1).getSeq());
+    }
+
+    @Test
+    void testStreamForExport_ReturnsWholeHistoryOldestFirst() {
+        // Act
+        List<ChatMessageDto> exported;
+        try (Stream<ChatMessageDto> stream = messageRepository.streamForExport(channel, community)) {
+            exported = stream.toList();
+        }
+
+        // Assert
+        assertEquals(MESSAGE_COUNT, exported.size());
+        for (int i = 1; i < exported.size(); i++) {
+            assertFalse(exported.get(i).getCreatedAt().isBefore(exported.get(i - 1).getCreatedAt()));
+        }
+        assertEquals(MESSAGE_COUNT, exported.stream().map(ChatMessageDto::getId).distinct().count());
+    }
+
+    @Test
+    void testIncrementLastMessageSeq_ReservesConsecutiveRanges() {
+        // Act
+        channelRepository.incrementLastMessageSeq(channel.getId(), 1);
+        channelRepository.incrementLastMessageSeq(channel.getId(), 3);
+        int updated = channelRepository.incrementLastMessageSeq(UUID.randomUUID(), 1);
+
+        // Assert
+        assertEquals(4L, channelRepository.findLastMessageSeq(channel.getId()).orElseThrow());
+        assertEquals(0, updated);
+    }
+
+    @Test
+    void testSave_WithIdOnlyReferences_IssuesOnlyTheInsert() {
+        // Arrange
+        User senderRef = new User();
+        senderRef.setId(sender.getId());
+        Channel channelRef = new Channel();
+        channelRef.setId(channel.getId());
+        Community communityRef = new Community();
+        communityRef.setId(community.getId());
+
+        Message message = new Message();
+        message.setContent("sent over websocket");
+        message.setSender(senderRef);
+        message.setChannel(channelRef);
+        message.setCommunity(communityRef);
+
+        Statistics statistics = statistics();
+        statistics.clear();
+
+        // Act
+        Message saved = messageRepository.saveAndFlush(message);
+
+        // Assert
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertNotNull(saved.getCreatedAt());
+        entityManager.clear();
+        assertEquals(MESSAGE_COUNT + 1, messageRepository.findLatestDtos(channel, community, Limit.of(20)).size());
+    }
+
+    private Statistics statistics() {
+        return entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+    }
+}
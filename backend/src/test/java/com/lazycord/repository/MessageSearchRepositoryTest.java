@@ -0,0 +1,197 @@
+package com.lazycord.repository;
+
+import com.lazycord.model.Channel;
+import com.lazycord.model.ChannelBan;
+import com.lazycord.model.ChannelMember;
+import com.lazycord.model.Community;
+import com.lazycord.model.Message;
+import com.lazycord.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the full-text search queries of MessageRepository: matching, the channel
+ * membership and ban filters, and the keyset cursor.
+ * The queries use tsvector, so these run against PostgreSQL with the Flyway schema and are
+ * skipped where Docker is not available.
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=none"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class MessageSearchRepositoryTest {
+
+    private static final LocalDateTime SEARCH_START = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    private static final UUID MAX_ID = new UUID(-1L, -1L);
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17-alpine");
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    private User reader;
+    private User author;
+    private Community community;
+    private Channel publicChannel;
+    private Channel privateChannel;
+    private Channel joinedChannel;
+    private Channel bannedChannel;
+
+    @BeforeEach
+    void setUp() {
+        reader = new User("kc-search-reader", "searchreader", "reader@example.com", "Search", "Reader");
+        entityManager.persist(reader);
+        author = new User("kc-search-author", "searchauthor", "author@example.com", "Search", "Author");
+        entityManager.persist(author);
+
+        community = new Community();
+        community.setName("Search Community");
+        community.setEmbedId(UUID.randomUUID());
+        community.setApiKey("search-api-key");
+        community.setOwner(author);
+        entityManager.persist(community);
+
+        publicChannel = channel("public", Channel.ChannelType.PUBLIC);
+        privateChannel = channel("private", Channel.ChannelType.PRIVATE);
+        joinedChannel = channel("joined", Channel.ChannelType.PRIVATE);
+        bannedChannel = channel("banned", Channel.ChannelType.PUBLIC);
+
+        ChannelMember member = new ChannelMember();
+        member.setChannel(joinedChannel);
+        member.setUser(reader);
+        entityManager.persist(member);
+
+        ChannelBan ban = new ChannelBan();
+        ban.setChannel(bannedChannel);
+        ban.setUser(reader);
+        ban.setBannedBy(author);
+        entityManager.persist(ban);
+
+        for (Channel channel : List.of(publicChannel, privateChannel, joinedChannel, bannedChannel)) {
+            for (int i = 0; i < 3; i++) {
+                message(channel, "release notes " + channel.getName() + " " + i);
+            }
+            message(channel, "unrelated chatter");
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void testSearchInCommunity_OnlyMatchesReadableChannels() {
+        // Act
+        List<MessageSearchRow> rows = messageRepository.searchInCommunity(community.getId(), reader.getId(),
+                "release notes", SEARCH_START, MAX_ID, 50);
+
+        // Assert
+        Set<UUID> channels = new HashSet<>();
+        rows.forEach(row -> channels.add(row.getChannelId()));
+        assertEquals(6, rows.size());
+        assertEquals(Set.of(publicChannel.getId(), joinedChannel.getId()), channels);
+        rows.forEach(row -> assertTrue(row.getContent().startsWith("release notes")));
+    }
+
+    @Test
+    void testSearchInChannel_ExpiredBanNoLongerHides() {
+        // Arrange
+        entityManager.getEntityManager()
+                .createNativeQuery("UPDATE channel_bans SET expires_at = :expired")
+                .setParameter("expired", LocalDateTime.now().minusDays(1))
+                .executeUpdate();
+
+        // Act
+        List<MessageSearchRow> rows = messageRepository.searchInChannel(community.getId(), bannedChannel.getId(),
+                reader.getId(), "release", SEARCH_START, MAX_ID, 50);
+
+        // Assert
+        assertEquals(3, rows.size());
+    }
+
+    @Test
+    void testSearchInChannel_HidesBannedAndUnjoinedChannels() {
+        // Act
+        List<MessageSearchRow> banned = messageRepository.searchInChannel(community.getId(), bannedChannel.getId(),
+                reader.getId(), "release", SEARCH_START, MAX_ID, 50);
+        List<MessageSearchRow> notJoined = messageRepository.searchInChannel(community.getId(),
+                privateChannel.getId(), reader.getId(), "release", SEARCH_START, MAX_ID, 50);
+        List<MessageSearchRow> joined = messageRepository.searchInChannel(community.getId(), joinedChannel.getId(),
+                reader.getId(), "release", SEARCH_START, MAX_ID, 50);
+
+        // Assert
+        assertTrue(banned.isEmpty());
+        assertTrue(notJoined.isEmpty());
+        assertEquals(3, joined.size());
+        joined.forEach(row -> assertEquals(joinedChannel.getId(), row.getChannelId()));
+    }
+
+    @Test
+    void testSearchInCommunity_KeysetWalksAllMatchesNewestFirstWithoutOverlap() {
+        // Arrange
+        List<MessageSearchRow> seen = new ArrayList<>();
+        LocalDateTime createdAt = SEARCH_START;
+        UUID id = MAX_ID;
+
+        // Act
+        List<MessageSearchRow> page;
+        do {
+            page = messageRepository.searchInCommunity(community.getId(), reader.getId(), "release",
+                    createdAt, id, 4);
+            seen.addAll(page);
+            if (!page.isEmpty()) {
+                MessageSearchRow oldest = page.get(page.size() - 1);
+                createdAt = oldest.getCreatedAt();
+                id = oldest.getId();
+            }
+        } while (page.size() == 4);
+
+        // Assert
+        assertEquals(6, seen.size());
+        assertEquals(6, seen.stream().map(MessageSearchRow::getId).distinct().count());
+        for (int i = 1; i < seen.size(); i++) {
+            assertFalse(seen.get(i).getCreatedAt().isAfter(seen.get(i - 1).getCreatedAt()));
+        }
+    }
+
+    private Channel channel(String name, Channel.ChannelType type) {
+        Channel channel = new Channel();
+        channel.setName(name);
+        channel.setType(type);
+        channel.setCommunity(community);
+        channel.setCreatedBy(author);
+        entityManager.persist(channel);
+        return channel;
+    }
+
+    private void message(Channel channel, String content) {
+        Message message = new Message();
+        message.setContent(content);
+        message.setSender(author);
+        message.setChannel(channel);
+        message.setCommunity(community);
+        entityManager.persist(message);
+    }
+}
@@ -0,0 +1,163 @@
+package com.lazycord.security;
+
+import com.lazycord.model.User;
+import com.lazycord.service.UserService;
+import com.lazycord.websocket.StompSessionUser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JwtAuthFilterTest {
+
+    @Mock
+    private JwtDecoder jwtDecoder;
+
+    @Mock
+    private UserService userService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private JwtAuthenticationCache cache;
+    private JwtAuthFilter filter;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new JwtAuthenticationCache(meterRegistry, 100);
+        filter = new JwtAuthFilter(jwtDecoder, userService, cache);
+        user = new User();
+        user.setId(UUID.randomUUID());
+        user.setKeycloakId("kc-1");
+        user.setUsername("alice");
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void doFilter_RepeatedTokenSkipsDecodeAndLookup() throws Exception {
+        // Arrange
+        when(jwtDecoder.decode("token-1")).thenReturn(jwt("token-1", Instant.now().plusSeconds(300)));
+        when(userService.findCachedByKeycloakId("kc-1")).thenReturn(Optional.of(user));
+
+        // Act
+        Authentication first = authenticate("token-1");
+        Authentication second = authenticate("token-1");
+
+        // Assert
+        verify(jwtDecoder, times(1)).decode("token-1");
+        verify(userService, times(1)).findCachedByKeycloakId("kc-1");
+        assertEquals("alice", second.getName());
+        assertEquals(first.getAuthorities(), second.getAuthorities());
+        assertEquals(1.0, meterRegistry.get("security.jwt_cache.requests").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void doFilter_ExpiredEntryIsVerifiedAgain() throws Exception {
+        // Arrange
+        when(jwtDecoder.decode("token-1")).thenReturn(jwt("token-1", Instant.now().minusSeconds(1)));
+        when(userService.findCachedByKeycloakId("kc-1")).thenReturn(Optional.of(user));
+
+        // Act
+        authenticate("token-1");
+        authenticate("token-1");
+
+        // Assert
+        verify(jwtDecoder, times(2)).decode("token-1");
+    }
+
+    @Test
+    void doFilter_UnknownUserIsNotCached() throws Exception {
+        // Arrange
+        when(jwtDecoder.decode("token-1")).thenReturn(jwt("token-1", Instant.now().plusSeconds(300)));
+        when(userService.findCachedByKeycloakId("kc-1")).thenReturn(Optional.empty());
+
+        // Act
+        authenticate("token-1");
+        authenticate("token-1");
+
+        // Assert
+        verify(userService, times(2)).findCachedByKeycloakId("kc-1");
+    }
+
+    @Test
+    void evictUser_ForcesFreshLookup() throws Exception {
+        // Arrange
+        when(jwtDecoder.decode("token-1")).thenReturn(jwt("token-1", Instant.now().plusSeconds(300)));
+        when(userService.findCachedByKeycloakId("kc-1")).thenReturn(Optional.of(user));
+        authenticate("token-1");
+
+        // Act
+        cache.evictUser(user.getId());
+        authenticate("token-1");
+
+        // Assert
+        verify(jwtDecoder, times(2)).decode("token-1");
+    }
+
+    @Test
+    void put_EvictsSoonestExpiringOverCap() {
+        // Arrange
+        JwtAuthenticationCache small = new JwtAuthenticationCache(meterRegistry, 10);
+        JwtAuthenticationCache.Entry soon = entry(Instant.now().plusSeconds(10));
+
+        // Act
+        small.put("soon", soon);
+        for (int i = 0; i < 10; i++) {
+            small.put("later-" + i, entry(Instant.now().plusSeconds(300)));
+        }
+
+        // Assert
+        assertNull(small.get("soon"));
+        assertNotNull(small.get("later-9"));
+        assertTrue(meterRegistry.get("security.jwt_cache.evictions").counter().count() >= 1.0);
+    }
+
+    private Authentication authenticate(String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/notifications/count");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    private static Jwt jwt(String token, Instant expiresAt) {
+        return Jwt.withTokenValue(token)
+                .header("alg", "RS256")
+                .subject("kc-1")
+                .claim("preferred_username", "alice")
+                .claim("realm_access", Map.of("roles", List.of("user")))
+                .issuedAt(expiresAt.minusSeconds(600))
+                .expiresAt(expiresAt)
+                .build();
+    }
+
+    private JwtAuthenticationCache.Entry entry(Instant expiresAt) {
+        return new JwtAuthenticationCache.Entry(
+                org.springframework.security.core.userdetails.User.withUsername("alice").password("").build(),
+                List.of(), StompSessionUser.of(user), expiresAt);
+    }
+}
@@ -26,6 +26,9 @@ class GamificationServiceTest {
     @Mock
     private RankRepository rankRepository;
 
+    @Mock
+    private UserSnapshotCache userSnapshotCache;
+
     @InjectMocks
     private GamificationService gamificationService;
 
@@ -0,0 +1,148 @@
+package com.lazycord.service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs KeycloakTokenService against a local stub of the token endpoint.
+ */
+class KeycloakTokenServiceTest {
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile int status = 200;
+    private volatile int expiresIn = 300;
+    private volatile CountDownLatch release = new CountDownLatch(0);
+
+    private KeycloakTokenService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/realms/master/protocol/openid-connect/token", exchange -> {
+            int n = requests.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = (status == 200
+                    ? "{\"access_token\":\"token-" + n + "\",\"expires_in\":" + expiresIn + "}"
+                    : "{\"error\":\"unavailable\"}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        service = new KeycloakTokenService(WebClient.builder());
+        ReflectionTestUtils.setField(service, "baseUrl", "http://localhost:" + server.getAddress().getPort());
+        ReflectionTestUtils.setField(service, "clientId", "lazycord-backend");
+        ReflectionTestUtils.setField(service, "clientSecret", "secret");
+        ReflectionTestUtils.setField(service, "requestTimeoutMs", 2000L);
+        ReflectionTestUtils.setField(service, "breakerFailureThreshold", 2);
+        ReflectionTestUtils.setField(service, "breakerOpenMs", 60_000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void getServiceAccountToken_CachesToken() {
+        // Act
+        String first = service.getServiceAccountToken();
+        String second = service.getServiceAccountToken();
+
+        // Assert
+        assertEquals("token-1", first);
+        assertEquals("token-1", second);
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void getServiceAccountToken_ConcurrentCallersShareOneRequest() throws Exception {
+        // Arrange
+        release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        List<Future<String>> results = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < 8; i++) {
+            results.add(callers.submit(service::getServiceAccountToken));
+        }
+        Thread.sleep(200);
+        release.countDown();
+
+        // Assert
+        for (Future<String> result : results) {
+            assertEquals("token-1", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, requests.get());
+        callers.shutdownNow();
+    }
+
+    @Test
+    void getServiceAccountToken_RefreshesAheadOfExpiryInBackground() throws Exception {
+        // Arrange: refreshed after 2 of 3 seconds, usable for 2.7
+        expiresIn = 3;
+        service.getServiceAccountToken();
+        Thread.sleep(2100);
+
+        // Act
+        String duringRefresh = service.getServiceAccountToken();
+        long deadline = System.currentTimeMillis() + 2000;
+        while (requests.get() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(100);
+        String afterRefresh = service.getServiceAccountToken();
+
+        // Assert
+        assertEquals("token-1", duringRefresh);
+        assertEquals("token-2", afterRefresh);
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void getServiceAccountToken_OpenCircuitFailsFast() {
+        // Arrange
+        status = 503;
+        assertNull(service.getServiceAccountToken());
+        assertNull(service.getServiceAccountToken());
+
+        // Act
+        status = 200;
+        String result = service.getServiceAccountToken();
+
+        // Assert
+        assertNull(result);
+        assertEquals(2, requests.get());
+    }
+}
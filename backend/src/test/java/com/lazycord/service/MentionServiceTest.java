@@ -0,0 +1,201 @@
+package com.lazycord.service;
+
+import com.lazycord.model.Channel;
+import com.lazycord.model.Community;
+import com.lazycord.model.Message;
+import com.lazycord.model.User;
+import com.lazycord.repository.ChannelMemberRepository;
+import com.lazycord.repository.ChannelRepository;
+import com.lazycord.repository.CommunityMemberRepository;
+import com.lazycord.repository.UserRepository;
+import com.lazycord.websocket.PresenceTracker;
+import com.lazycord.websocket.StompSessionUser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MentionServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ChannelRepository channelRepository;
+
+    @Mock
+    private CommunityMemberRepository communityMemberRepository;
+
+    @Mock
+    private ChannelMemberRepository channelMemberRepository;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private PresenceTracker presenceTracker;
+
+    private MentionService service;
+    private StompSessionUser sender;
+    private Community community;
+    private Channel channel;
+
+    @BeforeEach
+    void setUp() {
+        service = new MentionService(userRepository, channelRepository, communityMemberRepository,
+                channelMemberRepository, notificationService, presenceTracker,
+                new SimpleMeterRegistry(), 1000, 100);
+        sender = new StompSessionUser(UUID.randomUUID(), "sender", null);
+        community = new Community();
+        community.setId(UUID.randomUUID());
+        channel = new Channel();
+        channel.setId(UUID.randomUUID());
+        channel.setName("general");
+        channel.setType(Channel.ChannelType.PUBLIC);
+        channel.setCommunity(community);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stop();
+    }
+
+    @Test
+    void parse_ExtractsUsernamesAndBroadcastMentions() {
+        // Act
+        MentionParser.Mentions mentions = MentionParser.parse(
+                "@alice and @bob.smith, see mail@example.com @here. @alice again, thanks @channel!");
+
+        // Assert
+        assertEquals(Set.of("alice", "bob.smith"), mentions.usernames());
+        assertTrue(mentions.here());
+        assertTrue(mentions.channel());
+        assertTrue(MentionParser.parse("no mentions here").isEmpty());
+    }
+
+    @Test
+    void publish_ManyMentionsResolvedInOneQueryAndOneBatch() {
+        // Arrange
+        List<User> users = new ArrayList<>();
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            users.add(user("user" + i));
+            content.append("@user").append(i).append(' ');
+        }
+        when(channelRepository.findById(channel.getId())).thenReturn(Optional.of(channel));
+        when(userRepository.findCommunityMembersByUsernameIn(eq(community.getId()), anyCollection()))
+                .thenReturn(users);
+
+        // Act
+        service.publish(message(content.toString()), sender);
+
+        // Assert
+        ArgumentCaptor<Collection<User>> recipients = ArgumentCaptor.forClass(Collection.class);
+        verify(notificationService, timeout(2000)).notifyMentions(recipients.capture(), eq("sender"),
+                eq("general"), anyString());
+        assertEquals(500, recipients.getValue().size());
+        verify(userRepository, times(1)).findCommunityMembersByUsernameIn(any(), anyCollection());
+    }
+
+    @Test
+    void publish_MessageWithoutMentionsDoesNothing() {
+        // Act
+        service.publish(message("hello"), sender);
+
+        // Assert
+        verifyNoInteractions(channelRepository, userRepository, notificationService);
+    }
+
+    @Test
+    void resolveRecipients_HereOnlyAsksAboutOnlineUsersAndSkipsSender() {
+        // Arrange
+        User online = user("online");
+        User self = user("sender");
+        self.setId(sender.getId());
+        List<UUID> onlineIds = List.of(online.getId(), self.getId(), UUID.randomUUID());
+        when(presenceTracker.onlineUserIds()).thenReturn(onlineIds);
+        when(communityMemberRepository.findActiveMemberIds(community.getId(), onlineIds))
+                .thenReturn(List.of(online.getId(), self.getId()));
+        when(userRepository.findAllById(List.of(online.getId()))).thenReturn(List.of(online));
+
+        // Act
+        Collection<User> recipients = service.resolveRecipients(MentionParser.parse("@here"), channel,
+                community.getId(), sender.getId());
+
+        // Assert
+        assertEquals(Set.of("online"), recipients.stream().map(User::getUsername).collect(Collectors.toSet()));
+    }
+
+    @Test
+    void resolveRecipients_ChannelMentionCapsMembersInQuery() {
+        // Arrange
+        service.stop();
+        service = new MentionService(userRepository, channelRepository, communityMemberRepository,
+                channelMemberRepository, notificationService, presenceTracker, new SimpleMeterRegistry(), 2, 100);
+        List<User> members = List.of(user("a"), user("b"), user("c"));
+        when(communityMemberRepository.findActiveMemberIds(eq(community.getId()), any(Limit.class)))
+                .thenReturn(members.stream().map(User::getId).toList());
+        when(userRepository.findAllById(anyCollection())).thenAnswer(invocation -> {
+            Collection<UUID> ids = invocation.getArgument(0);
+            return members.stream().filter(u -> ids.contains(u.getId())).toList();
+        });
+
+        // Act
+        Collection<User> recipients = service.resolveRecipients(MentionParser.parse("@channel"), channel,
+                community.getId(), sender.getId());
+
+        // Assert
+        assertEquals(2, recipients.size());
+        verifyNoInteractions(presenceTracker);
+    }
+
+    @Test
+    void resolveRecipients_PrivateChannelOnlyResolvesMembers() {
+        // Arrange
+        channel.setType(Channel.ChannelType.PRIVATE);
+        when(userRepository.findChannelMembersByUsernameIn(eq(channel.getId()), anyCollection()))
+                .thenReturn(List.of(user("alice")));
+
+        // Act
+        Collection<User> recipients = service.resolveRecipients(MentionParser.parse("hi @alice @mallory"), channel,
+                community.getId(), sender.getId());
+
+        // Assert
+        assertEquals(1, recipients.size());
+        verify(userRepository, never()).findCommunityMembersByUsernameIn(any(), anyCollection());
+    }
+
+    private Message message(String content) {
+        Message message = new Message();
+        message.setId(UUID.randomUUID());
+        message.setContent(content);
+        message.setChannel(channel);
+        message.setCommunity(community);
+        return message;
+    }
+
+    private User user(String username) {
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        user.setUsername(username);
+        return user;
+    }
+}
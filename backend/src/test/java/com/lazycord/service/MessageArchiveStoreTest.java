@@ -0,0 +1,179 @@
+package com.lazycord.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.lazycord.dto.ChatMessageDto;
+import com.lazycord.dto.MessageCursor;
+import com.lazycord.model.MessageArchiveSegment;
+import com.lazycord.repository.MessageArchiveSegmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MessageArchiveStoreTest {
+
+    @Mock
+    private MessageArchiveSegmentRepository segmentRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    private Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final UUID channelId = UUID.randomUUID();
+    private final UUID communityId = UUID.randomUUID();
+    private MessageArchiveStore store;
+
+    @BeforeEach
+    void setUp() {
+        when(jdbcTemplate.getDataSource()).thenReturn(mock(DataSource.class));
+        store = new MessageArchiveStore(segmentRepository, jdbcTemplate, transactionManager, objectMapper,
+                directory.toString());
+    }
+
+    @Test
+    void readBefore_ContinuesAcrossMonthsNewestFirst() throws IOException {
+        // Arrange
+        List<MessageArchiveSegment> segments = List.of(
+                segment(LocalDate.of(2024, 2, 1), messages(LocalDateTime.of(2024, 2, 1, 9, 0), 3)),
+                segment(LocalDate.of(2024, 1, 1), messages(LocalDateTime.of(2024, 1, 1, 9, 0), 3)));
+        when(segmentRepository.findByChannelIdAndCommunityIdAndMonthStartLessThanEqualOrderByMonthStartDesc(
+                eq(channelId), eq(communityId), any())).thenReturn(segments);
+
+        // Act
+        List<ChatMessageDto> page = store.readBefore(channelId, communityId, null, 4);
+
+        // Assert
+        assertEquals(4, page.size());
+        assertEquals(LocalDateTime.of(2024, 2, 1, 9, 2), page.get(0).getCreatedAt());
+        assertEquals(LocalDateTime.of(2024, 1, 1, 9, 2), page.get(3).getCreatedAt());
+    }
+
+    @Test
+    void readBefore_SkipsMessagesNotOlderThanCursor() throws IOException {
+        // Arrange
+        List<ChatMessageDto> february = messages(LocalDateTime.of(2024, 2, 1, 9, 0), 3);
+        when(segmentRepository.findByChannelIdAndCommunityIdAndMonthStartLessThanEqualOrderByMonthStartDesc(
+                channelId, communityId, LocalDate.of(2024, 2, 1)))
+                .thenReturn(List.of(segment(LocalDate.of(2024, 2, 1), february)));
+        ChatMessageDto middle = february.get(1);
+
+        // Act
+        List<ChatMessageDto> page = store.readBefore(channelId, communityId,
+                new MessageCursor(middle.getCreatedAt(), middle.getId()), 10);
+
+        // Assert
+        assertEquals(1, page.size());
+        assertEquals(february.get(0).getId(), page.get(0).getId());
+    }
+
+    @Test
+    void readBefore_MergesSegmentsOfTheSameMonth() throws IOException {
+        // Arrange
+        List<ChatMessageDto> january = messages(LocalDateTime.of(2024, 1, 1, 9, 0), 6);
+        List<ChatMessageDto> even = new ArrayList<>();
+        List<ChatMessageDto> odd = new ArrayList<>();
+        for (int i = 0; i < january.size(); i++) {
+            (i % 2 == 0 ? even : odd).add(january.get(i));
+        }
+        when(segmentRepository.findByChannelIdAndCommunityIdAndMonthStartLessThanEqualOrderByMonthStartDesc(
+                eq(channelId), eq(communityId), any())).thenReturn(List.of(
+                segment(LocalDate.of(2024, 1, 1), even, "even"),
+                segment(LocalDate.of(2024, 1, 1), odd, "odd")));
+        ChatMessageDto cursor = january.get(5);
+
+        // Act
+        List<ChatMessageDto> page = store.readBefore(channelId, communityId,
+                new MessageCursor(cursor.getCreatedAt(), cursor.getId()), 3);
+
+        // Assert
+        assertEquals(List.of(january.get(4).getId(), january.get(3).getId(), january.get(2).getId()),
+                page.stream().map(ChatMessageDto::getId).toList());
+    }
+
+    @Test
+    void forEachArchived_VisitsEveryMessageOldestFirst() throws IOException {
+        // Arrange
+        List<ChatMessageDto> january = messages(LocalDateTime.of(2024, 1, 1, 9, 0), 3);
+        List<ChatMessageDto> february = messages(LocalDateTime.of(2024, 2, 1, 9, 0), 2);
+        when(segmentRepository.findByChannelIdAndCommunityIdOrderByMonthStartAsc(channelId, communityId))
+                .thenReturn(List.of(segment(LocalDate.of(2024, 1, 1), january),
+                        segment(LocalDate.of(2024, 2, 1), february)));
+        List<ChatMessageDto> visited = new ArrayList<>();
+
+        // Act
+        long count = store.forEachArchived(channelId, communityId, visited::add);
+
+        // Assert
+        assertEquals(5, count);
+        List<ChatMessageDto> expected = new ArrayList<>(january);
+        expected.addAll(february);
+        assertEquals(expected.stream().map(ChatMessageDto::getId).toList(),
+                visited.stream().map(ChatMessageDto::getId).toList());
+    }
+
+    @Test
+    void archivePartition_RejectsOtherTables() {
+        assertThrows(IllegalArgumentException.class,
+                () -> store.archivePartition("users; DROP TABLE messages", LocalDate.of(2024, 1, 1)));
+    }
+
+    private List<ChatMessageDto> messages(LocalDateTime start, int count) {
+        List<ChatMessageDto> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            messages.add(new ChatMessageDto(UUID.randomUUID(), "message " + i, "TEXT", UUID.randomUUID(), "sender",
+                    null, channelId, (long) i + 1, null, false, start.plusMinutes(i)));
+        }
+        return messages;
+    }
+
+    private MessageArchiveSegment segment(LocalDate month, List<ChatMessageDto> messages) throws IOException {
+        return segment(month, messages, "segment");
+    }
+
+    // Written newest first, like archivePartition does
+    private MessageArchiveSegment segment(LocalDate month, List<ChatMessageDto> messages, String name)
+            throws IOException {
+        Path file = directory.resolve(month + "-" + name + ".ndjson.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            for (int i = messages.size() - 1; i >= 0; i--) {
+                out.write(objectMapper.writeValueAsBytes(messages.get(i)));
+                out.write('\n');
+            }
+        }
+        MessageArchiveSegment segment = new MessageArchiveSegment();
+        segment.setChannelId(channelId);
+        segment.setCommunityId(communityId);
+        segment.setMonthStart(month);
+        segment.setFilePath(file.toString());
+        segment.setRowCount(messages.size());
+        return segment;
+    }
+}
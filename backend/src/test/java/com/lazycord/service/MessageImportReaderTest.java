@@ -0,0 +1,87 @@
+package com.lazycord.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lazycord.model.MessageImport;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageImportReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void next_ReadsNdjsonAndFlagsMalformedLines() throws IOException {
+        // Arrange
+        String archive = """
+                {"channel":"general","sender":"alice","content":"hi","createdAt":"2023-05-01T10:15:30"}
+
+                not json
+                {"channel":"general","sender":"bob","content":"no timestamp"}
+                {"channel":"random","sender":"bob","content":"yo","createdAt":"2023-05-01T10:16:00","attachmentUrl":"/f/1"}
+                """;
+
+        try (MessageImportReader reader = reader(archive, MessageImport.Format.NDJSON)) {
+            // Act & Assert
+            MessageImportReader.ImportedMessage first = reader.next();
+            assertEquals("general", first.channel());
+            assertEquals("alice", first.sender());
+            assertEquals(LocalDateTime.of(2023, 5, 1, 10, 15, 30), first.createdAt());
+            assertNull(first.attachmentUrl());
+
+            assertTrue(reader.next().isMalformed());
+            assertTrue(reader.next().isMalformed());
+            assertEquals("/f/1", reader.next().attachmentUrl());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void next_ReadsCsvWithQuotedFieldsSpanningLines() throws IOException {
+        // Arrange
+        String archive = "sender,channel,created_at,content\r\n" +
+                "alice,general,2023-05-01T10:15:30,\"hello, \"\"world\"\"\nsecond line\"\r\n" +
+                "bob,general,2023-05-01T10:16:00,plain\n";
+
+        try (MessageImportReader reader = reader(archive, MessageImport.Format.CSV)) {
+            // Act & Assert
+            MessageImportReader.ImportedMessage first = reader.next();
+            assertEquals("alice", first.sender());
+            assertEquals("hello, \"world\"\nsecond line", first.content());
+
+            MessageImportReader.ImportedMessage second = reader.next();
+            assertEquals("bob", second.sender());
+            assertEquals("plain", second.content());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void skip_ResumesAfterCommittedRecords() throws IOException {
+        // Arrange
+        String archive = "channel,sender,createdAt,content\n" +
+                "general,alice,2023-05-01T10:00:00,one\n" +
+                "general,alice,2023-05-01T10:01:00,two\n" +
+                "general,alice,2023-05-01T10:02:00,three\n";
+
+        try (MessageImportReader reader = reader(archive, MessageImport.Format.CSV)) {
+            // Act
+            long skipped = reader.skip(2);
+
+            // Assert
+            assertEquals(2, skipped);
+            assertEquals("three", reader.next().content());
+            assertEquals(0, reader.skip(5));
+        }
+    }
+
+    private MessageImportReader reader(String archive, MessageImport.Format format) {
+        return new MessageImportReader(new ByteArrayInputStream(archive.getBytes(StandardCharsets.UTF_8)), format,
+                objectMapper);
+    }
+}
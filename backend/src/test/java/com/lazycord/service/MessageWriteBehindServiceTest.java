@@ -0,0 +1,198 @@
+package com.lazycord.service;
+
+import com.lazycord.model.Channel;
+import com.lazycord.model.Community;
+import com.lazycord.model.Message;
+import com.lazycord.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MessageWriteBehindServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private MessageSequenceService messageSequenceService;
+
+    @Mock
+    private RecentMessageCache recentMessageCache;
+
+    private SimpleMeterRegistry meterRegistry;
+    private MessageWriteBehindService service;
+    private User sender;
+    private Channel channel;
+    private Community community;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        sender = new User();
+        sender.setId(UUID.randomUUID());
+        community = new Community();
+        community.setId(UUID.randomUUID());
+        channel = new Channel();
+        channel.setId(UUID.randomUUID());
+        channel.setCommunity(community);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.stop();
+        }
+    }
+
+    @Test
+    void submit_AssignsIdSeqAndTimestampAndPersistsInBackground() {
+        // Arrange
+        service = newService(true);
+        service.start();
+        when(messageSequenceService.reserve(channel.getId(), 10)).thenReturn(42L);
+
+        // Act
+        Message message = service.submit("hello", sender, channel, community);
+
+        // Assert
+        assertNotNull(message.getId());
+        assertEquals(42L, message.getSeq());
+        assertNotNull(message.getCreatedAt());
+        verify(recentMessageCache).writePending(channel.getId());
+        verify(jdbcTemplate, timeout(2000)).batchUpdate(anyString(), anyCollection(), anyInt(), any());
+        verify(recentMessageCache, timeout(2000)).writeSettled(channel.getId());
+    }
+
+    @Test
+    void submit_ReservesSequenceNumbersInBlocks() {
+        // Arrange
+        service = newService(true);
+        service.start();
+        when(messageSequenceService.reserve(channel.getId(), 10)).thenReturn(1L, 11L);
+
+        // Act
+        List<Long> seqs = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            seqs.add(service.submit("hello", sender, channel, community).getSeq());
+        }
+
+        // Assert
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L, 11L, 12L), seqs);
+        verify(messageSequenceService, times(2)).reserve(channel.getId(), 10);
+        verify(messageSequenceService, never()).next(any());
+    }
+
+    @Test
+    void submit_RejectedWhenDisabled() {
+        // Arrange
+        service = newService(false);
+        service.start();
+
+        // Act & Assert
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> service.submit("hello", sender, channel, community));
+        assertTrue(e.getMessage().startsWith("Not accepting messages"));
+        assertEquals(1.0, meterRegistry.get("chat.write_behind.rejected").counter().count());
+        verifyNoInteractions(messageSequenceService);
+    }
+
+    @Test
+    void stop_FlushesEveryAcceptedMessage() throws Exception {
+        // Arrange
+        service = newService(true);
+        service.start();
+        Set<UUID> flushed = ConcurrentHashMap.newKeySet();
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any())).thenAnswer(invocation -> {
+            for (Object m : invocation.getArgument(1, Collection.class)) {
+                flushed.add(((Message) m).getId());
+            }
+            return new int[0][];
+        });
+        Set<UUID> accepted = ConcurrentHashMap.newKeySet();
+        ExecutorService producers = Executors.newFixedThreadPool(4);
+        for (int p = 0; p < 4; p++) {
+            producers.submit(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    try {
+                        accepted.add(service.submit("hello", sender, channel, community).getId());
+                    } catch (RuntimeException e) {
+                        // rejected after shutdown or while the queue is full
+                    }
+                }
+            });
+        }
+
+        // Act
+        Thread.sleep(20);
+        service.stop();
+        producers.shutdown();
+
+        // Assert
+        assertTrue(producers.awaitTermination(10, TimeUnit.SECONDS));
+        assertFalse(accepted.isEmpty());
+        assertTrue(flushed.containsAll(accepted));
+    }
+
+    @Test
+    void flush_FallsBackToSingleInsertsWhenBatchFails() {
+        // Arrange
+        service = newService(false);
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any()))
+                .thenThrow(new DataIntegrityViolationException("fk violation"));
+        when(jdbcTemplate.update(anyString(), any(Object[].class)))
+                .thenReturn(1)
+                .thenThrow(new DataIntegrityViolationException("fk violation"));
+        List<Message> batch = new ArrayList<>();
+        batch.add(pending("first"));
+        batch.add(pending("second"));
+
+        // Act
+        service.flush(batch);
+
+        // Assert
+        verify(jdbcTemplate, times(2)).update(anyString(), any(Object[].class));
+        assertEquals(1.0, meterRegistry.get("chat.write_behind.persisted").counter().count());
+        assertEquals(1.0, meterRegistry.get("chat.write_behind.failed").counter().count());
+        verify(recentMessageCache).invalidate(channel.getId());
+        verify(recentMessageCache, times(2)).writeSettled(channel.getId());
+    }
+
+    private MessageWriteBehindService newService(boolean enabled) {
+        return new MessageWriteBehindService(jdbcTemplate, messageSequenceService, recentMessageCache, meterRegistry, enabled, 100, 10, 100, 50, 10);
+    }
+
+    private Message pending(String content) {
+        Message message = new Message();
+        message.setId(UUID.randomUUID());
+        message.setContent(content);
+        message.setSender(sender);
+        message.setChannel(channel);
+        message.setCommunity(community);
+        message.setSeq(1L);
+        message.setCreatedAt(LocalDateTime.now());
+        message.setUpdatedAt(LocalDateTime.now());
+        return message;
+    }
+}
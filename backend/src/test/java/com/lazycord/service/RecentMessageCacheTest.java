@@ -0,0 +1,224 @@
+package com.lazycord.service;
+
+import com.lazycord.dto.ChatMessageDto;
+import com.lazycord.dto.MessageCursor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecentMessageCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RecentMessageCache cache;
+    private UUID channelId;
+    private UUID communityId;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new RecentMessageCache(meterRegistry, 3, 1_000_000);
+        channelId = UUID.randomUUID();
+        communityId = UUID.randomUUID();
+    }
+
+    @Test
+    void get_MissUntilPrimed() {
+        // Act
+        Optional<List<ChatMessageDto>> result = cache.get(channelId, communityId, 3);
+
+        // Assert
+        assertTrue(result.isEmpty());
+        assertEquals(1.0, meterRegistry.get("chat.recent_cache.requests").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void append_IgnoredForUncachedChannel() {
+        // Act
+        cache.append(message(channelId, "hello"));
+
+        // Assert
+        assertTrue(cache.get(channelId, communityId, 1).isEmpty());
+    }
+
+    @Test
+    void append_KeepsNewestMessagesInRing() {
+        // Arrange
+        cache.prime(channelId, communityId, newestFirst("c", "b", "a"), cache.stamp(channelId));
+
+        // Act
+        cache.append(message(channelId, "d"));
+        cache.append(message(channelId, "e"));
+        Optional<List<ChatMessageDto>> result = cache.get(channelId, communityId, 3);
+
+        // Assert
+        assertTrue(result.isPresent());
+        assertEquals(List.of("e", "d", "c"), result.get().stream().map(ChatMessageDto::getContent).toList());
+        assertEquals(1.0, meterRegistry.get("chat.recent_cache.requests").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void prime_SkippedWhileWriteIsPending() {
+        // Arrange
+        cache.writePending(channelId);
+
+        // Act
+        cache.prime(channelId, communityId, newestFirst("b", "a"), cache.stamp(channelId));
+
+        // Assert
+        assertTrue(cache.get(channelId, communityId, 2).isEmpty());
+    }
+
+    @Test
+    void prime_DiscardsLoadStartedBeforeWriteSettled() {
+        // Arrange
+        cache.writePending(channelId);
+        long stamp = cache.stamp(channelId);
+        cache.writeSettled(channelId);
+
+        // Act
+        cache.prime(channelId, communityId, newestFirst("b", "a"), stamp);
+
+        // Assert
+        assertTrue(cache.get(channelId, communityId, 2).isEmpty());
+    }
+
+    @Test
+    void append_SkipsMessageAlreadyPrimed() {
+        // Arrange
+        List<ChatMessageDto> snapshot = newestFirst("b", "a");
+        cache.prime(channelId, communityId, snapshot, cache.stamp(channelId));
+
+        // Act
+        cache.append(snapshot.get(0));
+        Optional<List<ChatMessageDto>> result = cache.get(channelId, communityId, 2);
+
+        // Assert
+        assertTrue(result.isPresent());
+        assertEquals(List.of("b", "a"), result.get().stream().map(ChatMessageDto::getContent).toList());
+    }
+
+    @Test
+    void get_ShortChannelServedFromFullHistory() {
+        // Arrange
+        cache.prime(channelId, communityId, newestFirst("a"), cache.stamp(channelId));
+
+        // Act
+        Optional<List<ChatMessageDto>> result = cache.get(channelId, communityId, 3);
+
+        // Assert
+        assertTrue(result.isPresent());
+        assertEquals(1, result.get().size());
+    }
+
+    @Test
+    void get_WrongCommunityIsMiss() {
+        // Arrange
+        cache.prime(channelId, communityId, newestFirst("a"), cache.stamp(channelId));
+
+        // Act & Assert
+        assertTrue(cache.get(channelId, UUID.randomUUID(), 1).isEmpty());
+    }
+
+    @Test
+    void prime_DiscardedWhenWriteRacedWithLoad() {
+        // Arrange
+        long stamp = cache.stamp(channelId);
+        cache.append(message(channelId, "written during load"));
+
+        // Act
+        cache.prime(channelId, communityId, newestFirst("a"), stamp);
+
+        // Assert
+        assertTrue(cache.get(channelId, communityId, 1).isEmpty());
+    }
+
+    @Test
+    void invalidate_DropsChannel() {
+        // Arrange
+        cache.prime(channelId, communityId, newestFirst("a"), cache.stamp(channelId));
+
+        // Act
+        cache.invalidate(channelId);
+
+        // Assert
+        assertTrue(cache.get(channelId, communityId, 1).isEmpty());
+    }
+
+    @Test
+    void prime_EvictsLeastRecentlyUsedChannelOverCap() {
+        // Arrange
+        long perChannel = RecentMessageCache.estimateSize(message(channelId, "x"));
+        cache = new RecentMessageCache(meterRegistry, 3, perChannel * 5 / 2);
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        cache.prime(channelId, communityId, newestFirst("x"), cache.stamp(channelId));
+        cache.prime(second, communityId, newestFirst("x"), cache.stamp(second));
+        cache.get(channelId, communityId, 1);
+
+        // Act
+        cache.prime(third, communityId, newestFirst("x"), cache.stamp(third));
+
+        // Assert
+        assertTrue(cache.get(second, communityId, 1).isEmpty());
+        assertTrue(cache.get(channelId, communityId, 1).isPresent());
+    }
+
+    @Test
+    void after_ReplaysMessagesNewerThanBufferedCursor() {
+        // Arrange
+        List<ChatMessageDto> primed = newestFirst("c", "b", "a");
+        cache.prime(channelId, communityId, primed, cache.stamp(channelId));
+        cache.append(message(channelId, "d"));
+        ChatMessageDto seen = primed.get(0);
+
+        // Act
+        Optional<List<ChatMessageDto>> result = cache.after(channelId, communityId,
+                new MessageCursor(seen.getCreatedAt(), seen.getId()));
+
+        // Assert
+        assertTrue(result.isPresent());
+        assertEquals(List.of("d"), result.get().stream().map(ChatMessageDto::getContent).toList());
+    }
+
+    @Test
+    void after_MissWhenCursorIsOlderThanBuffer() {
+        // Arrange
+        cache.prime(channelId, communityId, newestFirst("c", "b", "a"), cache.stamp(channelId));
+        MessageCursor cursor = new MessageCursor(LocalDateTime.now().minusHours(1), UUID.randomUUID());
+
+        // Act
+        Optional<List<ChatMessageDto>> result = cache.after(channelId, communityId, cursor);
+
+        // Assert
+        assertTrue(result.isEmpty());
+    }
+
+    private List<ChatMessageDto> newestFirst(String... contents) {
+        List<ChatMessageDto> messages = new ArrayList<>();
+        for (String content : contents) {
+            messages.add(message(channelId, content));
+        }
+        return messages;
+    }
+
+    private ChatMessageDto message(UUID channel, String content) {
+        ChatMessageDto dto = new ChatMessageDto();
+        dto.setId(UUID.randomUUID());
+        dto.setContent(content);
+        dto.setType("TEXT");
+        dto.setSenderId(UUID.randomUUID());
+        dto.setSenderUsername("testuser");
+        dto.setChannelId(channel);
+        dto.setEdited(false);
+        dto.setCreatedAt(LocalDateTime.now());
+        return dto;
+    }
+}
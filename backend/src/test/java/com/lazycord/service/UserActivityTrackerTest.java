@@ -0,0 +1,84 @@
+package com.lazycord.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserActivityTrackerTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserActivityTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // Not started, so flushes only happen when the test calls flush()
+        tracker = new UserActivityTracker(jdbcTemplate, meterRegistry, 60_000);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_WritesLatestTimestampOncePerUser() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        LocalDateTime latest = LocalDateTime.of(2026, 1, 1, 12, 0, 5);
+        tracker.record(userId, latest.minusSeconds(5));
+        tracker.record(userId, latest);
+        tracker.record(userId, latest.minusSeconds(1));
+
+        // Act
+        tracker.flush();
+
+        // Assert
+        ArgumentCaptor<Collection<Map.Entry<UUID, LocalDateTime>>> batch = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), batch.capture(), eq(1), any());
+        assertEquals(List.of(Map.entry(userId, latest)), List.copyOf(batch.getValue()));
+        assertEquals(0, tracker.pendingCount());
+        assertEquals(1.0, meterRegistry.get("users.activity.flushed").counter().count());
+    }
+
+    @Test
+    void flush_NothingPendingSkipsDatabase() {
+        // Act
+        tracker.flush();
+
+        // Assert
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void flush_FailureKeepsEntriesForNextFlush() {
+        // Arrange
+        tracker.record(UUID.randomUUID());
+        tracker.record(UUID.randomUUID());
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any()))
+                .thenThrow(new QueryTimeoutException("timeout"));
+
+        // Act
+        tracker.flush();
+
+        // Assert
+        assertEquals(2, tracker.pendingCount());
+        assertEquals(2.0, meterRegistry.get("users.activity.pending").gauge().value());
+    }
+}
@@ -0,0 +1,236 @@
+package com.lazycord.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lazycord.dto.UserRegistrationRequest;
+import com.lazycord.model.User;
+import com.lazycord.repository.UserRepository;
+import com.lazycord.security.JwtAuthenticationCache;
+import com.lazycord.websocket.RedisBrokerRelay;
+import com.lazycord.websocket.StompSessionRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.InOrder;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private KeycloakUserService keycloakUserService;
+
+    @Mock
+    private StompSessionRegistry stompSessionRegistry;
+
+    @Mock
+    private JwtAuthenticationCache jwtAuthenticationCache;
+
+    @Mock
+    private UserActivityTracker userActivityTracker;
+
+    @Mock
+    private UserSnapshotCache userSnapshotCache;
+
+    @Mock
+    private ObjectProvider<RedisBrokerRelay> redisBrokerRelay;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private UserService userService;
+
+    private static final Instant ISSUED_AT = Instant.parse("2024-05-01T10:00:00Z");
+
+    private User existingUser;
+
+    @BeforeEach
+    void setUp() {
+        existingUser = new User("kc-1", "alice", "alice@example.com", "Alice", "Smith");
+        existingUser.setId(UUID.randomUUID());
+    }
+
+    @Test
+    void syncUserFromClaims_UnchangedUserNeedsNoWrite() {
+        // Arrange
+        when(userRepository.findByKeycloakId("kc-1")).thenReturn(Optional.of(existingUser));
+
+        // Act
+        User result = userService.syncUserFromClaims("kc-1", "alice", "alice@example.com", "Alice", "Smith",
+                ISSUED_AT);
+
+        // Assert
+        assertSame(existingUser, result);
+        verify(userRepository, never()).save(any());
+        verifyNoInteractions(keycloakUserService);
+    }
+
+    @Test
+    void syncUserFromClaims_RefreshesChangedFields() {
+        // Arrange
+        User refreshed = new User("kc-1", "alice", "new@example.com", "Alice", "Jones");
+        refreshed.setId(existingUser.getId());
+        when(userRepository.findByKeycloakId("kc-1")).thenReturn(Optional.of(existingUser));
+        when(userRepository.updateIdentity(existingUser.getId(), "alice", "new@example.com", "Alice", "Jones",
+                LocalDateTime.ofInstant(ISSUED_AT, ZoneId.systemDefault()))).thenReturn(1);
+        when(userRepository.findById(existingUser.getId())).thenReturn(Optional.of(refreshed));
+
+        // Act
+        User result = userService.syncUserFromClaims("kc-1", "alice", "new@example.com", "Alice", "Jones",
+                ISSUED_AT);
+
+        // Assert
+        assertEquals("new@example.com", result.getEmail());
+        assertEquals("Jones", result.getLastName());
+        verify(userRepository, never()).save(any());
+        verify(userSnapshotCache).invalidate(existingUser.getId());
+        verify(jwtAuthenticationCache).evictUser(existingUser.getId());
+        verifyNoInteractions(keycloakUserService);
+    }
+
+    @Test
+    void syncUserFromClaims_TellsOtherNodesToDropCachedTokens() {
+        // Arrange
+        RedisBrokerRelay relay = mock(RedisBrokerRelay.class);
+        doAnswer(invocation -> {
+            Consumer<RedisBrokerRelay> action = invocation.getArgument(0);
+            action.accept(relay);
+            return null;
+        }).when(redisBrokerRelay).ifAvailable(any());
+        when(userRepository.findByKeycloakId("kc-1")).thenReturn(Optional.of(existingUser));
+        when(userRepository.updateIdentity(any(), any(), any(), any(), any(), any())).thenReturn(1);
+        when(userRepository.findById(existingUser.getId())).thenReturn(Optional.of(existingUser));
+
+        // Act
+        userService.syncUserFromClaims("kc-1", "alice", "new@example.com", "Alice", "Smith", ISSUED_AT);
+
+        // Assert
+        verify(relay).publishInvalidation(RedisBrokerRelay.AUTHENTICATED_USERS, existingUser.getId());
+    }
+
+    @Test
+    void syncUserFromClaims_CreatesNewUserFromClaims() {
+        // Arrange
+        when(userRepository.findByKeycloakId("kc-2")).thenReturn(Optional.empty());
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        User result = userService.syncUserFromClaims("kc-2", "bob", "bob@example.com", null, null, ISSUED_AT);
+
+        // Assert
+        assertEquals("bob", result.getUsername());
+        assertEquals("", result.getFirstName());
+        verifyNoInteractions(keycloakUserService);
+    }
+
+    @Test
+    void syncUserFromClaims_FallsBackToAdminApiWithoutEmail() {
+        // Arrange
+        when(userRepository.findByKeycloakId("kc-2")).thenReturn(Optional.empty());
+        when(keycloakUserService.getUserById("kc-2")).thenReturn(new ObjectMapper().valueToTree(
+                Map.of("username", "bob", "email", "bob@example.com")));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        User result = userService.syncUserFromClaims("kc-2", "bob", null, null, null, ISSUED_AT);
+
+        // Assert
+        assertEquals("bob@example.com", result.getEmail());
+        verify(keycloakUserService).getUserById("kc-2");
+    }
+
+    @Test
+    void syncUserFromClaims_RefreshesThroughAdminApiWhenClaimsAreStale() {
+        // Arrange
+        existingUser.setClaimsSyncedAt(LocalDateTime.ofInstant(ISSUED_AT, ZoneId.systemDefault()));
+        when(userRepository.findByKeycloakId("kc-1")).thenReturn(Optional.of(existingUser));
+        when(keycloakUserService.getUserById("kc-1")).thenReturn(new ObjectMapper().valueToTree(
+                Map.of("username", "alice", "email", "alice@example.com", "firstName", "Alice",
+                        "lastName", "Smith")));
+
+        // Act
+        User result = userService.syncUserFromClaims("kc-1", "alice", "old@example.com", "Alice", "Smith",
+                ISSUED_AT.minusSeconds(60));
+
+        // Assert
+        assertSame(existingUser, result);
+        verify(keycloakUserService).getUserById("kc-1");
+        verify(userRepository, never()).updateIdentity(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void syncUserFromClaims_ConcurrentFirstLoginRereadsRow() {
+        // Arrange
+        User created = new User("kc-2", "bob", "bob@example.com", "", "");
+        when(userRepository.findByKeycloakId("kc-2")).thenReturn(Optional.empty(), Optional.of(created));
+        when(userRepository.save(any(User.class))).thenThrow(new DataIntegrityViolationException("duplicate"));
+
+        // Act
+        User result = userService.syncUserFromClaims("kc-2", "bob", "bob@example.com", null, null, ISSUED_AT);
+
+        // Assert
+        assertSame(created, result);
+    }
+
+    @Test
+    void createUser_DeletesKeycloakUserWhenLocalInsertFails() {
+        // Arrange
+        UserRegistrationRequest request = new UserRegistrationRequest(
+                "bob", "bob@example.com", "password123", "Bob", "Jones");
+        when(keycloakUserService.createUser("bob", "bob@example.com", "password123", "user", "Bob", "Jones"))
+                .thenReturn("kc-2");
+        when(userRepository.save(any(User.class))).thenThrow(new DataIntegrityViolationException("duplicate"));
+
+        // Act & Assert
+        assertThrows(DataIntegrityViolationException.class, () -> userService.createUser(request));
+        verify(keycloakUserService).deleteUser("kc-2");
+    }
+
+    @Test
+    void deleteUser_DisablesInKeycloakBeforeLocalDelete() {
+        // Arrange
+        when(userRepository.findById(existingUser.getId())).thenReturn(Optional.of(existingUser));
+
+        // Act
+        userService.deleteUser(existingUser.getId());
+
+        // Assert
+        InOrder order = inOrder(keycloakUserService, userRepository);
+        order.verify(keycloakUserService).updateUser("kc-1", null, null, null, false);
+        order.verify(userRepository).deleteById(existingUser.getId());
+        order.verify(keycloakUserService).deleteUser("kc-1");
+        verify(userSnapshotCache).invalidate(existingUser.getId());
+    }
+
+    @Test
+    void deleteUser_ReenablesKeycloakUserWhenLocalDeleteFails() {
+        // Arrange
+        when(userRepository.findById(existingUser.getId())).thenReturn(Optional.of(existingUser));
+        doThrow(new DataIntegrityViolationException("referenced")).when(userRepository).deleteById(existingUser.getId());
+
+        // Act & Assert
+        assertThrows(DataIntegrityViolationException.class, () -> userService.deleteUser(existingUser.getId()));
+        verify(keycloakUserService).updateUser("kc-1", null, null, null, true);
+        verify(keycloakUserService, never()).deleteUser(anyString());
+    }
+}
@@ -0,0 +1,134 @@
+package com.lazycord.service;
+
+import com.lazycord.dto.UserSnapshot;
+import com.lazycord.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserSnapshotCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserSnapshotCache cache;
+    private User user;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new UserSnapshotCache(meterRegistry, 60_000, 100);
+        user = new User("kc-1", "alice", "alice@example.com", "Alice", "Smith");
+        user.setId(UUID.randomUUID());
+        user.setPoints(10);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void getByUsername_LoadsOnceThenServesAllKeys() {
+        // Act
+        Optional<UserSnapshot> first = cache.getByUsername("alice", this::load);
+        Optional<UserSnapshot> byKeycloakId = cache.getByKeycloakId("kc-1", this::load);
+        Optional<UserSnapshot> byId = cache.getById(user.getId(), this::load);
+
+        // Assert
+        assertEquals(1, loads.get());
+        assertEquals(user.getId(), first.orElseThrow().getId());
+        assertEquals(first, byKeycloakId);
+        assertEquals(first, byId);
+        assertEquals(2.0, meterRegistry.get("users.snapshot_cache.requests").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void getByUsername_UnknownUserIsNotCached() {
+        // Act
+        cache.getByUsername("nobody", Optional::empty);
+        Optional<UserSnapshot> result = cache.getByUsername("nobody", Optional::empty);
+
+        // Assert
+        assertTrue(result.isEmpty());
+        assertEquals(2.0, meterRegistry.get("users.snapshot_cache.requests").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void invalidate_NextLookupReloads() {
+        // Arrange
+        cache.getByUsername("alice", this::load);
+        user.setPoints(20);
+
+        // Act
+        cache.invalidate(user.getId());
+        Optional<UserSnapshot> result = cache.getByUsername("alice", this::load);
+
+        // Assert
+        assertEquals(2, loads.get());
+        assertEquals(20, result.orElseThrow().getPoints());
+    }
+
+    @Test
+    void invalidate_DuringLoadKeepsResultOutOfCache() {
+        // Act
+        cache.getByUsername("alice", () -> {
+            cache.invalidate(user.getId());
+            return load();
+        });
+        cache.getByUsername("alice", this::load);
+
+        // Assert
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void getByUsername_ConcurrentMissesShareOneLoad() throws Exception {
+        // Arrange
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Optional<UserSnapshot>>> results = new ArrayList<>();
+
+        // Act
+        results.add(executor.submit(() -> cache.getByUsername("alice", () -> {
+            loading.countDown();
+            await(release);
+            return load();
+        })));
+        assertTrue(loading.await(2, TimeUnit.SECONDS));
+        for (int i = 0; i < 3; i++) {
+            results.add(executor.submit(() -> cache.getByUsername("alice", this::load)));
+        }
+        Thread.sleep(100);
+        release.countDown();
+
+        // Assert
+        for (Future<Optional<UserSnapshot>> result : results) {
+            assertEquals("alice", result.get(2, TimeUnit.SECONDS).orElseThrow().getUsername());
+        }
+        assertEquals(1, loads.get());
+        executor.shutdownNow();
+    }
+
+    private Optional<User> load() {
+        loads.incrementAndGet();
+        return Optional.of(user);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.lazycord.websocket;
+
+import com.lazycord.dto.ChatMessageDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChannelBroadcasterTest {
+
+    private static final int RATE_THRESHOLD = 3;
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ChannelBroadcaster broadcaster;
+    private UUID channelId;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        channelId = UUID.randomUUID();
+    }
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.stop();
+    }
+
+    @Test
+    void broadcast_SendsDirectlyWhenDisabled() {
+        // Arrange
+        broadcaster = newBroadcaster(false);
+
+        // Act
+        for (int i = 0; i < 10; i++) {
+            broadcaster.broadcast(channelId, message(i));
+        }
+
+        // Assert
+        verify(messagingTemplate, times(10)).convertAndSend(eq("/topic/channel/" + channelId), any(ChatMessageDto.class));
+    }
+
+    @Test
+    void broadcast_SendsDirectlyBelowThreshold() {
+        // Arrange
+        broadcaster = newBroadcaster(true);
+
+        // Act
+        broadcaster.broadcast(channelId, message(0));
+        broadcaster.broadcast(channelId, message(1));
+
+        // Assert
+        verify(messagingTemplate, times(2)).convertAndSend(eq("/topic/channel/" + channelId), any(ChatMessageDto.class));
+        assertEquals(0.0, meterRegistry.get("websocket.coalescing.frames_saved").counter().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void broadcast_CoalescesHotChannelIntoOneFrame() {
+        // Arrange
+        broadcaster = newBroadcaster(true);
+
+        // Act
+        for (int i = 0; i < 6; i++) {
+            broadcaster.broadcast(channelId, message(i));
+        }
+
+        // Assert: two direct sends, then the rest in one array frame
+        ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate, timeout(2000).times(3)).convertAndSend(eq("/topic/channel/" + channelId), payload.capture());
+        List<ChatMessageDto> batch = (List<ChatMessageDto>) payload.getAllValues().get(2);
+        assertEquals(List.of("message 2", "message 3", "message 4", "message 5"),
+                batch.stream().map(ChatMessageDto::getContent).toList());
+        assertEquals(3.0, meterRegistry.get("websocket.coalescing.frames_saved").counter().count());
+    }
+
+    private ChannelBroadcaster newBroadcaster(boolean enabled) {
+        ChannelBroadcaster channelBroadcaster =
+                new ChannelBroadcaster(messagingTemplate, meterRegistry, enabled, 25, RATE_THRESHOLD);
+        channelBroadcaster.start();
+        return channelBroadcaster;
+    }
+
+    private ChatMessageDto message(int i) {
+        ChatMessageDto dto = new ChatMessageDto();
+        dto.setId(UUID.randomUUID());
+        dto.setChannelId(channelId);
+        dto.setContent("message " + i);
+        return dto;
+    }
+}
@@ -0,0 +1,72 @@
+package com.lazycord.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChannelExecutorFactoryTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ThreadPoolTaskExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void create_RunsOnCallerAndCountsWhenSaturated() throws Exception {
+        // Arrange
+        executor = ChannelExecutorFactory.create("inbound", 1, 1, 1, false, meterRegistry);
+        executor.initialize();
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> await(release));
+        executor.execute(() -> await(release));
+        AtomicReference<Thread> ranOn = new AtomicReference<>();
+
+        // Act
+        executor.execute(() -> ranOn.set(Thread.currentThread()));
+        release.countDown();
+
+        // Assert
+        assertSame(Thread.currentThread(), ranOn.get());
+        assertEquals(1.0, meterRegistry.get("websocket.executor.rejected").tag("channel", "inbound").counter().count());
+        assertEquals(1.0, meterRegistry.get("websocket.executor.pool_size").tag("channel", "inbound").gauge().value());
+    }
+
+    @Test
+    void create_UsesVirtualThreadsWhenEnabled() throws Exception {
+        // Arrange
+        executor = ChannelExecutorFactory.create("outbound", 2, 2, 10, true, meterRegistry);
+        executor.initialize();
+
+        // Act
+        Boolean virtual = CompletableFuture.supplyAsync(() -> Thread.currentThread().isVirtual(), executor)
+                .get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertTrue(virtual);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
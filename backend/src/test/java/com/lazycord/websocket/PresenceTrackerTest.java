@@ -0,0 +1,148 @@
+package com.lazycord.websocket;
+
+import com.lazycord.dto.PresenceUpdateDto;
+import com.lazycord.dto.TypingUpdateDto;
+import com.lazycord.repository.CommunityMemberRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PresenceTrackerTest {
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Mock
+    private CommunityMemberRepository communityMemberRepository;
+
+    @Mock
+    private ObjectProvider<RedisBrokerRelay> redisBrokerRelay;
+
+    private PresenceTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new PresenceTracker(messagingTemplate, new StompSessionRegistry(new SimpleMeterRegistry(), redisBrokerRelay, 60000),
+                communityMemberRepository, new SimpleMeterRegistry(), 50, 200, 5000);
+        tracker.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        tracker.stop();
+    }
+
+    @Test
+    void connected_UserStaysOnlineUntilLastSessionCloses() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+
+        // Act & Assert
+        tracker.connected("s1", userId);
+        tracker.connected("s2", userId);
+        tracker.disconnected("s1");
+        assertTrue(tracker.isOnline(userId));
+
+        tracker.disconnected("s2");
+        assertFalse(tracker.isOnline(userId));
+    }
+
+    @Test
+    void flushPresence_PublishesOneUpdatePerCommunityOfItsMembers() {
+        // Arrange
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID shared = UUID.randomUUID();
+        UUID firstOnly = UUID.randomUUID();
+        List<CommunityMemberRepository.Membership> memberships = List.of(
+                membership(shared, first), membership(shared, second), membership(firstOnly, first));
+        when(communityMemberRepository.findActiveMemberships(anyCollection())).thenAnswer(invocation -> {
+            Collection<UUID> userIds = invocation.getArgument(0);
+            return memberships.stream().filter(m -> userIds.contains(m.getUserId())).toList();
+        });
+
+        // Act
+        tracker.connected("s1", first);
+        tracker.connected("s2", second);
+
+        // Assert
+        ArgumentCaptor<PresenceUpdateDto> firstOnlyUpdate = ArgumentCaptor.forClass(PresenceUpdateDto.class);
+        verify(messagingTemplate, timeout(2000))
+                .convertAndSend(eq("/topic/community/" + firstOnly + "/presence"), firstOnlyUpdate.capture());
+        assertEquals(List.of(first), firstOnlyUpdate.getValue().getOnline());
+
+        String sharedDestination = "/topic/community/" + shared + "/presence";
+        verify(messagingTemplate, timeout(2000)).convertAndSend(eq(sharedDestination),
+                argThat((PresenceUpdateDto update) -> update.getOnline().contains(first)));
+        verify(messagingTemplate, timeout(2000)).convertAndSend(eq(sharedDestination),
+                argThat((PresenceUpdateDto update) -> update.getOnline().contains(second)));
+        verify(messagingTemplate, never()).convertAndSend(eq("/topic/presence"), any(Object.class));
+    }
+
+    @Test
+    void typing_BroadcastsAtMostOncePerThrottleWindow() throws Exception {
+        // Arrange
+        UUID channelId = UUID.randomUUID();
+        String destination = "/topic/channel/" + channelId + "/typing";
+
+        // Act
+        for (int i = 0; i < 5; i++) {
+            tracker.typing(channelId, new StompSessionUser(UUID.randomUUID(), "user" + i, null));
+        }
+
+        // Assert: at most one frame right away and one after the throttle window
+        Thread.sleep(500);
+        ArgumentCaptor<TypingUpdateDto> captor = ArgumentCaptor.forClass(TypingUpdateDto.class);
+        verify(messagingTemplate, atMost(2)).convertAndSend(eq(destination), captor.capture());
+        List<TypingUpdateDto> updates = captor.getAllValues();
+        assertEquals(5, updates.get(updates.size() - 1).getTyping().size());
+    }
+
+    @Test
+    void stoppedTyping_BroadcastsRemoval() {
+        // Arrange
+        UUID channelId = UUID.randomUUID();
+        StompSessionUser user = new StompSessionUser(UUID.randomUUID(), "alice", null);
+        String destination = "/topic/channel/" + channelId + "/typing";
+        tracker.typing(channelId, user);
+        verify(messagingTemplate, timeout(2000)).convertAndSend(eq(destination), any(TypingUpdateDto.class));
+
+        // Act
+        tracker.stoppedTyping(channelId, user.getId());
+
+        // Assert
+        ArgumentCaptor<TypingUpdateDto> captor = ArgumentCaptor.forClass(TypingUpdateDto.class);
+        verify(messagingTemplate, timeout(2000).times(2)).convertAndSend(eq(destination), captor.capture());
+        assertTrue(captor.getValue().getTyping().isEmpty());
+    }
+
+    private static CommunityMemberRepository.Membership membership(UUID communityId, UUID userId) {
+        return new CommunityMemberRepository.Membership() {
+            @Override
+            public UUID getCommunityId() {
+                return communityId;
+            }
+
+            @Override
+            public UUID getUserId() {
+                return userId;
+            }
+        };
+    }
+}
@@ -0,0 +1,182 @@
+package com.lazycord.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lazycord.dto.ChatMessageDto;
+import com.lazycord.service.RecentMessageCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RedisBrokerRelayTest {
+
+    private static final String TOPIC = "lazycord:ws:broadcast";
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ObjectProvider<MessageChannel> brokerChannelProvider;
+
+    @Mock
+    private MessageChannel brokerChannel;
+
+    @Mock
+    private RecentMessageCache recentMessageCache;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private RedisBrokerRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        relay = new RedisBrokerRelay(redisTemplate, objectMapper, brokerChannelProvider, recentMessageCache,
+                TOPIC, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void preSend_PublishesTopicBroadcastOnce() throws Exception {
+        // Act
+        relay.preSend(brokerMessage("/topic/channel/42", false), brokerChannel);
+
+        // Assert
+        ArgumentCaptor<String> json = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate, times(1)).convertAndSend(eq(TOPIC), json.capture());
+        BrokerRelayEnvelope envelope = objectMapper.readValue(json.getValue(), BrokerRelayEnvelope.class);
+        assertEquals("/topic/channel/42", envelope.getDestination());
+        assertEquals(relay.getNodeId(), envelope.getOrigin());
+        assertEquals("{\"content\":\"hi\"}", new String(envelope.getPayload(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void preSend_SkipsSessionQueuesAndRelayedMessages() {
+        // Act
+        relay.preSend(brokerMessage("/queue/notifications-user123", false), brokerChannel);
+        relay.preSend(brokerMessage("/topic/channel/42", true), brokerChannel);
+
+        // Assert
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    void preSend_KeepsSessionTargetedUserMessagesLocal() {
+        // Arrange
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination("/user/alice/queue/resume");
+        accessor.setSessionId("s1");
+        Message<byte[]> reply = MessageBuilder.createMessage("{}".getBytes(StandardCharsets.UTF_8),
+                accessor.getMessageHeaders());
+
+        // Act
+        relay.preSend(reply, brokerChannel);
+        relay.preSend(brokerMessage("/user/alice/queue/notifications", false), brokerChannel);
+
+        // Assert
+        ArgumentCaptor<String> json = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate, times(1)).convertAndSend(eq(TOPIC), json.capture());
+        assertTrue(json.getValue().contains("/user/alice/queue/notifications"));
+    }
+
+    @Test
+    void onMessage_DeliversRemoteBroadcastLocally() throws Exception {
+        // Arrange
+        when(brokerChannelProvider.getObject()).thenReturn(brokerChannel);
+        BrokerRelayEnvelope envelope = new BrokerRelayEnvelope("other-node", "/user/alice/queue/notifications",
+                "application/json", "{}".getBytes(StandardCharsets.UTF_8));
+
+        // Act
+        relay.onMessage(redisMessage(envelope), null);
+
+        // Assert
+        ArgumentCaptor<Message<?>> captor = ArgumentCaptor.forClass(Message.class);
+        verify(brokerChannel).send(captor.capture());
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(captor.getValue());
+        assertEquals("/user/alice/queue/notifications", accessor.getDestination());
+        assertEquals(Boolean.TRUE, accessor.getHeader(RedisBrokerRelay.RELAYED_HEADER));
+        verifyNoInteractions(recentMessageCache);
+    }
+
+    @Test
+    void onMessage_AppendsRemoteChatMessageToRecentCache() throws Exception {
+        // Arrange
+        when(brokerChannelProvider.getObject()).thenReturn(brokerChannel);
+        UUID channelId = UUID.randomUUID();
+        String payload = "{\"content\":\"hi\",\"channelId\":\"" + channelId + "\"}";
+        BrokerRelayEnvelope envelope = new BrokerRelayEnvelope("other-node", "/topic/channel/" + channelId,
+                "application/json", payload.getBytes(StandardCharsets.UTF_8));
+
+        // Act
+        relay.onMessage(redisMessage(envelope), null);
+
+        // Assert
+        ArgumentCaptor<ChatMessageDto> captor = ArgumentCaptor.forClass(ChatMessageDto.class);
+        verify(recentMessageCache).append(captor.capture());
+        assertEquals(channelId, captor.getValue().getChannelId());
+    }
+
+    @Test
+    void publishInvalidation_RemoteNodeDropsChannelFromRecentCache() throws Exception {
+        // Arrange
+        UUID channelId = UUID.randomUUID();
+        RedisBrokerRelay remote = new RedisBrokerRelay(redisTemplate, objectMapper, brokerChannelProvider,
+                recentMessageCache, TOPIC, new SimpleMeterRegistry());
+        relay.publishInvalidation(RedisBrokerRelay.RECENT_MESSAGES, channelId);
+        ArgumentCaptor<String> json = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).convertAndSend(eq(TOPIC), json.capture());
+
+        // Act
+        remote.onMessage(new DefaultMessage(TOPIC.getBytes(StandardCharsets.UTF_8),
+                json.getValue().getBytes(StandardCharsets.UTF_8)), null);
+
+        // Assert
+        verify(recentMessageCache).invalidate(channelId);
+        verifyNoInteractions(brokerChannelProvider);
+    }
+
+    @Test
+    void onMessage_IgnoresOwnBroadcast() throws Exception {
+        // Arrange
+        BrokerRelayEnvelope envelope = new BrokerRelayEnvelope(relay.getNodeId(), "/topic/channel/42",
+                "application/json", "{}".getBytes(StandardCharsets.UTF_8));
+
+        // Act
+        relay.onMessage(redisMessage(envelope), null);
+
+        // Assert
+        verifyNoInteractions(brokerChannel);
+    }
+
+    private Message<byte[]> brokerMessage(String destination, boolean relayed) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        if (relayed) {
+            accessor.setHeader(RedisBrokerRelay.RELAYED_HEADER, Boolean.TRUE);
+        }
+        return MessageBuilder.createMessage("{\"content\":\"hi\"}".getBytes(StandardCharsets.UTF_8),
+                accessor.getMessageHeaders());
+    }
+
+    private DefaultMessage redisMessage(BrokerRelayEnvelope envelope) throws Exception {
+        return new DefaultMessage(TOPIC.getBytes(StandardCharsets.UTF_8), objectMapper.writeValueAsBytes(envelope));
+    }
+}
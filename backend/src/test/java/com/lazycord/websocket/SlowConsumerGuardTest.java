@@ -0,0 +1,102 @@
+package com.lazycord.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SlowConsumerGuardTest {
+
+    private static final String SESSION_ID = "session-1";
+
+    @Mock
+    private WebSocketHandler handler;
+
+    @Mock
+    private WebSocketSession session;
+
+    @Mock
+    private MessageChannel outboundChannel;
+
+    private SimpleMeterRegistry meterRegistry;
+    private SlowConsumerGuard guard;
+    private WebSocketSession trackedSession;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        guard = new SlowConsumerGuard(meterRegistry, 2, 4, List.of("/topic/**/typing", "/topic/community/*/presence"));
+        when(session.getId()).thenReturn(SESSION_ID);
+
+        guard.decorate(handler).afterConnectionEstablished(session);
+        ArgumentCaptor<WebSocketSession> captor = ArgumentCaptor.forClass(WebSocketSession.class);
+        verify(handler).afterConnectionEstablished(captor.capture());
+        trackedSession = captor.getValue();
+    }
+
+    @Test
+    void preSend_CountsFramesUntilWritten() throws Exception {
+        // Act
+        guard.preSend(frame("/topic/channel/1"), outboundChannel);
+        guard.preSend(frame("/topic/channel/1"), outboundChannel);
+        trackedSession.sendMessage(new TextMessage("frame"));
+
+        // Assert
+        assertEquals(1, guard.pendingFrames(SESSION_ID));
+        verify(session).sendMessage(any());
+    }
+
+    @Test
+    void preSend_DropsNonCriticalFramesWhenLagging() {
+        // Arrange
+        guard.preSend(frame("/topic/channel/1"), outboundChannel);
+        guard.preSend(frame("/topic/channel/1"), outboundChannel);
+
+        // Act & Assert
+        assertNull(guard.preSend(frame("/topic/channel/1/typing"), outboundChannel));
+        assertNull(guard.preSend(frame("/topic/community/community-1/presence"), outboundChannel));
+        assertNotNull(guard.preSend(frame("/topic/channel/1"), outboundChannel));
+        assertEquals(2.0, meterRegistry.get("websocket.slow_consumer.dropped").counter().count());
+    }
+
+    @Test
+    void preSend_ClosesSessionPastDisconnectThreshold() throws Exception {
+        // Arrange
+        for (int i = 0; i < 4; i++) {
+            guard.preSend(frame("/topic/channel/1"), outboundChannel);
+        }
+
+        // Act
+        Message<?> result = guard.preSend(frame("/topic/channel/1"), outboundChannel);
+
+        // Assert
+        assertNull(result);
+        verify(session, timeout(2000)).close(SlowConsumerGuard.SLOW_CONSUMER_STATUS);
+        assertEquals(1.0, meterRegistry.get("websocket.slow_consumer.disconnects").counter().count());
+        assertNull(guard.preSend(frame("/topic/channel/1"), outboundChannel));
+    }
+
+    private Message<byte[]> frame(String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(SESSION_ID);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
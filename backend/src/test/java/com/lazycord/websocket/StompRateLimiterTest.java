@@ -0,0 +1,166 @@
+package com.lazycord.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lazycord.dto.StompErrorDto;
+import com.lazycord.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.HashMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StompRateLimiterTest {
+
+    @Mock
+    private ObjectProvider<SimpMessagingTemplate> templateProvider;
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Mock
+    private MessageChannel inboundChannel;
+
+    @Mock
+    private ObjectProvider<RedisBrokerRelay> redisBrokerRelay;
+
+    private static final UUID COMMUNITY_ID = UUID.randomUUID();
+
+    private SimpleMeterRegistry meterRegistry;
+    private StompSessionRegistry sessionRegistry;
+    private StompRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // 1 message per second per user with a burst of 2; 3 per channel with a burst of 3
+        sessionRegistry = new StompSessionRegistry(new SimpleMeterRegistry(), redisBrokerRelay, 60000);
+        limiter = new StompRateLimiter(new ObjectMapper(), sessionRegistry, templateProvider,
+                meterRegistry, true, 1, 2, 3, 3, 100, 100, 60000);
+    }
+
+    @Test
+    void preSend_RejectsUserPastBurstAndReportsError() {
+        // Arrange
+        when(templateProvider.getObject()).thenReturn(messagingTemplate);
+        UUID channelId = UUID.randomUUID();
+
+        // Act
+        Message<?> first = limiter.preSend(send("alice", channelId, null), inboundChannel);
+        Message<?> second = limiter.preSend(send("alice", channelId, null), inboundChannel);
+        Message<?> third = limiter.preSend(send("alice", channelId, "r-3"), inboundChannel);
+
+        // Assert
+        assertNotNull(first);
+        assertNotNull(second);
+        assertNull(third);
+        assertEquals(1.0, meterRegistry.get("websocket.rate_limit.rejected").tag("scope", "user").counter().count());
+        verify(messagingTemplate).convertAndSendToUser(eq("alice"), eq(StompRateLimiter.ERROR_DESTINATION),
+                argThat((StompErrorDto error) -> "r-3".equals(error.getReceiptId()) && error.getRetryAfterMs() > 0),
+                anyMap());
+    }
+
+    @Test
+    void preSend_LimitsChannelAcrossUsers() {
+        // Arrange
+        when(templateProvider.getObject()).thenReturn(messagingTemplate);
+        UUID channelId = UUID.randomUUID();
+        for (int i = 0; i < 3; i++) {
+            assertNotNull(limiter.preSend(send("user" + i, channelId, null), inboundChannel));
+        }
+
+        // Act
+        Message<?> rejected = limiter.preSend(send("user3", channelId, null), inboundChannel);
+        Message<?> otherChannel = limiter.preSend(send("user4", UUID.randomUUID(), null), inboundChannel);
+
+        // Assert
+        assertNull(rejected);
+        assertNotNull(otherChannel);
+        assertEquals(1.0, meterRegistry.get("websocket.rate_limit.rejected").tag("scope", "channel").counter().count());
+    }
+
+    @Test
+    void preSend_DoesNotChargeChannelTheSessionIsNotAuthorizedFor() {
+        // Arrange
+        UUID channelId = UUID.randomUUID();
+        for (int i = 0; i < 5; i++) {
+            assertNotNull(limiter.preSend(send("user" + i, channelId, null, false), inboundChannel));
+        }
+
+        // Act
+        Message<?> authorized = limiter.preSend(send("user5", channelId, null), inboundChannel);
+
+        // Assert
+        assertNotNull(authorized);
+        // Six user buckets, and one channel and one community bucket from the authorized send
+        assertEquals(8, limiter.trackedKeys());
+    }
+
+    @Test
+    void sweep_DropsBucketsThatHaveRefilled() {
+        // Arrange
+        limiter.preSend(send("alice", UUID.randomUUID(), null), inboundChannel);
+        assertEquals(3, limiter.trackedKeys());
+
+        // Act
+        limiter.sweep(System.nanoTime() + TimeUnit.SECONDS.toNanos(10));
+
+        // Assert
+        assertEquals(0, limiter.trackedKeys());
+    }
+
+    @Test
+    void tokenBucket_RefillsAtConfiguredRate() {
+        // Arrange
+        long start = 0;
+        TokenBucket bucket = new TokenBucket(10, 1, start);
+        assertEquals(0, bucket.tryAcquire(start));
+
+        // Act & Assert
+        assertTrue(bucket.tryAcquire(start) > 0);
+        assertEquals(0, bucket.tryAcquire(start + TimeUnit.MILLISECONDS.toNanos(100)));
+    }
+
+    private Message<byte[]> send(String user, UUID channelId, String receipt) {
+        return send(user, channelId, receipt, true);
+    }
+
+    private Message<byte[]> send(String user, UUID channelId, String receipt, boolean authorized) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SEND);
+        accessor.setDestination(StompRateLimiter.LIMITED_DESTINATION);
+        accessor.setSessionId("session-" + user);
+        HashMap<String, Object> sessionAttributes = new HashMap<>();
+        if (authorized) {
+            User sessionUser = new User("kc-" + user, user, user + "@example.com", "", "");
+            sessionUser.setId(UUID.randomUUID());
+            sessionRegistry.attach(sessionAttributes, "session-" + user, sessionUser)
+                    .authorize(channelId, COMMUNITY_ID);
+        }
+        accessor.setSessionAttributes(sessionAttributes);
+        accessor.setUser((Principal) () -> user);
+        if (receipt != null) {
+            accessor.setReceipt(receipt);
+        }
+        accessor.setLeaveMutable(true);
+        byte[] payload = ("{\"channelId\":\"" + channelId + "\",\"content\":\"hi\"}").getBytes(StandardCharsets.UTF_8);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,190 @@
+package com.lazycord.websocket;
+
+import com.lazycord.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StompSessionRegistryTest {
+
+    @Mock
+    private ObjectProvider<RedisBrokerRelay> redisBrokerRelay;
+
+    private SimpleMeterRegistry meterRegistry;
+    private StompSessionRegistry registry;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        registry = new StompSessionRegistry(meterRegistry, redisBrokerRelay, 60000);
+        user = new User("kc-1", "alice", "alice@example.com", "Alice", "Test");
+        user.setId(UUID.randomUUID());
+    }
+
+    @Test
+    void attach_StoresSnapshotInSessionAttributes() {
+        // Arrange
+        Map<String, Object> attributes = new HashMap<>();
+
+        // Act
+        StompSessionState state = registry.attach(attributes, "s1", user);
+
+        // Assert
+        assertSame(state, registry.get(attributes));
+        assertEquals("alice", state.getUser().getUsername());
+        assertEquals(user.getId(), state.getUser().getId());
+        assertEquals(1.0, meterRegistry.get("websocket.sessions.tracked").gauge().value());
+    }
+
+    @Test
+    void revokeChannel_ClearsAuthorizationForAllSessionsOfUser() {
+        // Arrange
+        UUID channelId = UUID.randomUUID();
+        UUID otherChannelId = UUID.randomUUID();
+        StompSessionState first = registry.attach(new HashMap<>(), "s1", user);
+        StompSessionState second = registry.attach(new HashMap<>(), "s2", user);
+        first.authorize(channelId, UUID.randomUUID());
+        first.authorize(otherChannelId, UUID.randomUUID());
+        second.authorize(channelId, UUID.randomUUID());
+
+        // Act
+        registry.revokeChannel(user.getId(), channelId);
+
+        // Assert
+        assertNull(first.authorizedCommunity(channelId));
+        assertNull(second.authorizedCommunity(channelId));
+        assertNotNull(first.authorizedCommunity(otherChannelId));
+    }
+
+    @Test
+    void revokeChannel_TellsOtherNodesToDropAuthorizationsOfUser() {
+        // Arrange
+        RedisBrokerRelay relay = mock(RedisBrokerRelay.class);
+        doAnswer(invocation -> {
+            Consumer<RedisBrokerRelay> action = invocation.getArgument(0);
+            action.accept(relay);
+            return null;
+        }).when(redisBrokerRelay).ifAvailable(any());
+
+        // Act
+        registry.revokeChannel(user.getId(), UUID.randomUUID());
+
+        // Assert
+        verify(relay).publishInvalidation(RedisBrokerRelay.CHANNEL_AUTHORIZATIONS, user.getId());
+    }
+
+    @Test
+    void revokeCommunity_ClearsOnlyChannelsOfThatCommunity() {
+        // Arrange
+        UUID communityId = UUID.randomUUID();
+        UUID channelId = UUID.randomUUID();
+        UUID otherChannelId = UUID.randomUUID();
+        StompSessionState state = registry.attach(new HashMap<>(), "s1", user);
+        state.authorize(channelId, communityId);
+        state.authorize(otherChannelId, UUID.randomUUID());
+
+        // Act
+        registry.revokeCommunity(user.getId(), communityId);
+
+        // Assert
+        assertNull(state.authorizedCommunity(channelId));
+        assertNotNull(state.authorizedCommunity(otherChannelId));
+    }
+
+    @Test
+    void revokeAllChannels_ClearsAuthorizationsButKeepsSnapshot() {
+        // Arrange
+        UUID channelId = UUID.randomUUID();
+        StompSessionState state = registry.attach(new HashMap<>(), "s1", user);
+        state.authorize(channelId, UUID.randomUUID());
+
+        // Act
+        registry.revokeAllChannels(user.getId());
+
+        // Assert
+        assertNull(state.authorizedCommunity(channelId));
+        assertNotNull(state.getUser());
+    }
+
+    @Test
+    void authorizedCommunity_ExpiresAfterTtl() throws InterruptedException {
+        // Arrange
+        registry = new StompSessionRegistry(new SimpleMeterRegistry(), redisBrokerRelay, 10);
+        UUID channelId = UUID.randomUUID();
+        StompSessionState state = registry.attach(new HashMap<>(), "s1", user);
+        state.authorize(channelId, UUID.randomUUID());
+
+        // Act
+        Thread.sleep(30);
+
+        // Assert
+        assertNull(state.authorizedCommunity(channelId));
+    }
+
+    @Test
+    void refreshUser_ReplacesSnapshot() {
+        // Arrange
+        StompSessionState state = registry.attach(new HashMap<>(), "s1", user);
+        user.setAvatarUrl("/avatars/new.png");
+
+        // Act
+        registry.refreshUser(user);
+
+        // Assert
+        assertEquals("/avatars/new.png", state.getUser().getAvatarUrl());
+    }
+
+    @Test
+    void evictUser_ForgetsSnapshotAndAuthorizations() {
+        // Arrange
+        UUID channelId = UUID.randomUUID();
+        StompSessionState state = registry.attach(new HashMap<>(), "s1", user);
+        state.authorize(channelId, UUID.randomUUID());
+
+        // Act
+        registry.evictUser(user.getId());
+
+        // Assert
+        assertNull(state.getUser());
+        assertNull(state.authorizedCommunity(channelId));
+        assertEquals(0.0, meterRegistry.get("websocket.sessions.tracked").gauge().value());
+    }
+
+    @Test
+    void onDisconnect_StopsTrackingSession() {
+        // Arrange
+        Map<String, Object> attributes = new HashMap<>();
+        registry.attach(attributes, "s1", user);
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.DISCONNECT);
+        accessor.setSessionId("s1");
+        accessor.setSessionAttributes(attributes);
+        Message<byte[]> message = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+
+        // Act
+        registry.onDisconnect(new SessionDisconnectEvent(this, message, "s1", CloseStatus.NORMAL));
+
+        // Assert
+        assertEquals(0.0, meterRegistry.get("websocket.sessions.tracked").gauge().value());
+    }
+}
@@ -19,6 +19,34 @@ interface ChatState {
   setCurrentChannel: (channel: Channel | null) => void
 }
 
+// Keyset cursor of the newest message we have, in the server's "{createdAt}_{id}" format
+const latestCursor = (messages: ChatMessage[]): string | null => {
+  if (messages.length === 0) return null
+  const latest = messages.reduce((a, b) => (b.createdAt > a.createdAt ? b : a))
+  return `${latest.createdAt}_${latest.id}`
+}
+
+// Channel order: by sequence number when both messages have one, else by the server's (createdAt, id) keyset
+const compareMessages = (a: ChatMessage, b: ChatMessage): number => {
+  if (a.seq != null && b.seq != null) return a.seq - b.seq
+  if (a.createdAt !== b.createdAt) return a.createdAt < b.createdAt ? -1 : 1
+  return a.id < b.id ? -1 : a.id > b.id ? 1 : 0
+}
+
+// Replayed messages can arrive after live ones that are newer, so merges keep channel order
+const appendUnique = (existing: ChatMessage[], incoming: ChatMessage[]): ChatMessage[] => {
+  const seen = new Set(existing.map((m) => m.id))
+  const added = incoming.filter((m) => !seen.has(m.id))
+  if (added.length === 0) return existing
+  return [...existing, ...added].sort(compareMessages)
+}
+
+interface ResumeResponse {
+  channelId: string
+  messages: ChatMessage[]
+  tooFarBehind: boolean
+}
+
 const API_URL = import.meta.env.VITE_API_URL || 'http://localhost:8080'
 const WS_URL = import.meta.env.VITE_WS_URL || 'ws://localhost:8080/ws/chat'
 
@@ -48,14 +76,38 @@ export const useChatStore = create<ChatState>()((set, get) => ({
       console.log('Connected to WebSocket')
       set({ connected: true })
 
-      const { currentChannel } = get()
+      // Frames rejected by the server (e.g. rate limited) are reported here, the connection stays open
+      client.subscribe('/user/queue/errors', (message) => {
+        const error: { error: string; destination: string; retryAfterMs: number } = JSON.parse(message.body)
+        console.warn(`${error.error} for ${error.destination}, retry in ${error.retryAfterMs} ms`)
+      })
+
+      const { currentChannel, messages } = get()
       if (currentChannel) {
-        client.subscribe(`/topic/channel/${currentChannel.id}`, (message) => {
-          const chatMessage: ChatMessage = JSON.parse(message.body)
-          set((state) => ({
-            messages: [...state.messages, chatMessage],
-          }))
+        // On reconnect only the missed messages are replayed instead of reloading history
+        client.subscribe('/user/queue/resume', (message) => {
+          const resume: ResumeResponse = JSON.parse(message.body)
+          if (resume.channelId !== get().currentChannel?.id) return
+          if (resume.tooFarBehind) {
+            get().loadMessages(resume.channelId)
+          } else {
+            set((state) => ({ messages: appendUnique(state.messages, resume.messages) }))
+          }
         })
+
+        const cursor = latestCursor(messages)
+        client.subscribe(
+          `/topic/channel/${currentChannel.id}`,
+          (message) => {
+            // Busy channels deliver several messages per frame as an array
+            const payload: ChatMessage | ChatMessage[] = JSON.parse(message.body)
+            const chatMessages = Array.isArray(payload) ? payload : [payload]
+            set((state) => ({
+              messages: appendUnique(state.messages, chatMessages),
+            }))
+          },
+          cursor ? { 'resume-cursor': cursor } : {}
+        )
       }
     }
 
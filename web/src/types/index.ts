@@ -46,6 +46,7 @@ export interface ChatMessage {
   senderUsername: string
   senderAvatarUrl?: string
   channelId: string
+  seq?: number
   attachmentUrl?: string
   attachments?: FileAttachment[]
   edited: boolean